@@ -0,0 +1,121 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.benchmarks;
+
+import danta.api.configuration.Configuration;
+import danta.api.configuration.Mode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration lookups on the snapshot returned by AEMConfigurationProviderImpl, in every {@link Mode}.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark {
+
+    private static final String CATEGORY_PARAM = "xk_componentCategory";
+    private static final String NUMBER_PARAM = "xk_maxItems";
+    private static final String NESTED_PARAM = "items.paths";
+
+    @Param({"INHERIT", "MERGE", "COMBINE", "SHALLOW"})
+    public Mode mode;
+
+    private Configuration configuration;
+    private Method distilledMap;
+
+    @Setup(Level.Trial)
+    public void setUp(DantaBenchmarkState state)
+            throws Exception {
+        configuration = state.configurationProvider.getFor(DantaBenchmarkState.COMPONENT_RESOURCE_TYPE);
+        // distilledMap(Mode, boolean) isn't part of the Configuration API; the uncached form is reached reflectively
+        distilledMap = configuration.getClass().getMethod("distilledMap", Mode.class, boolean.class);
+        distilledMap.setAccessible(true);
+    }
+
+    @Benchmark
+    public Configuration getFor(DantaBenchmarkState state)
+            throws Exception {
+        return state.configurationProvider.getFor(DantaBenchmarkState.COMPONENT_RESOURCE_TYPE);
+    }
+
+    @Benchmark
+    public Collection<String> names()
+            throws Exception {
+        return configuration.names(mode);
+    }
+
+    @Benchmark
+    public Collection<String> asStrings()
+            throws Exception {
+        return configuration.asStrings(CATEGORY_PARAM, mode);
+    }
+
+    @Benchmark
+    public Collection<String> asStringsNested()
+            throws Exception {
+        return configuration.asStrings(NESTED_PARAM, mode);
+    }
+
+    @Benchmark
+    public Collection<Number> asNumbers()
+            throws Exception {
+        return configuration.asNumbers(NUMBER_PARAM, mode);
+    }
+
+    @Benchmark
+    public Object distilledMap()
+            throws Exception {
+        return distilledMap.invoke(configuration, mode, true);
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap()
+            throws Exception {
+        return configuration.toMap();
+    }
+
+    @Benchmark
+    public String toJSONString()
+            throws Exception {
+        return configuration.toString();
+    }
+}
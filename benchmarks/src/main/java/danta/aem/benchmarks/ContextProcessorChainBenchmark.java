@@ -0,0 +1,82 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.benchmarks;
+
+import danta.aem.templating.TemplateContentModelImpl;
+import danta.api.ContextProcessor;
+import danta.core.execution.ExecutionContextImpl;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static danta.Constants.ENGINE_RESOURCE;
+import static danta.aem.Constants.SLING_HTTP_REQUEST;
+
+/**
+ * Content model building for the synthetic component: the context processors of this bundle run in engine order
+ * on a fresh content model, as ContentModelFactoryServiceImpl would. The acceptance checks of the engine itself
+ * live in danta-core and are not part of the measurement.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContextProcessorChainBenchmark {
+
+    private SlingHttpServletRequest request;
+    private SlingHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp(DantaBenchmarkState state) {
+        request = state.context.request();
+        response = state.context.response();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public TemplateContentModelImpl contentModel(DantaBenchmarkState state)
+            throws Exception {
+        TemplateContentModelImpl contentModel = new TemplateContentModelImpl(request, response);
+        ExecutionContextImpl executionContext = new ExecutionContextImpl();
+        executionContext.put(SLING_HTTP_REQUEST, request);
+        executionContext.put(ENGINE_RESOURCE, state.resource.getResourceType());
+        for (ContextProcessor contextProcessor : state.contextProcessors) {
+            contextProcessor.process(executionContext, contentModel);
+        }
+        return contentModel;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.benchmarks;
+
+import danta.aem.configuration.AEMConfigurationProviderImpl;
+import danta.aem.contextprocessors.AddAllResourceContentPropertiesContextProcessor;
+import danta.aem.contextprocessors.AddBasicResourcePropertiesContextProcessor;
+import danta.aem.contextprocessors.AddComponentPropertiesContextProcessor;
+import danta.aem.contextprocessors.DeserializeJSONPropertyValuesContextProcessor;
+import danta.aem.services.impl.ServiceResourceResolverProviderImpl;
+import danta.api.ContextProcessor;
+import org.apache.sling.api.resource.Resource;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shared benchmark fixture: an in-memory JCR/Sling/AEM mock holding a synthetic Danta component (two levels of
+ * xk.config inheritance) and a content resource using it, along with the Danta services the benchmarks exercise.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@State(Scope.Benchmark)
+public class DantaBenchmarkState {
+
+    static final String APPS_ROOT = "/apps/bench";
+    static final String CONTENT_ROOT = "/content/bench";
+    static final String COMPONENT_RESOURCE_TYPE = "bench/components/content";
+    static final String COMPONENT_CONTENT_PATH = CONTENT_ROOT + "/jcr:content/par/content";
+
+    BenchmarkAemContext context;
+    AEMConfigurationProviderImpl configurationProvider;
+    Resource resource;
+    Node node;
+    Property[] properties;
+    List<ContextProcessor> contextProcessors;
+
+    @Setup(Level.Trial)
+    public void setUp()
+            throws Exception {
+        context = new BenchmarkAemContext();
+        context.start();
+        context.load().json("/danta/aem/benchmarks/apps.json", APPS_ROOT);
+        context.load().json("/danta/aem/benchmarks/content.json", CONTENT_ROOT);
+
+        context.registerInjectActivateService(new ServiceResourceResolverProviderImpl());
+        configurationProvider = context.registerInjectActivateService(new AEMConfigurationProviderImpl());
+
+        resource = context.currentResource(COMPONENT_CONTENT_PATH);
+        node = resource.adaptTo(Node.class);
+        List<Property> nodeProperties = new ArrayList<>();
+        PropertyIterator propertyIterator = node.getProperties();
+        while (propertyIterator.hasNext()) {
+            nodeProperties.add(propertyIterator.nextProperty());
+        }
+        properties = nodeProperties.toArray(new Property[nodeProperties.size()]);
+
+        // The processors of this bundle a content component goes through, in engine order (highest priority first)
+        contextProcessors = new ArrayList<>();
+        contextProcessors.add(context.registerInjectActivateService(new AddComponentPropertiesContextProcessor()));
+        contextProcessors.add(context.registerInjectActivateService(new AddAllResourceContentPropertiesContextProcessor()));
+        contextProcessors.add(context.registerInjectActivateService(new AddBasicResourcePropertiesContextProcessor()));
+        contextProcessors.add(context.registerInjectActivateService(new DeserializeJSONPropertyValuesContextProcessor()));
+        Collections.sort(contextProcessors, new Comparator<ContextProcessor>() {
+            @Override
+            public int compare(ContextProcessor first, ContextProcessor second) {
+                return Integer.compare(second.priority(), first.priority());
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.benchmarks;
+
+import org.apache.sling.testing.mock.osgi.context.OsgiContextImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Registers the Danta SCR components (danta-core and this bundle) found on the classpath into an OSGi mock context,
+ * the way the SCR runtime would: components are activated once their mandatory references are available, so they
+ * are retried until no more of them can be activated. Components depending on services the mock doesn't provide
+ * are left out and reported.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+final class DantaComponents {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DantaComponents.class);
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+    private static final String SERVICE_COMPONENT_HEADER = "Service-Component";
+    private static final String DANTA_PACKAGE_PREFIX = "danta.";
+
+    private DantaComponents() {
+    }
+
+    /**
+     * @param context The OSGi mock context
+     * @return The activated components by implementation class name
+     * @throws Exception
+     */
+    static Map<String, Object> registerAll(OsgiContextImpl context)
+            throws Exception {
+        Set<String> pending = new LinkedHashSet<>(implementationClasses());
+        Map<String, Object> registered = new LinkedHashMap<>();
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        boolean progress = true;
+        while (progress && !pending.isEmpty()) {
+            progress = false;
+            for (Iterator<String> iterator = pending.iterator(); iterator.hasNext(); ) {
+                String className = iterator.next();
+                try {
+                    Object component = Class.forName(className).newInstance();
+                    context.registerInjectActivateService(component);
+                    registered.put(className, component);
+                    failures.remove(className);
+                    iterator.remove();
+                    progress = true;
+                } catch (Throwable ew) {
+                    failures.put(className, ew);
+                }
+            }
+        }
+        for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+            LOG.warn("Not activated: {} ({})", failure.getKey(), failure.getValue().toString());
+        }
+        LOG.info("Activated {} Danta components, {} left out", registered.size(), failures.size());
+        return registered;
+    }
+
+    /**
+     * @return The implementation classes of the Danta components declared in the Service-Component headers
+     * @throws Exception
+     */
+    private static List<String> implementationClasses()
+            throws Exception {
+        List<String> classNames = new ArrayList<>();
+        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        ClassLoader classLoader = DantaComponents.class.getClassLoader();
+        Enumeration<URL> manifests = classLoader.getResources(MANIFEST);
+        while (manifests.hasMoreElements()) {
+            URL manifestURL = manifests.nextElement();
+            String header;
+            try (InputStream in = manifestURL.openStream()) {
+                header = new Manifest(in).getMainAttributes().getValue(SERVICE_COMPONENT_HEADER);
+            }
+            if (header == null) {
+                continue;
+            }
+            for (String descriptor : descriptors(manifestURL, header)) {
+                URL descriptorURL = classLoader.getResource(descriptor);
+                if (descriptorURL == null) {
+                    continue;
+                }
+                try (InputStream in = descriptorURL.openStream()) {
+                    Document document = documentBuilder.parse(in);
+                    NodeList implementations = document.getElementsByTagNameNS("*", "implementation");
+                    if (implementations.getLength() == 0) {
+                        implementations = document.getElementsByTagName("implementation");
+                    }
+                    for (int i = 0; i < implementations.getLength(); i++) {
+                        String className = ((Element) implementations.item(i)).getAttribute("class");
+                        if (className.startsWith(DANTA_PACKAGE_PREFIX) && !classNames.contains(className)) {
+                            classNames.add(className);
+                        }
+                    }
+                }
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * @return The descriptor paths of a Service-Component header, with wildcards expanded against the jar entries
+     */
+    private static List<String> descriptors(URL manifestURL, String header)
+            throws Exception {
+        List<String> descriptors = new ArrayList<>();
+        for (String descriptor : header.split(",")) {
+            descriptor = descriptor.trim();
+            if (descriptor.isEmpty()) {
+                continue;
+            }
+            if (!descriptor.contains("*")) {
+                descriptors.add(descriptor);
+                continue;
+            }
+            URLConnection connection = manifestURL.openConnection();
+            if (connection instanceof JarURLConnection) {
+                String prefix = descriptor.substring(0, descriptor.indexOf('*'));
+                String suffix = descriptor.substring(descriptor.indexOf('*') + 1);
+                JarFile jarFile = ((JarURLConnection) connection).getJarFile();
+                for (JarEntry entry : Collections.list(jarFile.entries())) {
+                    if (entry.getName().startsWith(prefix) && entry.getName().endsWith(suffix)) {
+                        descriptors.add(entry.getName());
+                    }
+                }
+            }
+        }
+        return descriptors;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.benchmarks;
+
+import danta.aem.util.PropertyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.jcr.Property;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the properties of the synthetic content node with {@link PropertyUtils}.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyUtilsBenchmark {
+
+    @Benchmark
+    public Map<String, Object> propsToMapIterator(DantaBenchmarkState state)
+            throws Exception {
+        return PropertyUtils.propsToMap(state.node.getProperties());
+    }
+
+    @Benchmark
+    public Map<String, Object> propsToMapArray(DantaBenchmarkState state)
+            throws Exception {
+        return PropertyUtils.propsToMap(state.properties);
+    }
+
+    @Benchmark
+    public void distill(DantaBenchmarkState state, Blackhole blackhole)
+            throws Exception {
+        for (Property property : state.properties) {
+            blackhole.consume(PropertyUtils.distill(property));
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.benchmarks;
+
+import danta.aem.servlets.ComponentContentModelToJSONServlet;
+import danta.aem.servlets.PageContentModelToJSONServlet;
+import danta.aem.templating.DantaScriptEngineFactory;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.api.scripting.SlingScript;
+import org.apache.sling.api.scripting.SlingScriptHelper;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestPathInfo;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
+import javax.servlet.Servlet;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static danta.Constants.JSON;
+import static danta.aem.Constants.CLIENT_COMPONENT_CONTENT_MODEL_SELECTORS;
+import static danta.aem.Constants.CLIENT_PAGE_CONTENT_MODEL_SELECTORS;
+
+/**
+ * End to end render throughput harness. It generates a {@link SyntheticSite} in an in-memory JCR/Sling/AEM mock,
+ * activates the Danta components and requests its pages from many threads, through DantaScriptEngine.eval, the
+ * content model JSON servlets or both. After a warm up, it reports requests per second, latency percentiles, bytes
+ * allocated per request and response size. It runs offline.
+ * <p>
+ * A page render evaluates the page script, then the script of each component of its paragraph on the same request,
+ * as the includes of the page would (the mock has no request dispatcher to drive includes from the page script).
+ * A JSON request asks for the page content model, then the content model of each component.
+ * <p>
+ * Usage:
+ * <pre>
+ *     java -cp target/benchmarks.jar danta.aem.benchmarks.RenderHarness [--pages=100] [--components=10]
+ *          [--listDepth=3] [--images=20] [--threads=&lt;cores&gt;] [--warmup=10] [--duration=30]
+ *          [--target=render|json|all]
+ * </pre>
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class RenderHarness {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderHarness.class);
+
+    private static final String RENDER_TARGET = "render";
+    private static final String JSON_TARGET = "json";
+    private static final String ALL_TARGET = "all";
+    private static final String HTML_EXTENSION = "html";
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_LABELS = {"p50", "p90", "p99", "p99.9"};
+
+    private final BenchmarkAemContext context;
+    private final SyntheticSite site;
+    private final String target;
+    private final DantaScriptEngineFactory scriptEngineFactory;
+    private final Servlet pageServlet;
+    private final Servlet componentServlet;
+    private final ResourceResolverFactory resourceResolverFactory;
+
+    private RenderHarness(BenchmarkAemContext context, SyntheticSite site, Map<String, Object> components,
+                          String target) {
+        this.context = context;
+        this.site = site;
+        this.target = target;
+        this.scriptEngineFactory = (DantaScriptEngineFactory) components.get(DantaScriptEngineFactory.class.getName());
+        this.pageServlet = (Servlet) components.get(PageContentModelToJSONServlet.class.getName());
+        this.componentServlet = (Servlet) components.get(ComponentContentModelToJSONServlet.class.getName());
+        this.resourceResolverFactory = context.getService(ResourceResolverFactory.class);
+        if (!JSON_TARGET.equals(target) && scriptEngineFactory == null) {
+            throw new IllegalStateException("The Danta script engine factory couldn't be activated");
+        }
+        if (!RENDER_TARGET.equals(target) && (pageServlet == null || componentServlet == null)) {
+            throw new IllegalStateException("The content model JSON servlets couldn't be activated");
+        }
+    }
+
+    public static void main(String[] args)
+            throws Exception {
+        Map<String, String> options = options(args);
+        int pages = option(options, "pages", 100);
+        int components = option(options, "components", 10);
+        int listDepth = option(options, "listDepth", 3);
+        int images = option(options, "images", 20);
+        int threads = option(options, "threads", Runtime.getRuntime().availableProcessors());
+        int warmup = option(options, "warmup", 10);
+        int duration = option(options, "duration", 30);
+        String target = options.containsKey("target") ? options.get("target") : RENDER_TARGET;
+
+        BenchmarkAemContext context = new BenchmarkAemContext();
+        context.start();
+        try {
+            SyntheticSite site = new SyntheticSite(pages, components, listDepth, images);
+            site.generate(context);
+            RenderHarness harness = new RenderHarness(context, site, DantaComponents.registerAll(context), target);
+
+            System.out.printf("Synthetic site: %d pages, %d components per page, list depth %d, %d images%n",
+                    pages, components, listDepth, images);
+            System.out.printf("Target: %s, %d threads, %d s measured after %d s of warm up%n",
+                    target, threads, duration, warmup);
+            harness.run(threads, warmup);
+            harness.run(threads, duration).report(duration);
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * Requests the pages from the given number of threads for the given time.
+     *
+     * @return The merged statistics of the workers
+     */
+    private Worker run(int threads, int seconds)
+            throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(new Worker(i, threads, deadline)));
+            }
+            Worker total = new Worker(0, 1, deadline);
+            for (Future<Worker> future : futures) {
+                total.merge(future.get());
+            }
+            return total;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Requests a page, as configured by the target.
+     *
+     * @return The size of the responses
+     */
+    private long request(ResourceResolver resolver, ScriptEngine scriptEngine, String pageContentPath, long count)
+            throws Exception {
+        boolean json = JSON_TARGET.equals(target) || (ALL_TARGET.equals(target) && count % 2 == 1);
+        return json ? requestJSON(resolver, pageContentPath) : renderPage(resolver, scriptEngine, pageContentPath);
+    }
+
+    private long renderPage(ResourceResolver resolver, ScriptEngine scriptEngine, String pageContentPath)
+            throws Exception {
+        MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(resolver, context.bundleContext());
+        ((MockRequestPathInfo) request.getRequestPathInfo()).setExtension(HTML_EXTENSION);
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        eval(resolver, scriptEngine, request, response, resolver.getResource(pageContentPath));
+        for (String componentPath : site.componentPaths(pageContentPath)) {
+            eval(resolver, scriptEngine, request, response, resolver.getResource(componentPath));
+        }
+        return response.getOutputAsString().length();
+    }
+
+    private void eval(ResourceResolver resolver, ScriptEngine scriptEngine, MockSlingHttpServletRequest request,
+                      MockSlingHttpServletResponse response, Resource resource)
+            throws Exception {
+        request.setResource(resource);
+        String resourceType = resource.getResourceType();
+        Bindings bindings = new SimpleBindings();
+        bindings.put(SlingBindings.REQUEST, request);
+        bindings.put(SlingBindings.RESPONSE, response);
+        bindings.put(SlingBindings.RESOURCE, resource);
+        bindings.put(SlingBindings.SLING, scriptHelper(site.scriptResource(resolver, resourceType)));
+        ScriptContext scriptContext = new SimpleScriptContext();
+        scriptContext.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        scriptEngine.eval(new StringReader(site.script(resourceType)), scriptContext);
+    }
+
+    private long requestJSON(ResourceResolver resolver, String pageContentPath)
+            throws Exception {
+        long size = service(pageServlet, resolver, pageContentPath, CLIENT_PAGE_CONTENT_MODEL_SELECTORS);
+        for (String componentPath : site.componentPaths(pageContentPath)) {
+            size += service(componentServlet, resolver, componentPath, CLIENT_COMPONENT_CONTENT_MODEL_SELECTORS);
+        }
+        return size;
+    }
+
+    private long service(Servlet servlet, ResourceResolver resolver, String path, String selectors)
+            throws Exception {
+        MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(resolver, context.bundleContext());
+        request.setResource(resolver.getResource(path));
+        MockRequestPathInfo requestPathInfo = (MockRequestPathInfo) request.getRequestPathInfo();
+        requestPathInfo.setResourcePath(path);
+        requestPathInfo.setSelectorString(selectors);
+        requestPathInfo.setExtension(JSON);
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        servlet.service(request, response);
+        return response.getOutputAsString().length();
+    }
+
+    /**
+     * @return A script helper only providing the script resource, which is all the script engine needs from it
+     */
+    private static SlingScriptHelper scriptHelper(final Resource scriptResource) {
+        final SlingScript script = proxy(SlingScript.class, "getScriptResource", scriptResource);
+        return proxy(SlingScriptHelper.class, "getScript", script);
+    }
+
+    private static <T> T proxy(final Class<T> type, final String methodName, final Object value) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return type.getSimpleName() + " of " + value;
+                    default:
+                        return method.getName().equals(methodName) ? value : null;
+                }
+            }
+        }));
+    }
+
+    /**
+     * @return The bytes allocated so far by the current thread, or -1 if the JVM doesn't track them
+     */
+    private static long allocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+        }
+        return options;
+    }
+
+    private static int option(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    /**
+     * Requests pages until the deadline from its own resolver and records the latency, allocated bytes and response
+     * size of each request. Workers start at different pages and go through them in turn.
+     */
+    private final class Worker
+            implements Callable<Worker> {
+
+        private final int first;
+        private final int step;
+        private final long deadline;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long allocated;
+        private long responseSize;
+
+        private Worker(int first, int step, long deadline) {
+            this.first = first;
+            this.step = step;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Worker call()
+                throws Exception {
+            ResourceResolver resolver = resourceResolverFactory.getAdministrativeResourceResolver(null);
+            try {
+                ScriptEngine scriptEngine = (scriptEngineFactory != null) ? scriptEngineFactory.getScriptEngine() : null;
+                List<String> pagePaths = site.pagePaths();
+                int index = first;
+                while (System.nanoTime() < deadline) {
+                    String pageContentPath = pagePaths.get(index % pagePaths.size());
+                    index += step;
+                    long allocatedBefore = allocatedBytes();
+                    long start = System.nanoTime();
+                    try {
+                        responseSize += request(resolver, scriptEngine, pageContentPath, count);
+                    } catch (Exception ew) {
+                        if (errors++ == 0) {
+                            LOG.error("Request of " + pageContentPath + " failed", ew);
+                        }
+                    }
+                    record(System.nanoTime() - start);
+                    allocated += allocatedBytes() - allocatedBefore;
+                }
+            } finally {
+                resolver.close();
+            }
+            return this;
+        }
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        private void merge(Worker worker) {
+            for (int i = 0; i < worker.count; i++) {
+                record(worker.latencies[i]);
+            }
+            errors += worker.errors;
+            allocated += worker.allocated;
+            responseSize += worker.responseSize;
+        }
+
+        private void report(int seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("Requests:       %d (%d errors)%n", count, errors);
+            System.out.printf("Throughput:     %.1f requests/s%n", (double) count / seconds);
+            if (count == 0) {
+                return;
+            }
+            StringBuilder percentiles = new StringBuilder();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                int index = Math.max(0, (int) Math.ceil(PERCENTILES[i] / 100 * count) - 1);
+                percentiles.append(String.format("%s %.2f  ", PERCENTILE_LABELS[i], sorted[index] / 1e6));
+            }
+            percentiles.append(String.format("max %.2f", sorted[count - 1] / 1e6));
+            System.out.printf("Latency (ms):   %s%n", percentiles);
+            System.out.printf("Allocated:      %s per request%n",
+                    (allocatedBytes() < 0) ? "n/a" : String.format("%.1f KB", allocated / 1024.0 / count));
+            System.out.printf("Response size:  %.1f KB per request%n", responseSize / 1024.0 / count);
+        }
+    }
+}
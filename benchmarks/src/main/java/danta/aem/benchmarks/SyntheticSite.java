@@ -0,0 +1,247 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.benchmarks;
+
+import io.wcm.testing.mock.aem.context.AemContextImpl;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static danta.Constants.*;
+import static danta.aem.Constants.JCR_CONTENT;
+import static danta.core.Constants.XK_COMPONENT_CATEGORY;
+import static danta.core.Constants.XK_CONTENT_ID_CP;
+
+/**
+ * Generates a synthetic Danta site in the mock repository: page, text, list and image components (xk.config and
+ * script) under /apps, DAM images, and pages under /content, each holding a paragraph of components. Text, list and
+ * image components alternate in the paragraph; lists hold a JSON tree of items, deserialized by the context
+ * processors, nested down to the list depth.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+final class SyntheticSite {
+
+    static final String APP_NAME = "site";
+    static final String APPS_ROOT = "/apps/" + APP_NAME;
+    static final String CONTENT_ROOT = "/content/" + APP_NAME;
+    static final String DAM_ROOT = "/content/dam/" + APP_NAME;
+    static final String PAGE = "page";
+    static final String TEXT = "text";
+    static final String LIST = "list";
+    static final String IMAGE = "image";
+
+    private static final String SCRIPT_EXTENSION = ".d";
+    private static final String PARAGRAPH = "par";
+    private static final int ITEMS_PER_LEVEL = 3;
+
+    private final int pages;
+    private final int componentsPerPage;
+    private final int listDepth;
+    private final int images;
+    private final Map<String, String> scripts = new HashMap<>();
+    private final List<String> pagePaths = new ArrayList<>();
+    private final Map<String, List<String>> componentPaths = new HashMap<>();
+
+    /**
+     * @param pages The number of pages
+     * @param componentsPerPage The number of components in the paragraph of each page
+     * @param listDepth The nesting depth of the list items
+     * @param images The number of DAM images referenced by the image components (0 for no image components)
+     */
+    SyntheticSite(int pages, int componentsPerPage, int listDepth, int images) {
+        this.pages = pages;
+        this.componentsPerPage = componentsPerPage;
+        this.listDepth = listDepth;
+        this.images = images;
+    }
+
+    /**
+     * Creates the components, images and pages in the repository of the context.
+     *
+     * @param context The AEM mock context
+     * @throws Exception
+     */
+    void generate(AemContextImpl context)
+            throws Exception {
+        component(context, PAGE, null, Arrays.asList(PAGE_CATEGORY, HTML_PAGE_CATEGORY, CONTENT_CATEGORY),
+                "<!DOCTYPE html><html><head><title>" + value(PAGE_PROPERTIES_KEY + ".title") + "</title></head>"
+                        + "<body><h1>" + value(RESOURCE_CONTENT_KEY + ".title") + "</h1>"
+                        + "<p>" + value(RESOURCE_CONTENT_KEY + ".summary") + "</p></body></html>");
+        component(context, TEXT, null, Arrays.asList(COMPONENT_CATEGORY, CONTENT_CATEGORY),
+                "<div class=\"text\" id=\"" + value(RESOURCE_CONTENT_KEY + "." + XK_CONTENT_ID_CP) + "\">"
+                        + "<h2>" + value(RESOURCE_CONTENT_KEY + ".title") + "</h2>"
+                        + "<p>" + value(RESOURCE_CONTENT_KEY + ".text") + "</p></div>");
+        component(context, LIST, "content.items", Arrays.asList(COMPONENT_CATEGORY, CONTENT_CATEGORY, LIST_CATEGORY),
+                "<ul class=\"list\">" + listItems(RESOURCE_CONTENT_KEY + ".items", listDepth) + "</ul>");
+        component(context, IMAGE, null, Arrays.asList(COMPONENT_CATEGORY, CONTENT_CATEGORY, IMAGE_CATEGORY),
+                "<figure class=\"image\"><img src=\"" + value(RESOURCE_CONTENT_KEY + "." + FILE_REFERENCE) + "\" alt=\""
+                        + value(RESOURCE_CONTENT_KEY + ".alt") + "\"/></figure>");
+
+        for (int i = 0; i < images; i++) {
+            context.create().asset(DAM_ROOT + "/image" + i + ".jpg", 1600, 900, "image/jpeg");
+        }
+
+        String listItems = items(listDepth).toJSONString();
+        for (int i = 0; i < pages; i++) {
+            String pagePath = CONTENT_ROOT + "/page" + i;
+            Map<String, Object> pageProperties = new HashMap<>();
+            pageProperties.put("sling:resourceType", resourceType(PAGE));
+            pageProperties.put("jcr:title", "Page " + i);
+            pageProperties.put("summary", "Summary of synthetic page " + i);
+            context.create().page(pagePath, null, pageProperties);
+            String paragraphPath = pagePath + "/" + JCR_CONTENT + "/" + PARAGRAPH;
+            context.create().resource(paragraphPath, "sling:resourceType", "foundation/components/parsys");
+
+            List<String> paths = new ArrayList<>();
+            for (int j = 0; j < componentsPerPage; j++) {
+                String name = componentName(j);
+                String componentPath = paragraphPath + "/" + name + j;
+                Map<String, Object> properties = new LinkedHashMap<>();
+                properties.put("sling:resourceType", resourceType(name));
+                properties.put("title", "Component " + j + " of page " + i);
+                if (TEXT.equals(name)) {
+                    properties.put("text", "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod "
+                            + "tempor incididunt ut labore et dolore magna aliqua. Page " + i + ", component " + j + ".");
+                } else if (LIST.equals(name)) {
+                    properties.put("items", listItems);
+                } else {
+                    properties.put(FILE_REFERENCE, DAM_ROOT + "/image" + ((i * componentsPerPage + j) % images) + ".jpg");
+                    properties.put("alt", "Image " + j + " of page " + i);
+                }
+                context.create().resource(componentPath, properties);
+                paths.add(componentPath);
+            }
+            String pageContentPath = pagePath + "/" + JCR_CONTENT;
+            pagePaths.add(pageContentPath);
+            componentPaths.put(pageContentPath, Collections.unmodifiableList(paths));
+        }
+    }
+
+    /**
+     * @return The paths of the jcr:content resources of the pages
+     */
+    List<String> pagePaths() {
+        return Collections.unmodifiableList(pagePaths);
+    }
+
+    /**
+     * @param pageContentPath The path of the jcr:content resource of a page
+     * @return The paths of the components in the paragraph of the page
+     */
+    List<String> componentPaths(String pageContentPath) {
+        List<String> paths = componentPaths.get(pageContentPath);
+        return (paths != null) ? paths : Collections.<String>emptyList();
+    }
+
+    /**
+     * @param resourceType The resource type of a component of the site
+     * @return The template source of the component script
+     */
+    String script(String resourceType) {
+        return scripts.get(resourceType);
+    }
+
+    /**
+     * @param resolver The resource resolver
+     * @param resourceType The resource type of a component of the site
+     * @return The script resource of the component
+     */
+    Resource scriptResource(ResourceResolver resolver, String resourceType) {
+        String name = resourceType.substring(resourceType.lastIndexOf('/') + 1);
+        return resolver.getResource("/apps/" + resourceType + "/" + name + SCRIPT_EXTENSION);
+    }
+
+    private String componentName(int index) {
+        switch (index % 3) {
+            case 1:
+                return LIST;
+            case 2:
+                return (images > 0) ? IMAGE : TEXT;
+            default:
+                return TEXT;
+        }
+    }
+
+    private static String resourceType(String name) {
+        return APP_NAME + "/components/" + name;
+    }
+
+    private void component(AemContextImpl context, String name, String deserializedProperty, List<String> categories,
+                           String script)
+            throws Exception {
+        String componentPath = APPS_ROOT + "/components/" + name;
+        context.create().resource(componentPath, "jcr:primaryType", "cq:Component", "jcr:title", name);
+        Map<String, Object> config = new HashMap<>();
+        config.put(XK_COMPONENT_CATEGORY, categories.toArray(new String[categories.size()]));
+        config.put("xk_clientAccessible", true);
+        if (deserializedProperty != null) {
+            config.put("xk_deserializeJSON", new String[] {deserializedProperty});
+        }
+        context.create().resource(componentPath + "/" + XK_CONFIG_RESOURCE_NAME, config);
+        context.load().binaryFile(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)),
+                componentPath + "/" + name + SCRIPT_EXTENSION, "text/plain");
+        scripts.put(resourceType(name), script);
+    }
+
+    private static String value(String key) {
+        return START_DELIM + key + END_DELIM;
+    }
+
+    /**
+     * @return The template of a list, nested down to the depth
+     */
+    private static String listItems(String key, int depth) {
+        if (depth <= 0) {
+            return "";
+        }
+        return START_DELIM + "#each " + key + END_DELIM + "<li>" + value("title")
+                + ((depth > 1) ? "<ul>" + listItems("items", depth - 1) + "</ul>" : "")
+                + "</li>" + START_DELIM + "/each" + END_DELIM;
+    }
+
+    /**
+     * @return The list items, nested down to the depth
+     */
+    private static JSONArray items(int depth) {
+        JSONArray items = new JSONArray();
+        for (int i = 0; i < ITEMS_PER_LEVEL; i++) {
+            JSONObject item = new JSONObject();
+            item.put("title", "Item " + i + " at depth " + depth);
+            if (depth > 1) {
+                item.put("items", items(depth - 1));
+            }
+            items.add(item);
+        }
+        return items;
+    }
+}
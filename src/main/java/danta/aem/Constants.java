@@ -24,6 +24,7 @@ import static danta.Constants.CLIENT_CONTENT_MODEL_SELECTOR;
 import static danta.Constants.PAGE;
 import static danta.Constants.COMPONENT;
 import static danta.Constants.STATS;
+import static danta.Constants.XK_CONFIG_RESOURCE_NAME;
 
 /**
  * Constants for AEM specific.
@@ -41,6 +42,8 @@ public class Constants {
     public static final String FOUNDATION_IMAGE_COMPONENT_RESOURCE_TYPE = "foundation/components/image";
     public static final String CONTENT_ROOT = "/content";
     public static final String APPS_ROOT = "/apps";
+    public static final String XK_CONFIG_NODES_QUERY = "SELECT * FROM [nt:base] AS s WHERE ISDESCENDANTNODE(s, ["
+            + APPS_ROOT + "]) AND NAME(s) = '" + XK_CONFIG_RESOURCE_NAME + "'";
     public static final String JCR_CONTENT = "jcr:content";
     public static final String JCR_DESCRIPTION = "jcr:description";
     public static final String JCR_CREATED = "jcr:created";
@@ -87,6 +90,30 @@ public class Constants {
     //Categories
     public static final String SLING_MODELS_CATEGORY = "slingModelData";
     public static final String STRUCTURE_RESOURCES_CATEGORY = "structureResources";
+    //Render cache: only anonymous requests are cached, and a hit replays the request attribute changes of the
+    //render instead of running the context processors. See DantaRenderCache for what a component must not depend on.
+    public static final String RENDER_CACHE_CONFIG_PROPERTY_NAME = "xk_renderCache";
+    //Paths under /content or /apps whose changes (anywhere in their subtree) also drop the cached output, e.g. the
+    //site root for a navigation component
+    public static final String RENDER_CACHE_DEPENDENCIES_CONFIG_PROPERTY_NAME = "xk_renderCacheDependencies";
+    public static final String ANONYMOUS_USER_ID = "anonymous";
+    //Parallel includes: components declare they don't read the content model or request attributes of the page
+    public static final String PARALLEL_INCLUDE_CONFIG_PROPERTY_NAME = "xk_parallelInclude";
+    //Render metrics
+    public static final String RENDER_PHASE_SERVICE_LOGIN = "serviceLogin";
+    public static final String RENDER_PHASE_CONTEXT_PROCESSORS = "contextProcessors";
+    public static final String RENDER_PHASE_TEMPLATE_COMPILE = "templateCompile";
+    public static final String RENDER_PHASE_TEMPLATE_APPLY = "templateApply";
+    public static final String RENDER_PHASE_INCLUDES_STITCH = "includesStitch";
+    public static final String RENDER_PHASE_DOM_PARSE = "domParse";
+    public static final String RENDER_PHASE_DOM_PROCESS = "domProcess";
+    public static final String RENDER_PHASE_DOM_SERIALIZE = "domSerialize";
+    public static final String RENDER_PHASE_DOM_PROCESSOR_PREFIX = "domProcessor:";
+    public static final String RENDER_PHASE_OUTPUT_WRITE = "outputWrite";
+    public static final String RENDER_PHASE_TOTAL = "total";
+    public static final String RENDER_METRICS_TIMINGS_PARAMETER = "timings";
+    public static final String RENDER_METRICS_PROFILE_PARAMETER = "profile";
+    public static final String RENDER_METRICS_RENDERS = "renders";
 
 
 }
@@ -0,0 +1,101 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.assets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Local filesystem cache of transformed image renditions. Renditions are keyed by asset path, asset last
+ * modified time, transform name and output mime type, bounded in total size (least recently used renditions are
+ * evicted first) and dropped when their asset changes.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface RenditionCache {
+
+    /**
+     * @return true if the cache is enabled
+     */
+    public boolean isEnabled();
+
+    /**
+     * Returns the cached rendition file.
+     *
+     * @param assetPath The asset path
+     * @param lastModified The asset last modified time
+     * @param transformName The named image transform
+     * @param mimeType The output mime type
+     * @return file The rendition file, or null if there is none
+     */
+    public File get(String assetPath, long lastModified, String transformName, String mimeType);
+
+    /**
+     * Writes a rendition and publishes it to the cache. The rendition is only visible once fully written.
+     *
+     * @param assetPath The asset path
+     * @param lastModified The asset last modified time
+     * @param transformName The named image transform
+     * @param mimeType The output mime type
+     * @param writer The writer of the rendition
+     * @return file The published rendition file
+     * @throws IOException
+     */
+    public File put(String assetPath, long lastModified, String transformName, String mimeType,
+                    RenditionWriter writer) throws IOException;
+
+    /**
+     * Drops a rendition whose file is missing (e.g. deleted from the cache directory behind the cache), so the
+     * next {@link #get} misses and the rendition is written again. A rendition whose file exists is kept.
+     *
+     * @param assetPath The asset path
+     * @param lastModified The asset last modified time
+     * @param transformName The named image transform
+     * @param mimeType The output mime type
+     */
+    public void remove(String assetPath, long lastModified, String transformName, String mimeType);
+
+    /**
+     * Drops every rendition of the assets at, under or above the given path.
+     *
+     * @param path The changed path
+     */
+    public void invalidate(String path);
+
+    /**
+     * Drops every rendition.
+     */
+    public void invalidateAll();
+
+    /**
+     * Writes a rendition
+     */
+    public interface RenditionWriter {
+
+        /**
+         * @param out The stream the rendition is written to
+         * @throws IOException
+         */
+        public void write(OutputStream out) throws IOException;
+    }
+
+}
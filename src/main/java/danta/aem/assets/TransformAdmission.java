@@ -0,0 +1,66 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.assets;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Admission control for image transforms. A transform runs on the request thread once admitted: the number of
+ * transforms decoding at the same time and the total number of decoded pixels are bounded, and requests wait in a
+ * bounded queue, for a bounded time, for their turn.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface TransformAdmission {
+
+    /**
+     * Waits for a transform slot and for the pixel budget of the decoded image.
+     *
+     * @param pixels The estimated number of decoded pixels
+     * @return permit The permit to release once the transform is done
+     * @throws RejectedExecutionException if the queue is full or the wait timed out
+     * @throws InterruptedException
+     */
+    public Permit admit(long pixels) throws InterruptedException;
+
+    /**
+     * @return queueTimeout The maximum time, in milliseconds, a transform waits for admission
+     */
+    public long getQueueTimeout();
+
+    /**
+     * @return transformTimeout The time, in milliseconds, an admitted transform is expected to take at most. Requests
+     * waiting for an identical transform in flight wait for the queue timeout plus this time
+     */
+    public long getTransformTimeout();
+
+    /**
+     * An admitted transform
+     */
+    public interface Permit {
+
+        /**
+         * Gives the transform slot and pixel budget back. Releasing twice has no effect.
+         */
+        public void release();
+    }
+
+}
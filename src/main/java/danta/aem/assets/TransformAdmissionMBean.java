@@ -0,0 +1,60 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.assets;
+
+/**
+ * JMX view of the {@link TransformAdmission}, registered as danta.aem:type=TransformAdmission.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface TransformAdmissionMBean {
+
+    /**
+     * @return queueDepth The number of transforms waiting for admission
+     */
+    public int getQueueDepth();
+
+    /**
+     * @return activeTransforms The number of transforms running
+     */
+    public int getActiveTransforms();
+
+    /**
+     * @return availablePixels The decoded pixel budget left
+     */
+    public long getAvailablePixels();
+
+    /**
+     * @return admitted The number of transforms admitted
+     */
+    public long getAdmitted();
+
+    /**
+     * @return rejectedQueueFull The number of transforms rejected because the queue was full
+     */
+    public long getRejectedQueueFull();
+
+    /**
+     * @return rejectedTimeout The number of transforms rejected because their wait timed out
+     */
+    public long getRejectedTimeout();
+
+}
@@ -0,0 +1,513 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.assets.impl;
+
+import danta.aem.assets.RenditionCache;
+import danta.aem.util.PathIndex;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.apache.sling.jcr.api.SlingRepository;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static danta.Constants.ERROR;
+import static danta.aem.Constants.DAM_ROOT;
+
+/**
+ * Rendition cache implementer. Renditions are stored under the cache directory at the (URL encoded) path of their
+ * asset, in a file named after the asset last modified time, the transform and the mime type. Files are written
+ * to a temporary directory and moved in place atomically, so readers never see a partial rendition. The index is
+ * kept in memory in access order, and rebuilt from the directory on activation so the cache survives restarts.
+ * Renditions are also indexed by asset path, so DAM changes only look up the renditions of the changed assets.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component(
+        label = "Danta Rendition Cache",
+        description = "Caches transformed image renditions served by the asset provider servlet on the local filesystem",
+        immediate = true,
+        metatype = true
+)
+@Service(RenditionCache.class)
+@Properties({
+        @Property(
+                label = "Enabled",
+                description = "Serve and store transformed renditions from the local filesystem",
+                name = RenditionCacheImpl.ENABLED_PN,
+                boolValue = RenditionCacheImpl.DEFAULT_ENABLED,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Maximum size",
+                description = "Maximum total size, in bytes, of the cached renditions",
+                name = RenditionCacheImpl.MAX_SIZE_PN,
+                longValue = RenditionCacheImpl.DEFAULT_MAX_SIZE,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Directory",
+                description = "Cache directory. Defaults to the bundle data area",
+                name = RenditionCacheImpl.DIRECTORY_PN,
+                value = "",
+                propertyPrivate = false
+        )
+})
+public class RenditionCacheImpl
+        implements RenditionCache {
+
+    protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    protected static final String ENABLED_PN = "enabled";
+    protected static final boolean DEFAULT_ENABLED = true;
+    protected static final String MAX_SIZE_PN = "maxSize";
+    protected static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    protected static final String DIRECTORY_PN = "directory";
+    private static final String DEFAULT_DIRECTORY = "renditions";
+    private static final String TEMP_DIRECTORY = ".tmp";
+    private static final String ENCODING = "UTF-8";
+    private static final char NAME_SEPARATOR = '.';
+    private static final String CONFIG_SERVICE = "config-service";
+    private static final int EVENT_TYPES = Event.NODE_ADDED | Event.NODE_REMOVED | Event.NODE_MOVED
+            | Event.PROPERTY_CHANGED | Event.PROPERTY_ADDED | Event.PROPERTY_REMOVED;
+
+    @Reference
+    private SlingRepository repository;
+
+    private Session session;
+    private ObservationManager observationManager;
+    private boolean enabled = DEFAULT_ENABLED;
+    private long maxSize = DEFAULT_MAX_SIZE;
+    private volatile Path directory;
+    private Path tempDirectory;
+
+    // Guarded by this. Access ordered, so the eldest entry is the least recently used rendition
+    private final LinkedHashMap<Path, CachedRendition> renditions = new LinkedHashMap<>(16, 0.75f, true);
+    // Guarded by this as well, kept in step with renditions
+    private final PathIndex<Path> assetIndex = new PathIndex<>();
+    private long size;
+
+    private final EventListener damListener = new EventListener() {
+        @Override
+        public void onEvent(EventIterator eventIterator) {
+            invalidate(eventIterator);
+        }
+    };
+
+    @Override
+    public boolean isEnabled() {
+        return enabled && directory != null;
+    }
+
+    @Override
+    public File get(String assetPath, long lastModified, String transformName, String mimeType) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Path path = renditionPath(assetPath, lastModified, transformName, mimeType);
+        synchronized (this) {
+            return (path != null && renditions.get(path) != null) ? path.toFile() : null;
+        }
+    }
+
+    @Override
+    public File put(String assetPath, long lastModified, String transformName, String mimeType,
+                    RenditionWriter writer)
+            throws IOException {
+        Path path = renditionPath(assetPath, lastModified, transformName, mimeType);
+        if (!isEnabled() || path == null) {
+            return null;
+        }
+        Path tempFile = Files.createTempFile(tempDirectory, null, null);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                writer.write(out);
+            }
+            long renditionSize = Files.size(tempFile);
+            publish(tempFile, path);
+            List<Path> evicted;
+            synchronized (this) {
+                CachedRendition previous = renditions.put(path, new CachedRendition(assetPath, renditionSize));
+                if (previous != null) {
+                    size -= previous.size;
+                }
+                assetIndex.add(path, Collections.singleton(assetPath));
+                size += renditionSize;
+                evicted = evict(path);
+            }
+            delete(evicted);
+            return path.toFile();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public void remove(String assetPath, long lastModified, String transformName, String mimeType) {
+        Path path = renditionPath(assetPath, lastModified, transformName, mimeType);
+        if (path == null) {
+            return;
+        }
+        synchronized (this) {
+            // Checked under the lock: a rendition published again in the meantime is indexed after its move
+            if (!Files.exists(path)) {
+                if (unindex(path) != null) {
+                    LOG.debug("Rendition {} removed from the index, its file is missing", path);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(String path) {
+        invalidate(Collections.singleton(path));
+    }
+
+    /**
+     * Drops every rendition of the assets at, under or above any of the given paths.
+     *
+     * @param paths The changed paths
+     */
+    private void invalidate(Collection<String> paths) {
+        List<Path> invalidated = new ArrayList<>();
+        synchronized (this) {
+            for (Path path : assetIndex.affectedBy(paths)) {
+                if (unindex(path) != null) {
+                    invalidated.add(path);
+                }
+            }
+        }
+        delete(invalidated);
+    }
+
+    @Override
+    public void invalidateAll() {
+        List<Path> invalidated;
+        synchronized (this) {
+            invalidated = new ArrayList<>(renditions.keySet());
+            renditions.clear();
+            assetIndex.clear();
+            size = 0;
+        }
+        delete(invalidated);
+    }
+
+    /**
+     * Moves a fully written rendition in place, creating its asset directory. The directory may be removed by a
+     * concurrent invalidation between both steps, in which case the move is retried once.
+     */
+    private void publish(Path tempFile, Path path)
+            throws IOException {
+        Files.createDirectories(path.getParent());
+        try {
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException ew) {
+            Files.createDirectories(path.getParent());
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Drops the least recently used renditions, other than the one just published, until the cache fits its
+     * maximum size. Must be called holding the lock.
+     *
+     * @return evicted The paths of the evicted renditions
+     */
+    private List<Path> evict(Path published) {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Path, CachedRendition>> iterator = renditions.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<Path, CachedRendition> entry = iterator.next();
+            if (!entry.getKey().equals(published)) {
+                evicted.add(entry.getKey());
+                size -= entry.getValue().size;
+                assetIndex.remove(entry.getKey(), Collections.singleton(entry.getValue().assetPath));
+                iterator.remove();
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Removes a rendition from both indexes. Must be called holding the lock.
+     *
+     * @return removed The removed rendition, null if it wasn't indexed
+     */
+    private CachedRendition unindex(Path path) {
+        CachedRendition removed = renditions.remove(path);
+        if (removed != null) {
+            size -= removed.size;
+            assetIndex.remove(path, Collections.singleton(removed.assetPath));
+        }
+        return removed;
+    }
+
+    /**
+     * Deletes rendition files, along with the asset directories left empty.
+     */
+    private void delete(List<Path> paths) {
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+                Path parent = path.getParent();
+                while (parent != null && !parent.equals(directory)) {
+                    Files.deleteIfExists(parent);
+                    parent = parent.getParent();
+                }
+            } catch (DirectoryNotEmptyException ew) {
+                // Still holds renditions
+            } catch (IOException ew) {
+                LOG.error(ERROR, ew);
+            }
+        }
+    }
+
+    /**
+     * Returns the file of a rendition, or null if the asset path can't be mapped to the cache directory.
+     */
+    private Path renditionPath(String assetPath, long lastModified, String transformName, String mimeType) {
+        if (directory == null || StringUtils.isBlank(assetPath)) {
+            return null;
+        }
+        try {
+            Path path = directory;
+            for (String segment : StringUtils.split(assetPath, '/')) {
+                path = path.resolve(URLEncoder.encode(segment, ENCODING));
+            }
+            return path.resolve(Long.toString(lastModified) + NAME_SEPARATOR
+                    + URLEncoder.encode(transformName, ENCODING) + NAME_SEPARATOR
+                    + URLEncoder.encode(mimeType, ENCODING));
+        } catch (UnsupportedEncodingException ew) {
+            LOG.error(ERROR, ew);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the asset path of a rendition file.
+     */
+    private String assetPath(Path path)
+            throws UnsupportedEncodingException {
+        StringBuilder assetPath = new StringBuilder();
+        for (Path segment : directory.relativize(path.getParent())) {
+            assetPath.append('/').append(URLDecoder.decode(segment.toString(), ENCODING));
+        }
+        return assetPath.toString();
+    }
+
+    /**
+     * Invalidates the renditions of the paths changed by a batch of events, each distinct path once.
+     */
+    private void invalidate(EventIterator eventIterator) {
+        Set<String> paths = new LinkedHashSet<>();
+        try {
+            while (eventIterator.hasNext()) {
+                Event event = eventIterator.nextEvent();
+                String path = event.getPath();
+                switch (event.getType()) {
+                    case Event.PROPERTY_REMOVED:
+                    case Event.PROPERTY_CHANGED:
+                    case Event.PROPERTY_ADDED:
+                        path = path.substring(0, path.lastIndexOf('/'));
+                        break;
+                    case Event.NODE_MOVED:
+                        Object srcAbsPath = event.getInfo().get("srcAbsPath");
+                        if (srcAbsPath != null) {
+                            paths.add(srcAbsPath.toString());
+                        }
+                        break;
+                    default:
+                }
+                paths.add(path);
+            }
+        } catch (Exception ew) {
+            LOG.error(ERROR, ew);
+        }
+        invalidate(PathIndex.toRoots(paths));
+    }
+
+    /**
+     * Rebuilds the index from the renditions left in the cache directory, least recently modified first, and drops
+     * the temporary files of interrupted writes.
+     */
+    private void load()
+            throws IOException {
+        final List<Path> files = new ArrayList<>();
+        final Map<Path, Long> modified = new LinkedHashMap<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                return dir.equals(tempDirectory) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && !file.getParent().equals(directory)) {
+                    files.add(file);
+                    modified.put(file, attributes.lastModifiedTime().toMillis());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files, new Comparator<Path>() {
+            @Override
+            public int compare(Path file1, Path file2) {
+                return Long.compare(modified.get(file1), modified.get(file2));
+            }
+        });
+        List<Path> evicted;
+        synchronized (this) {
+            for (Path file : files) {
+                long fileSize = Files.size(file);
+                String assetPath = assetPath(file);
+                renditions.put(file, new CachedRendition(assetPath, fileSize));
+                assetIndex.add(file, Collections.singleton(assetPath));
+                size += fileSize;
+            }
+            evicted = evict(null);
+        }
+        delete(evicted);
+
+        try (DirectoryStream<Path> tempFiles = Files.newDirectoryStream(tempDirectory)) {
+            for (Path tempFile : tempFiles) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+        LOG.info("Loaded {} cached renditions ({} bytes) from {}", renditions.size(), size, directory);
+    }
+
+    /**
+     * Starts serving the renditions of the cache directory, creating it if needed. The renditions already in the
+     * directory are evicted down to the maximum size.
+     *
+     * @param cacheDirectory The cache directory
+     * @param maxSize The maximum total size, in bytes, of the cached renditions
+     * @throws IOException
+     */
+    void open(File cacheDirectory, long maxSize)
+            throws IOException {
+        this.maxSize = maxSize;
+        directory = cacheDirectory.toPath().toAbsolutePath();
+        tempDirectory = directory.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempDirectory);
+        load();
+    }
+
+    /**
+     * Component activator
+     *
+     * @param componentContext The component context
+     * @throws Exception
+     */
+    @Activate
+    protected void activate(ComponentContext componentContext)
+            throws Exception {
+        enabled = PropertiesUtil.toBoolean(componentContext.getProperties().get(ENABLED_PN), DEFAULT_ENABLED);
+        long cacheMaxSize = PropertiesUtil.toLong(componentContext.getProperties().get(MAX_SIZE_PN), DEFAULT_MAX_SIZE);
+        String directoryName = PropertiesUtil.toString(componentContext.getProperties().get(DIRECTORY_PN), null);
+        File cacheDirectory = StringUtils.isNotBlank(directoryName)
+                ? new File(directoryName)
+                : componentContext.getBundleContext().getDataFile(DEFAULT_DIRECTORY);
+        if (!enabled || cacheDirectory == null) {
+            return;
+        }
+        open(cacheDirectory, cacheMaxSize);
+
+        session = repository.loginService(CONFIG_SERVICE, null);
+        observationManager = session.getWorkspace().getObservationManager();
+        observationManager.addEventListener(damListener, EVENT_TYPES, DAM_ROOT,
+                true /* isDeep */, null /* uuid */, null /* nodeTypeName */, true /* noLocal */);
+    }
+
+    /**
+     * Component deactivator. Cached renditions are kept on disk for the next activation.
+     *
+     * @param context The component context
+     * @throws Exception
+     */
+    @Deactivate
+    protected void deactivate(final ComponentContext context)
+            throws Exception {
+        if (session != null) {
+            try {
+                observationManager.removeEventListener(damListener);
+            } catch (RepositoryException ew) {
+                LOG.error(ERROR, ew);
+            }
+            session.logout();
+            session = null;
+        }
+        synchronized (this) {
+            renditions.clear();
+            assetIndex.clear();
+            size = 0;
+        }
+        directory = null;
+    }
+
+    /**
+     * Inner class: the asset and size of a cached rendition
+     */
+    private static class CachedRendition {
+
+        private final String assetPath;
+        private final long size;
+
+        private CachedRendition(String assetPath, long size) {
+            this.assetPath = assetPath;
+            this.size = size;
+        }
+    }
+}
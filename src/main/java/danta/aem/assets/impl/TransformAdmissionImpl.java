@@ -0,0 +1,252 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.assets.impl;
+
+import danta.aem.assets.TransformAdmission;
+import danta.aem.assets.TransformAdmissionMBean;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.service.component.ComponentContext;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transform admission implementer. Transform slots and the decoded pixel budget (counted in blocks of 1024
+ * pixels) are fair semaphores, so a large image waiting for its budget isn't starved by smaller ones. A request
+ * that can't be admitted right away joins the queue, unless the queue is full. Metrics are exposed through JMX by
+ * the whiteboard (jmx.objectname service property).
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component(
+        label = "Danta Image Transform Admission",
+        description = "Bounds the image transforms of the asset provider servlet running at the same time",
+        immediate = true,
+        metatype = true
+)
+@Service({ TransformAdmission.class, TransformAdmissionMBean.class })
+@Properties({
+        @Property(
+                label = "Concurrent transforms",
+                description = "Maximum number of images decoded and transformed at the same time",
+                name = TransformAdmissionImpl.MAX_CONCURRENT_PN,
+                intValue = TransformAdmissionImpl.DEFAULT_MAX_CONCURRENT,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Decoded pixels",
+                description = "Maximum number of decoded pixels held by the running transforms (4 bytes each)",
+                name = TransformAdmissionImpl.MAX_PIXELS_PN,
+                longValue = TransformAdmissionImpl.DEFAULT_MAX_PIXELS,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Queue size",
+                description = "Maximum number of transforms waiting for admission; further ones are rejected",
+                name = TransformAdmissionImpl.QUEUE_SIZE_PN,
+                intValue = TransformAdmissionImpl.DEFAULT_QUEUE_SIZE,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Queue timeout",
+                description = "Maximum time, in milliseconds, a transform waits for admission",
+                name = TransformAdmissionImpl.QUEUE_TIMEOUT_PN,
+                longValue = TransformAdmissionImpl.DEFAULT_QUEUE_TIMEOUT,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Transform timeout",
+                description = "Time, in milliseconds, an admitted transform is expected to take at most. Requests " +
+                        "waiting for an identical transform in flight wait for the queue timeout plus this time",
+                name = TransformAdmissionImpl.TRANSFORM_TIMEOUT_PN,
+                longValue = TransformAdmissionImpl.DEFAULT_TRANSFORM_TIMEOUT,
+                propertyPrivate = false
+        ),
+        @Property(
+                name = "jmx.objectname",
+                value = TransformAdmissionImpl.OBJECT_NAME,
+                propertyPrivate = true
+        )
+})
+public class TransformAdmissionImpl
+        extends StandardMBean
+        implements TransformAdmission, TransformAdmissionMBean {
+
+    protected static final String MAX_CONCURRENT_PN = "maxConcurrent";
+    protected static final int DEFAULT_MAX_CONCURRENT = 4;
+    protected static final String MAX_PIXELS_PN = "maxPixels";
+    protected static final long DEFAULT_MAX_PIXELS = 64L * 1024 * 1024;
+    protected static final String QUEUE_SIZE_PN = "queueSize";
+    protected static final int DEFAULT_QUEUE_SIZE = 32;
+    protected static final String QUEUE_TIMEOUT_PN = "queueTimeout";
+    protected static final long DEFAULT_QUEUE_TIMEOUT = 5000;
+    protected static final String TRANSFORM_TIMEOUT_PN = "transformTimeout";
+    protected static final long DEFAULT_TRANSFORM_TIMEOUT = 30000;
+    protected static final String OBJECT_NAME = "danta.aem:type=TransformAdmission";
+    private static final int PIXELS_PER_PERMIT = 1024;
+
+    private volatile Semaphore transforms = new Semaphore(DEFAULT_MAX_CONCURRENT, true);
+    private volatile Semaphore pixelBudget = new Semaphore(toPermits(DEFAULT_MAX_PIXELS), true);
+    private int maxPixelPermits = toPermits(DEFAULT_MAX_PIXELS);
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private long queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+    private long transformTimeout = DEFAULT_TRANSFORM_TIMEOUT;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+
+    public TransformAdmissionImpl()
+            throws NotCompliantMBeanException {
+        super(TransformAdmissionMBean.class);
+    }
+
+    @Override
+    public Permit admit(long pixels)
+            throws InterruptedException {
+        final Semaphore transforms = this.transforms;
+        final Semaphore pixelBudget = this.pixelBudget;
+        // An image larger than the whole budget still runs, alone
+        final int pixelPermits = (int) Math.min(maxPixelPermits, Math.max(1, toPermits(pixels)));
+
+        boolean admittedNow = false;
+        // Timed with no wait rather than untimed, which would barge ahead of the queued transforms
+        if (transforms.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            admittedNow = pixelBudget.tryAcquire(pixelPermits, 0, TimeUnit.NANOSECONDS);
+            if (!admittedNow) {
+                transforms.release();
+            }
+        }
+        if (!admittedNow) {
+            if (queued.incrementAndGet() > queueSize) {
+                queued.decrementAndGet();
+                rejectedQueueFull.increment();
+                throw new RejectedExecutionException("Image transform queue is full");
+            }
+            boolean slot = false;
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+                slot = transforms.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                admittedNow = slot && pixelBudget.tryAcquire(pixelPermits, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } finally {
+                queued.decrementAndGet();
+                if (slot && !admittedNow) {
+                    transforms.release();
+                }
+            }
+            if (!admittedNow) {
+                rejectedTimeout.increment();
+                throw new RejectedExecutionException("Timed out waiting for an image transform slot");
+            }
+        }
+
+        active.incrementAndGet();
+        admitted.increment();
+        return new Permit() {
+            private boolean released;
+
+            @Override
+            public synchronized void release() {
+                if (!released) {
+                    released = true;
+                    active.decrementAndGet();
+                    pixelBudget.release(pixelPermits);
+                    transforms.release();
+                }
+            }
+        };
+    }
+
+    @Override
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    @Override
+    public long getTransformTimeout() {
+        return transformTimeout;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    @Override
+    public int getActiveTransforms() {
+        return active.get();
+    }
+
+    @Override
+    public long getAvailablePixels() {
+        return (long) pixelBudget.availablePermits() * PIXELS_PER_PERMIT;
+    }
+
+    @Override
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    @Override
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.sum();
+    }
+
+    @Override
+    public long getRejectedTimeout() {
+        return rejectedTimeout.sum();
+    }
+
+    private static int toPermits(long pixels) {
+        return (int) Math.min(Integer.MAX_VALUE, (pixels + PIXELS_PER_PERMIT - 1) / PIXELS_PER_PERMIT);
+    }
+
+    /**
+     * Component activator
+     *
+     * @param componentContext The component context
+     * @throws Exception
+     */
+    @Activate
+    protected void activate(ComponentContext componentContext)
+            throws Exception {
+        int maxConcurrent = Math.max(1, PropertiesUtil.toInteger(componentContext.getProperties().get(MAX_CONCURRENT_PN),
+                DEFAULT_MAX_CONCURRENT));
+        maxPixelPermits = Math.max(1, toPermits(PropertiesUtil.toLong(componentContext.getProperties().get(MAX_PIXELS_PN),
+                DEFAULT_MAX_PIXELS)));
+        queueSize = Math.max(0, PropertiesUtil.toInteger(componentContext.getProperties().get(QUEUE_SIZE_PN),
+                DEFAULT_QUEUE_SIZE));
+        queueTimeout = Math.max(0, PropertiesUtil.toLong(componentContext.getProperties().get(QUEUE_TIMEOUT_PN),
+                DEFAULT_QUEUE_TIMEOUT));
+        transformTimeout = Math.max(0, PropertiesUtil.toLong(componentContext.getProperties().get(TRANSFORM_TIMEOUT_PN),
+                DEFAULT_TRANSFORM_TIMEOUT));
+        transforms = new Semaphore(maxConcurrent, true);
+        pixelBudget = new Semaphore(maxPixelPermits, true);
+    }
+}
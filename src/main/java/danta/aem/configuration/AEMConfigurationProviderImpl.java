@@ -19,8 +19,10 @@
 package danta.aem.configuration;
 
 import com.day.cq.wcm.api.components.ComponentManager;
-import com.google.common.collect.Lists;
-import danta.aem.util.PropertyUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import danta.aem.services.ResourceTypeHierarchyService;
+import danta.aem.services.ServiceResourceResolverProvider;
 import danta.aem.util.ResourceUtils;
 import danta.api.configuration.Configuration;
 import danta.api.configuration.ConfigurationProvider;
@@ -29,10 +31,12 @@ import danta.core.util.OSGiUtils;
 import net.minidev.json.JSONObject;
 import net.minidev.json.JSONStyle;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.felix.scr.annotations.*;
+import org.apache.jackrabbit.util.ISO8601;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
-import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.jcr.api.SlingRepository;
 //import org.apache.sling.jcr.resource.JcrResourceUtil;
 import org.osgi.service.component.ComponentContext;
@@ -45,10 +49,33 @@ import javax.jcr.observation.Event;
 import javax.jcr.observation.EventIterator;
 import javax.jcr.observation.EventListener;
 import javax.jcr.observation.ObservationManager;
+import javax.jcr.query.Query;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static danta.Constants.*;
 import static danta.aem.Constants.APPS_ROOT;
+import static danta.aem.Constants.SLING_RESOURCE_SUPER_TYPE;
+import static danta.aem.Constants.XK_CONFIG_NODES_QUERY;
+import static danta.aem.configuration.ConfigurationSnapshot.readComponentPaths;
+import static danta.aem.configuration.ConfigurationSnapshot.readString;
+import static danta.aem.configuration.ConfigurationSnapshot.writeComponentPaths;
+import static danta.aem.configuration.ConfigurationSnapshot.writeString;
+import static danta.core.Constants.XK_COMPONENT_CATEGORY;
 
 /**
  * Configuration (xk config) provider implementation for AEM
@@ -57,27 +84,78 @@ import static danta.aem.Constants.APPS_ROOT;
  * @version     1.0.0
  * @since       2014-03-17
  */
-@Component(immediate = true)
-@Service({EventListener.class, ConfigurationProvider.class})
+@Component(
+        label = "Danta Configuration Provider",
+        description = "Provides the xk.config configuration of Danta components",
+        immediate = true,
+        metatype = true
+)
+@Service({EventListener.class, ConfigurationProvider.class, DantaComponentRegistry.class})
+@org.apache.felix.scr.annotations.Properties({
+        @org.apache.felix.scr.annotations.Property(
+                label = "Invalidation window",
+                description = "Time in milliseconds during which /apps changes are collected before the configuration " +
+                        "cache is invalidated in one batch. 0 invalidates on every event",
+                name = AEMConfigurationProviderImpl.INVALIDATION_DELAY_PN,
+                longValue = AEMConfigurationProviderImpl.DEFAULT_INVALIDATION_DELAY,
+                propertyPrivate = false
+        ),
+        @org.apache.felix.scr.annotations.Property(
+                label = "Snapshot",
+                description = "Persist the resolved configurations to a snapshot file in the bundle data area " +
+                        "periodically and when the component stops, and serve them from it on the next start while " +
+                        "they are revalidated",
+                name = AEMConfigurationProviderImpl.SNAPSHOT_ENABLED_PN,
+                boolValue = AEMConfigurationProviderImpl.DEFAULT_SNAPSHOT_ENABLED,
+                propertyPrivate = false
+        ),
+        @org.apache.felix.scr.annotations.Property(
+                label = "Snapshot interval",
+                description = "Time in seconds between writes of the snapshot, when configurations were loaded from " +
+                        "the repository since the last one (e.g. by the warm up). 0 only writes it when the component stops",
+                name = AEMConfigurationProviderImpl.SNAPSHOT_INTERVAL_PN,
+                longValue = AEMConfigurationProviderImpl.DEFAULT_SNAPSHOT_INTERVAL,
+                propertyPrivate = false
+        )
+})
 public class AEMConfigurationProviderImpl
-        implements ConfigurationProvider<String>, EventListener {
+        implements ConfigurationProvider<String>, DantaComponentRegistry, EventListener {
 
     protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     private static final Mode DEFAULT_MODE = Mode.INHERIT; // TODO: Make configurable
     private static final String CONFIG_SERVICE = "config-service";
-    private static final Map<String, Object> RESOURCE_RESOLVER_PARAMS =
-            Collections.unmodifiableMap(Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, CONFIG_SERVICE));
+    protected static final String INVALIDATION_DELAY_PN = "invalidation.delay";
+    protected static final long DEFAULT_INVALIDATION_DELAY = 500;
+    protected static final String SNAPSHOT_ENABLED_PN = "snapshot.enabled";
+    protected static final boolean DEFAULT_SNAPSHOT_ENABLED = false;
+    protected static final String SNAPSHOT_INTERVAL_PN = "snapshot.interval";
+    protected static final long DEFAULT_SNAPSHOT_INTERVAL = 300;
+    // Snapshots alternate between both files, so a write never replaces the file being served (memory mapped)
+    private static final String[] SNAPSHOT_FILE_NAMES = {"configuration-snapshot-a.bin", "configuration-snapshot-b.bin"};
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
-    private ResourceResolverFactory resourceResolverFactory;
+    private ServiceResourceResolverProvider serviceResourceResolverProvider;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private ResourceTypeHierarchyService resourceTypeHierarchyService;
 
     @Reference
     private SlingRepository repository;
 
     private Session session;
     private ObservationManager observationManager;
-    private final Map<String, Map<String, Map<String, InertProperty>>> configCache = new HashMap<>();
+    private final Cache<String, ConfigurationImpl> configCache = CacheBuilder.newBuilder().build();
+    private long invalidationDelay = DEFAULT_INVALIDATION_DELAY;
+    private ScheduledExecutorService invalidationExecutor;
+    private final Object pendingChangesLock = new Object();
+    private ConfigurationChanges pendingChanges = new ConfigurationChanges();
+    private boolean flushScheduled;
+    private volatile File[] snapshotFiles;
+    private File mappedSnapshotFile;
+    private volatile ConfigurationSnapshot snapshot;
+    private final AtomicBoolean snapshotChanged = new AtomicBoolean();
+    private final Object snapshotWriteLock = new Object();
 
     /**
      * Check if the given resource type has configuration
@@ -89,21 +167,19 @@ public class AEMConfigurationProviderImpl
     @Override
     public boolean hasConfig(String resourceType)
             throws Exception {
-        boolean hasConfigNode = false;
-        ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(RESOURCE_RESOLVER_PARAMS);
-
-        ComponentManager componentManager = resourceResolver.adaptTo(ComponentManager.class);
-        com.day.cq.wcm.api.components.Component component = componentManager.getComponent(resourceType);
+        return getConfiguration(resourceType).hasConfig;
+    }
 
-        if (component != null) {
-            Resource configResource = component.getLocalResource(XK_CONFIG_RESOURCE_NAME);
-            if (configResource != null) {
-                hasConfigNode = true;
-            }
-        }
-        resourceResolver.close();
+    @Override
+    public boolean isDantaComponent(String resourceType)
+            throws Exception {
+        return hasConfig(resourceType);
+    }
 
-        return hasConfigNode;
+    @Override
+    public boolean isPageComponent(String resourceType)
+            throws Exception {
+        return getConfiguration(resourceType).pageComponent;
     }
 
     /**
@@ -116,54 +192,67 @@ public class AEMConfigurationProviderImpl
     @Override
     public Configuration getFor(String resourceType)
             throws Exception {
-        return new ConfigurationImpl(resourceType);
+        return getConfiguration(resourceType);
     }
 
     /**
-     * Trigger on event
+     * Trigger on event. The changes that can affect a configuration (see {@link ConfigurationChanges}) are collected
+     * and applied in one batch at the end of the invalidation window.
      *
      * @param eventIterator The event iterator object
      */
     @Override
     public void onEvent(EventIterator eventIterator) {
-        ResourceResolver resourceResolver = null;
         try {
-            Map<String, Object> authenticationInfo = new HashMap<String, Object>();
-            authenticationInfo.put(ResourceResolverFactory.SUBSERVICE, CONFIG_SERVICE);
-            resourceResolver = resourceResolverFactory.getServiceResourceResolver(authenticationInfo);
-
-            ComponentManager componentManager = resourceResolver.adaptTo(ComponentManager.class);
-            if (resourceResolver != null) {
+            boolean scheduleFlush;
+            synchronized (pendingChangesLock) {
                 while (eventIterator.hasNext()) {
-                    Event event = eventIterator.nextEvent();
-                    String path = event.getPath();
-                    switch (event.getType()) {
-                        case Event.PROPERTY_REMOVED:
-                        case Event.NODE_REMOVED:
-                        case Event.PROPERTY_CHANGED:
-                        case Event.PROPERTY_ADDED:
-                            path = path.substring(0, path.lastIndexOf('/'));
-                            break;
-                        case Event.NODE_MOVED:
-                            path = event.getInfo().get("srcChildRelPath").toString();
-                            break;
-                        case Event.NODE_ADDED:
-                        default:
-                    }
-                    Resource resource = resourceResolver.getResource(path);
-                    if (resource != null) {
-                        com.day.cq.wcm.api.components.Component component = ResourceUtils.findContainingComponent(resource);
-                        if (component != null) {
-                            configCache.clear();
+                    pendingChanges.collect(eventIterator.nextEvent(), session);
+                }
+                scheduleFlush = !flushScheduled && !pendingChanges.isEmpty();
+                flushScheduled = flushScheduled || scheduleFlush;
+            }
+            if (scheduleFlush) {
+                if (invalidationDelay > 0 && invalidationExecutor != null) {
+                    invalidationExecutor.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            flush();
                         }
-                    }
+                    }, invalidationDelay, TimeUnit.MILLISECONDS);
+                } else {
+                    flush();
                 }
             }
         } catch (Exception ew) {
             LOG.error(ERROR, ew);
-        } finally {
-            if (resourceResolver != null)
-                resourceResolver.close();
+        }
+    }
+
+    /**
+     * Applies the changes collected during the invalidation window in one pass over the cache.
+     */
+    private void flush() {
+        ConfigurationChanges changes;
+        synchronized (pendingChangesLock) {
+            changes = pendingChanges;
+            pendingChanges = new ConfigurationChanges();
+            flushScheduled = false;
+        }
+        try {
+            List<String> hierarchyRoots = changes.getHierarchyRoots();
+            if (!hierarchyRoots.isEmpty()) {
+                resourceTypeHierarchyService.invalidate(hierarchyRoots);
+            }
+            List<String> roots = changes.getRoots();
+            ConfigurationSnapshot currentSnapshot = snapshot;
+            if (currentSnapshot != null && !roots.isEmpty()) {
+                excludeFromSnapshot(currentSnapshot, roots, changes.isStructuralChange());
+            }
+            invalidate(roots, changes.isStructuralChange());
+            LOG.debug("Configuration cache invalidated for {} changed roots", roots.size());
+        } catch (Exception ew) {
+            LOG.error(ERROR, ew);
         }
     }
 
@@ -176,12 +265,41 @@ public class AEMConfigurationProviderImpl
     @Activate
     protected void activate(ComponentContext componentContext)
             throws Exception {
+        invalidationDelay = Math.max(0, PropertiesUtil.toLong(
+                componentContext.getProperties().get(INVALIDATION_DELAY_PN), DEFAULT_INVALIDATION_DELAY));
+        invalidationExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "danta-config-invalidation");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        if (PropertiesUtil.toBoolean(componentContext.getProperties().get(SNAPSHOT_ENABLED_PN), DEFAULT_SNAPSHOT_ENABLED)) {
+            snapshotFiles = new File[SNAPSHOT_FILE_NAMES.length];
+            for (int i = 0; i < SNAPSHOT_FILE_NAMES.length; i++) {
+                snapshotFiles[i] = componentContext.getBundleContext().getDataFile(SNAPSHOT_FILE_NAMES[i]);
+            }
+            openSnapshot();
+            long snapshotInterval = PropertiesUtil.toLong(
+                    componentContext.getProperties().get(SNAPSHOT_INTERVAL_PN), DEFAULT_SNAPSHOT_INTERVAL);
+            if (snapshotInterval > 0) {
+                invalidationExecutor.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (snapshotChanged.getAndSet(false)) {
+                            writeSnapshot();
+                        }
+                    }
+                }, snapshotInterval, snapshotInterval, TimeUnit.SECONDS);
+            }
+        }
         session = repository.loginService(CONFIG_SERVICE, null);
         observationManager = session.getWorkspace().getObservationManager();
         // set up observation listener
         observationManager.addEventListener(
                 this,
-                Event.NODE_ADDED | Event.NODE_REMOVED | Event.PROPERTY_CHANGED | Event.PROPERTY_ADDED | Event.PROPERTY_REMOVED,
+                Event.NODE_ADDED | Event.NODE_REMOVED | Event.NODE_MOVED | Event.PROPERTY_CHANGED | Event.PROPERTY_ADDED | Event.PROPERTY_REMOVED,
                 APPS_ROOT,
                 true /* isDeep */,
                 null /* uuid */,
@@ -206,173 +324,452 @@ public class AEMConfigurationProviderImpl
             } catch (RepositoryException ew) {
                 LOG.error(ERROR, ew);
             }
+            if (snapshotFiles != null) {
+                flush();
+                writeSnapshot();
+                snapshotFiles = null;
+            }
             session.logout();
             session = null;
         }
+        if (invalidationExecutor != null) {
+            invalidationExecutor.shutdownNow();
+            invalidationExecutor = null;
+        }
     }
 
     /**
-     * Inner class: Configuration implementer
+     * Maps the latest snapshot file, if there is one, so configurations are served from it right away, and schedules
+     * its revalidation against the repository.
      */
-    private class ConfigurationImpl
-            implements Configuration {
-
-        private Map<String, Map<String, InertProperty>> configMembers = new LinkedHashMap<>();
-        private Set<String> propNamesDeepCache = Collections.emptySet();
-
-        private ConfigurationImpl(String resourceType)
-                throws Exception {
-            ResourceResolver resourceResolver =
-                    resourceResolverFactory.getServiceResourceResolver(RESOURCE_RESOLVER_PARAMS);
-            ComponentManager componentManager = resourceResolver.adaptTo(ComponentManager.class);
-            loadConfigHierarchy(componentManager, resourceType);
-            resourceResolver.close();
-        }
-
-        private Map<String, InertProperty> getNodePropertiesMap(
-                Node node,
-                Map<String, InertProperty> propsMap,
-                String propertyPrefix) throws Exception {
-            NodeIterator nodeIterator = node.getNodes();
-            while (nodeIterator.hasNext()) {
-                Node childNode = nodeIterator.nextNode();
-                String childNodePropertyPrefix = propertyPrefix + childNode.getName() + DOT;
-                getNodePropertiesMap(childNode, propsMap, childNodePropertyPrefix);
-            }
-
-            //add properties to map
-            PropertyIterator props = node.getProperties();
-            while (props.hasNext()) {
-                InertProperty property = new InertProperty(props.nextProperty());
-                if (!StringUtils.startsWithAny(property.name(), RESERVED_SYSTEM_NAME_PREFIXES)) {
-                    propsMap.put(propertyPrefix + property.name(), property);
+    private void openSnapshot() {
+        File snapshotFile = null;
+        for (File file : snapshotFiles) {
+            if (file.isFile() && (snapshotFile == null || file.lastModified() > snapshotFile.lastModified())) {
+                snapshotFile = file;
+            }
+        }
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            // The mapping outlives the snapshot (it is only released once garbage collected), so the file is never
+            // written again by this component
+            mappedSnapshotFile = snapshotFile;
+            snapshot = new ConfigurationSnapshot(snapshotFile);
+            LOG.info("Serving {} configurations from snapshot {}", snapshot.size(), snapshotFile);
+            invalidationExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    revalidateSnapshot();
                 }
+            });
+        } catch (Exception ew) {
+            LOG.error(ERROR, ew);
+        }
+    }
+
+    /**
+     * Compares the snapshot fingerprint with the current one. A stale snapshot is discarded, and its configurations
+     * are loaded from the repository again.
+     */
+    private void revalidateSnapshot() {
+        ConfigurationSnapshot currentSnapshot = snapshot;
+        if (currentSnapshot == null) {
+            return;
+        }
+        try {
+            if (MessageDigest.isEqual(currentSnapshot.getFingerprint(), fingerprint())) {
+                LOG.info("Configuration snapshot is up to date");
+            } else {
+                discardSnapshot(currentSnapshot);
+                LOG.info("Configuration snapshot is out of date, configurations are loaded from the repository");
             }
-            return propsMap;
+        } catch (Exception ew) {
+            discardSnapshot(currentSnapshot);
+            LOG.error(ERROR, ew);
         }
+    }
 
-        private void loadConfigHierarchy(final ComponentManager componentManager, final String resourceType)
-                throws Exception {
-            com.day.cq.wcm.api.components.Component component = componentManager.getComponent(resourceType);
-            if (component != null) {
-                if (!configCache.containsKey(component.getResourceType())) {
-                    while (component != null) {
-                        Resource configResource = component.getLocalResource(XK_CONFIG_RESOURCE_NAME);
-                        if (configResource == null)
-                            break;
-                        Resource foundComponentResource = configResource.getParent();
-                        if (!foundComponentResource.getPath().equals(component.getPath())) {
-                            component = componentManager.getComponent(foundComponentResource.getPath());
-                        }
-                        Node node = configResource.adaptTo(Node.class);
+    /**
+     * Stops serving a snapshot and drops the configurations already read from it
+     */
+    private void discardSnapshot(ConfigurationSnapshot staleSnapshot) {
+        retireSnapshot(staleSnapshot);
+        configCache.invalidateAll(staleSnapshot.resourceTypes());
+    }
+
+    /**
+     * Stops serving the configurations of a snapshot affected by a change, the same way the configuration cache is
+     * invalidated. Reads from it still in flight see the new generation and aren't cached.
+     */
+    private void excludeFromSnapshot(ConfigurationSnapshot currentSnapshot, Collection<String> roots,
+                                     boolean structuralChange) {
+        int excluded = currentSnapshot.exclude(roots, structuralChange);
+        if (excluded > 0) {
+            snapshotChanged.set(true);
+            LOG.debug("{} configurations of the snapshot dropped after a change under {}", excluded, APPS_ROOT);
+        }
+    }
 
-                        Map<String, InertProperty> propsMap = getNodePropertiesMap(node, new HashMap<String, InertProperty>(), BLANK);
-                        configMembers.put(component.getResourceType(), propsMap);
+    /**
+     * Stops serving a snapshot. Reads from it still in flight see the new generation and aren't cached.
+     */
+    private void retireSnapshot(ConfigurationSnapshot staleSnapshot) {
+        staleSnapshot.retire();
+        if (snapshot == staleSnapshot) {
+            snapshot = null;
+        }
+        snapshotChanged.set(true);
+    }
 
-                        component = component.getSuperComponent();
+    /**
+     * Writes the cached configurations to the snapshot file, keyed by the current fingerprint. A snapshot still being
+     * served is checked first: when it is up to date its remaining configurations are carried over, otherwise they
+     * are dropped, so stale configurations are never written back. The snapshot is written to a file other than the
+     * mapped one.
+     */
+    private void writeSnapshot() {
+        synchronized (snapshotWriteLock) {
+            File[] files = snapshotFiles;
+            if (files != null) {
+                writeSnapshot(files[files[0].equals(mappedSnapshotFile) ? 1 : 0]);
+            }
+        }
+    }
+
+    private void writeSnapshot(File snapshotFile) {
+        try {
+            byte[] fingerprint = fingerprint();
+            ConfigurationSnapshot currentSnapshot = snapshot;
+            if (currentSnapshot != null) {
+                if (MessageDigest.isEqual(currentSnapshot.getFingerprint(), fingerprint)) {
+                    for (String resourceType : currentSnapshot.resourceTypes()) {
+                        getConfiguration(resourceType);
                     }
-                    configCache.put(component.getResourceType(), configMembers);
                 } else {
-                    configMembers = configCache.get(component.getResourceType());
+                    discardSnapshot(currentSnapshot);
                 }
             }
-            propNamesDeepCache = names(false);
+            Map<String, byte[]> entries = new TreeMap<>();
+            for (Map.Entry<String, ConfigurationImpl> entry : configCache.asMap().entrySet()) {
+                entries.put(entry.getKey(), entry.getValue().toBytes());
+            }
+            ConfigurationSnapshot.write(snapshotFile, fingerprint, entries);
+            LOG.info("Wrote {} configurations to snapshot {}", entries.size(), snapshotFile);
+        } catch (Exception ew) {
+            LOG.error(ERROR, ew);
         }
+    }
 
-        private Set<String> names(boolean shallow) {
-            Set<String> names = new HashSet<>();
-            for (String configMemberPath : configMembers.keySet()) {
-                for (String propName : configMembers.get(configMemberPath).keySet()) {
-                    names.add(propName);
+    /**
+     * @return A digest of every xk.config node under /apps (path and properties) along with the super type of the
+     * component owning it
+     * @throws Exception
+     */
+    private byte[] fingerprint()
+            throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ResourceResolver resourceResolver = serviceResourceResolverProvider.acquire();
+        try {
+            Map<String, Node> configNodes = new TreeMap<>();
+            Iterator<Resource> configResources = resourceResolver.findResources(XK_CONFIG_NODES_QUERY, Query.JCR_SQL2);
+            while (configResources.hasNext()) {
+                Resource configResource = configResources.next();
+                Node node = configResource.adaptTo(Node.class);
+                if (node != null) {
+                    configNodes.put(configResource.getPath(), node);
                 }
-                if (shallow)
-                    break;
             }
-            return names;
+            for (Map.Entry<String, Node> entry : configNodes.entrySet()) {
+                update(digest, entry.getKey());
+                Node componentNode = entry.getValue().getParent();
+                if (componentNode.hasProperty(SLING_RESOURCE_SUPER_TYPE)) {
+                    update(digest, componentNode.getProperty(SLING_RESOURCE_SUPER_TYPE).getString());
+                }
+                Map<String, InertProperty> propsMap =
+                        getNodePropertiesMap(entry.getValue(), new TreeMap<String, InertProperty>(), BLANK);
+                for (Map.Entry<String, InertProperty> prop : propsMap.entrySet()) {
+                    update(digest, prop.getKey());
+                    for (InertValue value : prop.getValue().values()) {
+                        update(digest, value.type() + ":" + value.string());
+                    }
+                }
+            }
+        } finally {
+            serviceResourceResolverProvider.release(resourceResolver);
         }
+        return digest.digest();
+    }
 
+    private static void update(MessageDigest digest, String string) {
+        digest.update(string.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
 
-        private Collection<Value> valuesFor(String paramName, Mode mode)
-                throws Exception {
+    /**
+     * Returns the configuration snapshot of a resource type, loading it once when it is not cached. Concurrent
+     * loads of the same resource type wait for a single load; cached snapshots are read without locking. Resource
+     * types without a component or configuration are cached too, so negative lookups don't hit the repository.
+     * While a snapshot file is served, configurations are read from it instead, and only cached if the snapshot
+     * wasn't retired, nor any of its entries excluded, in the meantime.
+     *
+     * @param resourceType The resource type
+     * @return configuration The configuration snapshot
+     * @throws Exception
+     */
+    private ConfigurationImpl getConfiguration(final String resourceType)
+            throws Exception {
+        ConfigurationImpl configuration = configCache.getIfPresent(resourceType);
+        if (configuration != null) {
+            return configuration;
+        }
+        ConfigurationSnapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            // Read before the entry, so an exclusion or a retirement after this point shows up as a new generation
+            long generation = currentSnapshot.getGeneration();
+            ByteBuffer entry = currentSnapshot.read(resourceType);
+            if (entry != null) {
+                configuration = currentSnapshot.putIfCurrent(generation, configCache.asMap(), resourceType,
+                        readConfiguration(entry));
+                if (configuration != null) {
+                    return configuration;
+                }
+            }
+        }
+        try {
+            return configCache.get(resourceType, new Callable<ConfigurationImpl>() {
+                @Override
+                public ConfigurationImpl call()
+                        throws Exception {
+                    return loadConfiguration(resourceType);
+                }
+            });
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : ee;
+        }
+    }
 
-            Collection<Value> values = Collections.emptyList();
+    /**
+     * @param in The snapshot entry of a resource type, as written by {@link ConfigurationImpl#toBytes()}
+     * @return The configuration of the resource type
+     */
+    private ConfigurationImpl readConfiguration(ByteBuffer in) {
+        boolean hasConfig = in.get() != 0;
+        List<String> componentPaths = readComponentPaths(in);
+        Map<String, Map<String, InertProperty>> configMembers = new LinkedHashMap<>();
+        int memberCount = in.getInt();
+        for (int i = 0; i < memberCount; i++) {
+            String memberResourceType = readString(in);
+            Map<String, InertProperty> propsMap = new HashMap<>();
+            int propCount = in.getInt();
+            for (int j = 0; j < propCount; j++) {
+                String key = readString(in);
+                String name = readString(in);
+                int type = in.getInt();
+                String nodePath = readString(in);
+                int valueCount = in.getInt();
+                List<InertValue> values = new ArrayList<>(valueCount);
+                for (int k = 0; k < valueCount; k++) {
+                    int valueType = in.getInt();
+                    values.add(new InertValue(valueType, readString(in)));
+                }
+                propsMap.put(key, new InertProperty(type, name, nodePath, values));
+            }
+            configMembers.put(memberResourceType, propsMap);
+        }
+        return new ConfigurationImpl(configMembers, componentPaths, hasConfig);
+    }
 
-            switch (mode) {
-                case INHERIT:
-                    values = getInherited(paramName);
-                    break;
-                case MERGE:
-                    values = getMerged(paramName);
-                    break;
-                case COMBINE:
-                    values = getCombined(paramName);
-                    break;
-                case SHALLOW:
-                    values = getShallow(paramName);
-                    break;
-                default:
+    private ConfigurationImpl loadConfiguration(final String resourceType)
+            throws Exception {
+        snapshotChanged.set(true);
+        Map<String, Map<String, InertProperty>> configMembers = new LinkedHashMap<>();
+        List<String> componentPaths = new ArrayList<>();
+        ResourceResolver resourceResolver = serviceResourceResolverProvider.acquire();
+        try {
+            ComponentManager componentManager = resourceResolver.adaptTo(ComponentManager.class);
+            com.day.cq.wcm.api.components.Component component = componentManager.getComponent(resourceType);
+            while (component != null) {
+                // Every visited component is a dependency, including the one without configuration ending the chain
+                componentPaths.add(component.getPath());
+                Resource configResource = component.getLocalResource(XK_CONFIG_RESOURCE_NAME);
+                if (configResource == null)
                     break;
+                Resource foundComponentResource = configResource.getParent();
+                if (!foundComponentResource.getPath().equals(component.getPath())) {
+                    component = componentManager.getComponent(foundComponentResource.getPath());
+                }
+                Node node = configResource.adaptTo(Node.class);
+
+                Map<String, InertProperty> propsMap = getNodePropertiesMap(node, new HashMap<String, InertProperty>(), BLANK);
+                configMembers.put(component.getResourceType(), propsMap);
+
+                component = component.getSuperComponent();
             }
-            return values;
+        } finally {
+            serviceResourceResolverProvider.release(resourceResolver);
         }
+        // The chain stops at the first component without configuration, so there are members only if the component has one
+        return new ConfigurationImpl(configMembers, componentPaths, !configMembers.isEmpty());
+    }
 
-        private Collection<Value> getInherited(String paramName)
-                throws Exception {
-            Collection<Value> values = Collections.emptyList();
-            for (String memberComp : configMembers.keySet()) {
-                Map<String, InertProperty> props = configMembers.get(memberComp);
-                if (props.containsKey(paramName)) {
-                    values = toCollection(props.get(paramName));
-                    break;
+    private Map<String, InertProperty> getNodePropertiesMap(
+            Node node,
+            Map<String, InertProperty> propsMap,
+            String propertyPrefix) throws Exception {
+        NodeIterator nodeIterator = node.getNodes();
+        while (nodeIterator.hasNext()) {
+            Node childNode = nodeIterator.nextNode();
+            String childNodePropertyPrefix = propertyPrefix + childNode.getName() + DOT;
+            getNodePropertiesMap(childNode, propsMap, childNodePropertyPrefix);
+        }
+
+        //add properties to map
+        PropertyIterator props = node.getProperties();
+        while (props.hasNext()) {
+            Property jcrProperty = props.nextProperty();
+            if (jcrProperty.getType() == PropertyType.BINARY) {
+                // Binaries would be read in full to detach them from the session; they aren't configuration values
+                LOG.debug("Binary property {} left out of the configuration", jcrProperty.getPath());
+                continue;
+            }
+            InertProperty property = new InertProperty(jcrProperty);
+            if (!StringUtils.startsWithAny(property.name(), RESERVED_SYSTEM_NAME_PREFIXES)) {
+                propsMap.put(propertyPrefix + property.name(), property);
+            }
+        }
+        return propsMap;
+    }
+
+    /**
+     * Drops the cached configuration of every resource type whose component chain has a component at or under any
+     * of the changed roots. Resource types without a component are dropped on structural changes, since the change
+     * may create it.
+     *
+     * @param roots The changed component roots and structural paths
+     * @param structuralChange true if nodes were added, removed or moved outside of xk.config nodes
+     */
+    private void invalidate(Collection<String> roots, boolean structuralChange) {
+        for (Map.Entry<String, ConfigurationImpl> entry : configCache.asMap().entrySet()) {
+            List<String> componentPaths = entry.getValue().componentPaths;
+            if (componentPaths.isEmpty()) {
+                if (structuralChange) {
+                    configCache.invalidate(entry.getKey());
                 }
+                continue;
+            }
+            if (ConfigurationChanges.isAffected(componentPaths, roots)) {
+                configCache.invalidate(entry.getKey());
             }
-            return values;
         }
+    }
 
-        private Collection<Value> getMerged(String paramName)
-                throws Exception {
-            Collection<Value> values = new ArrayList<>();
-            for (String memberComp : configMembers.keySet()) {
-                Map<String, InertProperty> props = configMembers.get(memberComp);
-                if (props.containsKey(paramName)) {
-                    for (Value value : toCollection(props.get(paramName))) {
-                        if (!values.contains(value)) {
-                            values.add(value);
+    /**
+     * Inner class: Configuration implementer. An immutable snapshot of the configuration of a resource type: the
+     * inheritance chain is flattened once into a lookup table per mode, holding values detached from the JCR
+     * session, and the distilled map and its JSON form are computed on first use. Dates are the only mutable values:
+     * every map returned holds its own copies, so the distilled map is only memoized when there are none.
+     */
+    private class ConfigurationImpl
+            implements Configuration {
+
+        private final Map<String, Map<String, InertProperty>> configMembers;
+        private final List<String> componentPaths;
+        private final boolean hasConfig;
+        private final boolean pageComponent;
+        private final boolean hasDates;
+        private final Set<String> propNamesDeepCache;
+        private final Set<String> propNamesShallowCache;
+        private final Map<Mode, Map<String, List<InertValue>>> valuesByMode = new EnumMap<>(Mode.class);
+        private volatile Map<String, Object> distilledMap;
+        private volatile String jsonString;
+
+        private ConfigurationImpl(Map<String, Map<String, InertProperty>> configMembers, List<String> componentPaths,
+                                  boolean hasConfig) {
+            this.configMembers = configMembers;
+            this.componentPaths = Collections.unmodifiableList(componentPaths);
+            this.hasConfig = hasConfig;
+            propNamesDeepCache = Collections.unmodifiableSet(names(configMembers, false));
+            propNamesShallowCache = Collections.unmodifiableSet(names(configMembers, true));
+            for (Mode mode : Mode.values()) {
+                Map<String, List<InertValue>> values = new HashMap<>();
+                for (String paramName : (mode == Mode.SHALLOW) ? propNamesShallowCache : propNamesDeepCache) {
+                    values.put(paramName, Collections.unmodifiableList(valuesFor(configMembers, paramName, mode)));
+                }
+                valuesByMode.put(mode, values);
+            }
+            List<String> categories = new ArrayList<>();
+            for (InertValue value : valuesFor(XK_COMPONENT_CATEGORY, Mode.MERGE)) {
+                categories.add(value.string());
+            }
+            pageComponent = !componentPaths.isEmpty()
+                    && categories.contains(PAGE_CATEGORY) && categories.contains(HTML_PAGE_CATEGORY);
+            hasDates = hasDates(configMembers);
+        }
+
+        private boolean hasDates(Map<String, Map<String, InertProperty>> configMembers) {
+            for (Map<String, InertProperty> props : configMembers.values()) {
+                for (InertProperty property : props.values()) {
+                    for (InertValue value : property.values()) {
+                        if (value.type() == PropertyType.DATE) {
+                            return true;
                         }
                     }
                 }
             }
-            return values;
+            return false;
         }
 
-        private Collection<Value> getCombined(String paramName)
-                throws Exception {
-            Collection<Value> values = new ArrayList<>();
-            for (String memberComp : configMembers.keySet()) {
-                Map<String, InertProperty> props = configMembers.get(memberComp);
-                if (props.containsKey(paramName)) {
-                    values.addAll(toCollection(props.get(paramName)));
-                }
+        private Set<String> names(Map<String, Map<String, InertProperty>> configMembers, boolean shallow) {
+            Set<String> names = new HashSet<>();
+            for (Map<String, InertProperty> props : configMembers.values()) {
+                names.addAll(props.keySet());
+                if (shallow)
+                    break;
             }
-            return values;
+            return names;
         }
 
-        private Collection<Value> getShallow(String paramName)
-                throws Exception {
-            Collection<Value> values = Collections.emptyList();
-            for (String memberComp : configMembers.keySet()) {
-                Map<String, InertProperty> props = configMembers.get(memberComp);
-                if (props.containsKey(paramName)) {
-                    values = toCollection(props.get(paramName));
+        private List<InertValue> valuesFor(Map<String, Map<String, InertProperty>> configMembers, String paramName,
+                                           Mode mode) {
+            List<InertValue> values = new ArrayList<>();
+            for (Map<String, InertProperty> props : configMembers.values()) {
+                InertProperty property = props.get(paramName);
+                switch (mode) {
+                    case INHERIT:
+                        if (property != null) {
+                            return property.values();
+                        }
+                        break;
+                    case MERGE:
+                        if (property != null) {
+                            for (InertValue value : property.values()) {
+                                if (!values.contains(value)) {
+                                    values.add(value);
+                                }
+                            }
+                        }
+                        break;
+                    case COMBINE:
+                        if (property != null) {
+                            values.addAll(property.values());
+                        }
+                        break;
+                    case SHALLOW:
+                        return (property != null) ? property.values() : values;
+                    default:
+                        return values;
                 }
-                break;
             }
             return values;
         }
 
-        private Collection<Value> toCollection(InertProperty property)
-                throws Exception {
-            return property.values();
+        private List<InertValue> valuesFor(String paramName, Mode mode) {
+            Map<String, List<InertValue>> values = (mode != null) ? valuesByMode.get(mode) : null;
+            List<InertValue> paramValues = (values != null) ? values.get(paramName) : null;
+            return (paramValues != null) ? paramValues : Collections.<InertValue>emptyList();
         }
 
         @Override
@@ -383,7 +780,7 @@ public class AEMConfigurationProviderImpl
         @Override
         public Set<String> names(Mode mode)
                 throws Exception {
-            return (mode == Mode.SHALLOW) ? names(true) : propNamesDeepCache;
+            return (mode == Mode.SHALLOW) ? propNamesShallowCache : propNamesDeepCache;
         }
 
         @Override
@@ -397,9 +794,8 @@ public class AEMConfigurationProviderImpl
             Map<String, Object> distilledMap = new HashMap<>();
             for (String paramName : names(mode)) {
                 List<Object> objs = new ArrayList<>();
-                for (Value value : valuesFor(paramName, mode)) {
-                    //value.t
-                    objs.add(ResourceUtils.toJavaObject(value));
+                for (InertValue value : valuesFor(paramName, mode)) {
+                    objs.add(value.object());
                 }
                 Object distilledValue;
                 switch (objs.size()) {
@@ -412,11 +808,11 @@ public class AEMConfigurationProviderImpl
                             break;
                         }
                     default:
-                        distilledValue = objs;
+                        distilledValue = Collections.unmodifiableList(objs);
                 }
                 distilledMap.put(paramName, distilledValue);
             }
-            return distilledMap;
+            return Collections.unmodifiableMap(distilledMap);
         }
 
         public Map<String, Object> distilledMap(Mode mode)
@@ -426,7 +822,15 @@ public class AEMConfigurationProviderImpl
 
         public Map<String, Object> distilledMap()
                 throws Exception {
-            return distilledMap(defaultMode());
+            if (hasDates) {
+                return distilledMap(defaultMode());
+            }
+            Map<String, Object> map = distilledMap;
+            if (map == null) {
+                map = distilledMap(defaultMode());
+                distilledMap = map;
+            }
+            return map;
         }
 
         @Override
@@ -439,7 +843,11 @@ public class AEMConfigurationProviderImpl
         @Override
         public List<String> asStrings(String paramName, Mode mode)
                 throws Exception {
-            return PropertyUtils.as(String.class, valuesFor(paramName, mode));
+            List<String> strings = new ArrayList<>();
+            for (InertValue value : valuesFor(paramName, mode)) {
+                strings.add(value.string());
+            }
+            return strings;
         }
 
         @Override
@@ -464,7 +872,11 @@ public class AEMConfigurationProviderImpl
         @Override
         public List<Number> asNumbers(String paramName, Mode mode)
                 throws Exception {
-            return PropertyUtils.as(Number.class, valuesFor(paramName, mode));
+            List<Number> numbers = new ArrayList<>();
+            for (InertValue value : valuesFor(paramName, mode)) {
+                numbers.add(value.number());
+            }
+            return numbers;
         }
 
         @Override
@@ -489,7 +901,11 @@ public class AEMConfigurationProviderImpl
         @Override
         public List<Date> asDates(String paramName, Mode mode)
                 throws Exception {
-            return PropertyUtils.as(Date.class, valuesFor(paramName, mode));
+            List<Date> dates = new ArrayList<>();
+            for (InertValue value : valuesFor(paramName, mode)) {
+                dates.add(value.date());
+            }
+            return dates;
         }
 
         @Override
@@ -507,7 +923,7 @@ public class AEMConfigurationProviderImpl
         @Override
         public String toString() {
             try {
-                return new JSONObject(distilledMap()).toJSONString();
+                return toJSONString();
             } catch (Exception ew) {
                 LOG.error(ERROR, ew);
             }
@@ -528,7 +944,12 @@ public class AEMConfigurationProviderImpl
 
         public String toJSONString()
                 throws Exception {
-            return toJSONString(JSONStyle.NO_COMPRESS);
+            String json = jsonString;
+            if (json == null) {
+                json = toJSONString(JSONStyle.NO_COMPRESS);
+                jsonString = json;
+            }
+            return json;
         }
 
         @Override
@@ -542,30 +963,73 @@ public class AEMConfigurationProviderImpl
             }
             return obj.toJSONString(style);
         }
+
+        /**
+         * @return The snapshot form of the configuration, as read by
+         * {@link AEMConfigurationProviderImpl#readConfiguration(ByteBuffer)}
+         * @throws IOException
+         */
+        private byte[] toBytes()
+                throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeBoolean(hasConfig);
+            writeComponentPaths(out, componentPaths);
+            out.writeInt(configMembers.size());
+            for (Map.Entry<String, Map<String, InertProperty>> member : configMembers.entrySet()) {
+                writeString(out, member.getKey());
+                out.writeInt(member.getValue().size());
+                for (Map.Entry<String, InertProperty> prop : member.getValue().entrySet()) {
+                    InertProperty property = prop.getValue();
+                    writeString(out, prop.getKey());
+                    writeString(out, property.name());
+                    out.writeInt(property.type());
+                    writeString(out, property.nodePath());
+                    out.writeInt(property.values().size());
+                    for (InertValue value : property.values()) {
+                        out.writeInt(value.type());
+                        writeString(out, value.string());
+                    }
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
     }
 
     /**
      * Inner class: InertProperty
      */
-    private class InertProperty {
+    private static class InertProperty {
 
         private final int type;
         private final String name, nodePath;
-        private final List<Value> values;
+        private final List<InertValue> values;
 
         private InertProperty(Property property)
                 throws RepositoryException {
             type = property.getType();
             name = property.getName();
-            values = (property.isMultiple()) ? Arrays.asList(property.getValues()) : Lists.newArrayList(property.getValue());
+            List<InertValue> inertValues = new ArrayList<>();
+            for (Value value : (property.isMultiple()) ? property.getValues() : new Value[] {property.getValue()}) {
+                inertValues.add(new InertValue(value));
+            }
+            values = Collections.unmodifiableList(inertValues);
             nodePath = property.getParent().getPath();
         }
 
+        private InertProperty(int type, String name, String nodePath, List<InertValue> values) {
+            this.type = type;
+            this.name = name;
+            this.nodePath = nodePath;
+            this.values = Collections.unmodifiableList(values);
+        }
+
         private String name() {
             return name;
         }
 
-        private List<Value> values() {
+        private List<InertValue> values() {
             return values;
         }
 
@@ -577,4 +1041,88 @@ public class AEMConfigurationProviderImpl
             return type;
         }
     }
+
+    /**
+     * Inner class: a property value detached from the JCR session. Binary values are left out of configurations.
+     */
+    private static class InertValue {
+
+        private final int type;
+        private final String string;
+        private final Object object;
+
+        private InertValue(Value value)
+                throws RepositoryException {
+            type = value.getType();
+            string = value.getString();
+            object = ResourceUtils.toJavaObject(value);
+        }
+
+        /**
+         * Restores a value from its type and string form, as {@link ResourceUtils#toJavaObject(Value)} would
+         */
+        private InertValue(int type, String string) {
+            this.type = type;
+            this.string = string;
+            switch (type) {
+                case PropertyType.LONG:
+                    object = Long.valueOf(string);
+                    break;
+                case PropertyType.DOUBLE:
+                    object = Double.valueOf(string);
+                    break;
+                case PropertyType.DATE:
+                    object = ISO8601.parse(string);
+                    break;
+                case PropertyType.BOOLEAN:
+                    object = Boolean.valueOf(string);
+                    break;
+                case PropertyType.DECIMAL:
+                    object = new BigDecimal(string);
+                    break;
+                default:
+                    object = string;
+            }
+        }
+
+        private int type() {
+            return type;
+        }
+
+        private String string() {
+            return string;
+        }
+
+        /**
+         * @return The Java form of the value; a copy for dates, which are mutable
+         */
+        private Object object() {
+            return (object instanceof Calendar) ? ((Calendar) object).clone() : object;
+        }
+
+        private Number number() {
+            if (object instanceof Number) {
+                return (Number) object;
+            }
+            return NumberUtils.isNumber(string) ? NumberUtils.createNumber(string) : null;
+        }
+
+        private Date date() {
+            return (object instanceof Calendar) ? ((Calendar) object).getTime() : null;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof InertValue)) {
+                return false;
+            }
+            InertValue other = (InertValue) obj;
+            return type == other.type && string.equals(other.string);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type + string.hashCode();
+        }
+    }
 }
@@ -0,0 +1,184 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.configuration;
+
+import danta.aem.util.PathIndex;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.day.cq.wcm.api.NameConstants.NT_COMPONENT;
+import static danta.Constants.XK_CONFIG_RESOURCE_NAME;
+import static danta.aem.Constants.SLING_RESOURCE_SUPER_TYPE;
+
+/**
+ * Changes under /apps collected during an invalidation window of the configuration provider. Only changes that can
+ * affect a configuration are kept: anything in or under an xk.config node (reduced to its component root),
+ * sling:resourceSuperType changes, components added and nodes removed (only affecting the configurations depending
+ * on them or on nodes under them), so the templates, client libraries and other files of a package install don't
+ * invalidate anything. Changes are collected by a single thread at a time.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+class ConfigurationChanges {
+
+    private final Set<String> paths = new HashSet<>();
+    private final Set<String> hierarchyPaths = new HashSet<>();
+    private boolean structuralChange;
+
+    /**
+     * Collects the change of an event, if it can affect a configuration.
+     *
+     * @param event The observation event
+     * @param session The session telling added components apart from other nodes
+     * @throws RepositoryException
+     */
+    void collect(Event event, Session session)
+            throws RepositoryException {
+        String path = event.getPath();
+        switch (event.getType()) {
+            case Event.PROPERTY_REMOVED:
+            case Event.PROPERTY_CHANGED:
+            case Event.PROPERTY_ADDED:
+                String nodePath = path.substring(0, path.lastIndexOf('/'));
+                if (path.endsWith("/" + SLING_RESOURCE_SUPER_TYPE)) {
+                    hierarchyPaths.add(nodePath);
+                    paths.add(nodePath);
+                } else {
+                    String componentRoot = componentRoot(nodePath);
+                    if (componentRoot != null) {
+                        paths.add(componentRoot);
+                    }
+                }
+                break;
+            case Event.NODE_MOVED:
+                Object srcAbsPath = event.getInfo().get("srcAbsPath");
+                if (srcAbsPath != null) {
+                    removedNodePath(srcAbsPath.toString());
+                }
+                addedNodePath(path, session);
+                break;
+            case Event.NODE_ADDED:
+                addedNodePath(path, session);
+                break;
+            case Event.NODE_REMOVED:
+            default:
+                removedNodePath(path);
+        }
+    }
+
+    private void addedNodePath(String path, Session session)
+            throws RepositoryException {
+        String componentRoot = componentRoot(path);
+        if (componentRoot != null) {
+            paths.add(componentRoot);
+        } else if (isComponentNode(path, session)) {
+            // A component appearing may give a resource type without one a configuration, or overlay a component.
+            // Other nodes can't: the components added along with them have events of their own
+            structuralChange = true;
+            hierarchyPaths.add(path);
+            paths.add(path);
+        }
+    }
+
+    private void removedNodePath(String path) {
+        String componentRoot = componentRoot(path);
+        if (componentRoot != null) {
+            paths.add(componentRoot);
+        } else {
+            // The node is gone, so it can't be told apart from a file or a folder: only the configurations and
+            // hierarchies depending on it, or on a node under it, are affected
+            hierarchyPaths.add(path);
+            paths.add(path);
+        }
+    }
+
+    private static boolean isComponentNode(String path, Session session)
+            throws RepositoryException {
+        return session != null && session.nodeExists(path) && session.getNode(path).isNodeType(NT_COMPONENT);
+    }
+
+    /**
+     * @return true if no collected change affects a configuration
+     */
+    boolean isEmpty() {
+        return paths.isEmpty();
+    }
+
+    /**
+     * @return The changed component roots and structural paths, without any path under another one
+     */
+    List<String> getRoots() {
+        return PathIndex.toRoots(paths);
+    }
+
+    /**
+     * @return The changed paths that can affect a resource type hierarchy, without any path under another one
+     */
+    List<String> getHierarchyRoots() {
+        return PathIndex.toRoots(hierarchyPaths);
+    }
+
+    /**
+     * @return true if a component was added, which may give a resource type without one a configuration
+     */
+    boolean isStructuralChange() {
+        return structuralChange;
+    }
+
+    /**
+     * @param path The changed path
+     * @return The path of the component owning the xk.config node the path is in or under, or null
+     */
+    static String componentRoot(String path) {
+        String configSegment = "/" + XK_CONFIG_RESOURCE_NAME;
+        int index = path.indexOf(configSegment);
+        while (index >= 0) {
+            int end = index + configSegment.length();
+            if (end == path.length() || path.charAt(end) == '/') {
+                return path.substring(0, index);
+            }
+            index = path.indexOf(configSegment, end);
+        }
+        return null;
+    }
+
+    /**
+     * @param componentPaths The paths of the component chain of a configuration
+     * @param roots The changed roots
+     * @return true if any component path is, or is under, any of the changed roots
+     */
+    static boolean isAffected(List<String> componentPaths, Collection<String> roots) {
+        for (String componentPath : componentPaths) {
+            for (String root : roots) {
+                if (componentPath.equals(root) || componentPath.startsWith(root + "/")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.configuration;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A memory mapped configuration snapshot file: the fingerprint of the configurations it was written from, and one
+ * entry per resource type holding the configuration flag and component paths of the configuration, followed by its
+ * members. Opening it only indexes the resource types; each entry is decoded by the configuration provider the first
+ * time it is requested.
+ * <p>
+ * Entries affected by a change are excluded, and the whole snapshot is retired once found out of date. Both increment
+ * a generation, and a configuration decoded from the snapshot is only cached if the generation read before its entry
+ * is still current, so a read overlapping an exclusion or the retirement never caches a stale configuration.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+class ConfigurationSnapshot {
+
+    private static final int MAGIC = 0x44414E54;
+    private static final int VERSION = 1;
+
+    private final ByteBuffer buffer;
+    private final byte[] fingerprint;
+    private final Map<String, Integer> offsets = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> componentPathsByType = new ConcurrentHashMap<>();
+    // Guarded by this, along with the generation increments
+    private boolean retired;
+    private volatile long generation;
+
+    /**
+     * Maps and indexes a snapshot file.
+     *
+     * @param file The snapshot file
+     * @throws IOException If the file can't be read or isn't a snapshot of this version
+     */
+    ConfigurationSnapshot(File file)
+            throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer index = buffer.duplicate();
+        if (index.getInt() != MAGIC || index.getInt() != VERSION) {
+            throw new IOException("Unsupported configuration snapshot: " + file);
+        }
+        fingerprint = readBytes(index);
+        int count = index.getInt();
+        for (int i = 0; i < count; i++) {
+            String resourceType = readString(index);
+            int length = index.getInt();
+            offsets.put(resourceType, index.position());
+            ByteBuffer entry = index.duplicate();
+            entry.get();
+            componentPathsByType.put(resourceType, readComponentPaths(entry));
+            index.position(index.position() + length);
+        }
+    }
+
+    /**
+     * Writes a snapshot file. The file is written aside and moved in place, so a failed write never leaves a
+     * truncated snapshot behind.
+     *
+     * @param file The snapshot file
+     * @param fingerprint The fingerprint of the configurations
+     * @param entries The entries, by resource type
+     * @throws IOException
+     */
+    static void write(File file, byte[] fingerprint, Map<String, byte[]> entries)
+            throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeBytes(out, fingerprint);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                writeBytes(out, entry.getValue());
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return The fingerprint of the configurations the snapshot was written from
+     */
+    byte[] getFingerprint() {
+        return fingerprint;
+    }
+
+    int size() {
+        return offsets.size();
+    }
+
+    /**
+     * @return The resource types still served from the snapshot
+     */
+    Set<String> resourceTypes() {
+        return offsets.keySet();
+    }
+
+    /**
+     * @return The generation, to be read before the entry and passed to
+     * {@link #putIfCurrent(long, ConcurrentMap, String, Object)}
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param resourceType The resource type
+     * @return The entry of the resource type, positioned on its configuration flag, or null if it isn't served from
+     * the snapshot
+     */
+    ByteBuffer read(String resourceType) {
+        Integer offset = offsets.get(resourceType);
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset);
+        return in;
+    }
+
+    /**
+     * Caches a configuration decoded from the snapshot, unless an entry was excluded or the snapshot retired since
+     * the generation was read.
+     *
+     * @param generation The generation read before the entry
+     * @param cache The configuration cache
+     * @param resourceType The resource type
+     * @param configuration The decoded configuration
+     * @return The cached configuration (the one already cached, if any), or null if the read is stale
+     */
+    synchronized <V> V putIfCurrent(long generation, ConcurrentMap<String, V> cache, String resourceType,
+                                    V configuration) {
+        if (retired || generation != this.generation) {
+            return null;
+        }
+        V cached = cache.putIfAbsent(resourceType, configuration);
+        return (cached != null) ? cached : configuration;
+    }
+
+    /**
+     * Stops serving the entries depending on any of the changed roots, or without a component when a component was
+     * added.
+     *
+     * @param roots The changed paths
+     * @param structuralChange true if a component was added
+     * @return The number of entries excluded
+     */
+    synchronized int exclude(Collection<String> roots, boolean structuralChange) {
+        int excluded = 0;
+        for (Map.Entry<String, List<String>> entry : componentPathsByType.entrySet()) {
+            List<String> paths = entry.getValue();
+            if (paths.isEmpty() ? structuralChange : ConfigurationChanges.isAffected(paths, roots)) {
+                offsets.remove(entry.getKey());
+                componentPathsByType.remove(entry.getKey());
+                excluded++;
+            }
+        }
+        if (excluded > 0) {
+            generation++;
+        }
+        return excluded;
+    }
+
+    /**
+     * Stops caching configurations from the snapshot. Reads still in flight see the new generation and aren't cached.
+     */
+    synchronized void retire() {
+        retired = true;
+        generation++;
+    }
+
+    static void writeComponentPaths(DataOutputStream out, List<String> componentPaths)
+            throws IOException {
+        out.writeInt(componentPaths.size());
+        for (String componentPath : componentPaths) {
+            writeString(out, componentPath);
+        }
+    }
+
+    static List<String> readComponentPaths(ByteBuffer in) {
+        int pathCount = in.getInt();
+        List<String> paths = new ArrayList<>(pathCount);
+        for (int i = 0; i < pathCount; i++) {
+            paths.add(readString(in));
+        }
+        return paths;
+    }
+
+    static void writeString(DataOutputStream out, String string)
+            throws IOException {
+        writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes)
+            throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+}
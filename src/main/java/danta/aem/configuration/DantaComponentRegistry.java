@@ -0,0 +1,47 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.configuration;
+
+/**
+ * Per resource type flags derived from the xk.config of components. Both positive and negative results are
+ * cached, and refreshed when the component definitions change.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface DantaComponentRegistry {
+
+    /**
+     * @param resourceType The resource type
+     * @return true if the component of the resource type has its own xk.config
+     * @throws Exception
+     */
+    public boolean isDantaComponent(String resourceType)
+            throws Exception;
+
+    /**
+     * @param resourceType The resource type
+     * @return true if the component of the resource type has (or inherits) both the page and htmlpage categories
+     * @throws Exception
+     */
+    public boolean isPageComponent(String resourceType)
+            throws Exception;
+
+}
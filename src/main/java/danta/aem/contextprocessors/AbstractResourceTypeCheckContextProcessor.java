@@ -19,9 +19,14 @@
 package danta.aem.contextprocessors;
 
 import com.google.common.collect.Sets;
+import danta.aem.services.ResourceTypeHierarchyService;
 import danta.api.ContentModel;
 import danta.api.ExecutionContext;
 import danta.api.exceptions.AcceptsException;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
@@ -39,9 +44,14 @@ import static danta.aem.Constants.SLING_HTTP_REQUEST;
  * @version     1.0.0
  * @since       2013-11-08
  */
+@Component(componentAbstract = true)
 public abstract class AbstractResourceTypeCheckContextProcessor<C extends ContentModel>
         extends AbstractCheckResourceExistenceContextProcessor<C> {
 
+    // Subclasses built before the reference was added have no binding for it, and fall back to the resolver check
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    protected volatile ResourceTypeHierarchyService resourceTypeHierarchyService;
+
     @Override
     public boolean accepts(final ExecutionContext executionContext)
             throws AcceptsException {
@@ -53,11 +63,16 @@ public abstract class AbstractResourceTypeCheckContextProcessor<C extends Conten
             if (resourceTypes == null || resourceTypes.isEmpty()) {
                 resourceTypes = Sets.newHashSet(requiredResourceType());
             }
-            ResourceResolver resolver = request.getResourceResolver();
-            for (String resourceType : resourceTypes) {
-                if (resolver.isResourceType(resource, resourceType)) {
-                    accepts = true;
-                    break;
+            ResourceTypeHierarchyService resourceTypeHierarchyService = this.resourceTypeHierarchyService;
+            if (resourceTypeHierarchyService != null) {
+                accepts = resourceTypeHierarchyService.isResourceType(resource, resourceTypes);
+            } else {
+                ResourceResolver resolver = request.getResourceResolver();
+                for (String resourceType : resourceTypes) {
+                    if (resolver.isResourceType(resource, resourceType)) {
+                        accepts = true;
+                        break;
+                    }
                 }
             }
         }
@@ -21,6 +21,7 @@ package danta.aem.contextprocessors;
 import com.day.cq.wcm.api.AuthoringUIMode;
 import com.day.cq.wcm.api.components.ComponentManager;
 import com.google.common.collect.Sets;
+import danta.aem.services.ServiceResourceResolverProvider;
 import danta.aem.templating.TemplateContentModelImpl;
 import danta.aem.util.PropertyUtils;
 import danta.aem.util.ResourceUtils;
@@ -32,11 +33,9 @@ import org.apache.felix.scr.annotations.*;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
-import org.apache.sling.api.resource.ResourceResolverFactory;
 
 import javax.jcr.Node;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -58,10 +57,8 @@ public class AddComponentPropertiesContextProcessor
 
     private static final Set<String> ANY_OF = Collections.unmodifiableSet(Sets.newHashSet(COMPONENT_CATEGORY));
 
-    private static final String CONFIG_SERVICE = "config-service";
-
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
-    private ResourceResolverFactory resourceResolverFactory;
+    private ServiceResourceResolverProvider serviceResourceResolverProvider;
 
     @Override
     public Set<String> anyOf() {
@@ -78,14 +75,13 @@ public class AddComponentPropertiesContextProcessor
     public void process(final ExecutionContext executionContext, TemplateContentModelImpl contentModel)
             throws ProcessException {
 
+        ResourceResolver resourceResolver = null;
         try {
             SlingHttpServletRequest request = (SlingHttpServletRequest) executionContext.get(SLING_HTTP_REQUEST);
             Resource resource = request.getResource();
             if (resource != null) {
 
-                Map<String, Object> authenticationInfo = new HashMap<String, Object>();
-                authenticationInfo.put(ResourceResolverFactory.SUBSERVICE, CONFIG_SERVICE);
-                ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(authenticationInfo);
+                resourceResolver = serviceResourceResolverProvider.acquire();
 
                 ComponentManager componentManager = resourceResolver.adaptTo(ComponentManager.class);
                 com.day.cq.wcm.api.components.Component component = componentManager.getComponentOfResource(resource);
@@ -107,11 +103,12 @@ public class AddComponentPropertiesContextProcessor
                     }
                     contentModel.setAsIsolated(COMPONENT_PROPERTIES_KEY, componentProps);
                 }
-                resourceResolver.close();
 
             }
         } catch (Exception e) {
             throw new ProcessException(e);
+        } finally {
+            serviceResourceResolverProvider.release(resourceResolver);
         }
 
     }
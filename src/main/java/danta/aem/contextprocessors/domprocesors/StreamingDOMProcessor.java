@@ -0,0 +1,43 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.contextprocessors.domprocesors;
+
+import danta.api.DOMProcessor;
+
+import java.util.Set;
+
+/**
+ * A DOMProcessor that only works on elements carrying one of the attributes it declares. When every registered
+ * DOMProcessor is a StreamingDOMProcessor, the page output can be rewritten in a single pass: only the elements
+ * carrying a declared attribute (along with their content) are parsed, and each processor receives a document
+ * holding just those elements in its body. DOMProcessors that don't implement this interface get the full page
+ * document.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface StreamingDOMProcessor
+        extends DOMProcessor {
+
+    /**
+     * @return The lower cased names of the attributes marking the elements this processor works on
+     */
+    public Set<String> attributes();
+}
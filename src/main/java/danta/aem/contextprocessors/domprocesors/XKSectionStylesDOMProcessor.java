@@ -27,6 +27,9 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import java.util.Collections;
+import java.util.Set;
+
 import static danta.Constants.HIGHEST_PRIORITY;
 
 /**
@@ -40,10 +43,12 @@ import static danta.Constants.HIGHEST_PRIORITY;
 @Component
 @Service
 public class XKSectionStylesDOMProcessor
-        extends AbstractDOMProcessor {
+        extends AbstractDOMProcessor
+        implements StreamingDOMProcessor {
 
     private static final  String XK_SECTION_ATTR = "data-xk-section";
     private static final  String XK_SECTION_STYLES_ATTR = "data-xk-section-styles";
+    private static final Set<String> ATTRIBUTES = Collections.singleton(XK_SECTION_ATTR);
 
     /**
      * Returns the DOMProcessor priority, which is HIGHEST_PRIORITY (See {@link danta.Constants}).
@@ -54,6 +59,15 @@ public class XKSectionStylesDOMProcessor
         return HIGHEST_PRIORITY;
     }
 
+    /**
+     * Only the sections (and the styles element they contain) need to be processed.
+     * @return  The data-xk-section attribute.
+     */
+    @Override
+    public Set<String> attributes() {
+        return ATTRIBUTES;
+    }
+
     @Override
     public void process(final ExecutionContext executionContext, final Document document)
             throws ProcessException {
@@ -0,0 +1,39 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.services;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides the executor parallel includes are rendered on. Register an implementation with a higher service
+ * ranking to plug in a different executor. The executor should be bounded and reject includes when it is saturated
+ * (RejectedExecutionException): rejected includes are rendered on the request thread.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface IncludeExecutorProvider {
+
+    /**
+     * @return executorService The executor rendering parallel includes
+     */
+    public ExecutorService getExecutorService();
+
+}
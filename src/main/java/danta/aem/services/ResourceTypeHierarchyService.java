@@ -0,0 +1,70 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+
+package danta.aem.services;
+
+import org.apache.sling.api.resource.Resource;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Memoized resource type hierarchies. Walking the super type chain of a resource type reads the component
+ * definitions under /apps and /libs, which only change on deployments, so the chain is computed once per resource
+ * type (and content level super type), with the service resource resolver, until it is invalidated.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface ResourceTypeHierarchyService {
+
+    /**
+     * Returns the resource type of the resource followed by its super types, nearest first. Types are relative to
+     * the resolver search path (e.g. "/apps/foo/bar" is returned as "foo/bar").
+     *
+     * @param resource The resource
+     * @return resourceTypes The resource types of the resource
+     */
+    public List<String> getResourceTypes(Resource resource);
+
+    /**
+     * Same check as {@link org.apache.sling.api.resource.ResourceResolver#isResourceType(Resource, String)}, for
+     * any of the given types, using the memoized hierarchy.
+     *
+     * @param resource The resource
+     * @param resourceTypes The resource types to check
+     * @return true if the resource is of, or inherits from, any of the given types
+     */
+    public boolean isResourceType(Resource resource, Collection<String> resourceTypes);
+
+    /**
+     * Drops the memoized hierarchies with a resource type whose component is, or is under, any of the given paths
+     * (in any search path). Called when component definitions change.
+     *
+     * @param paths The changed paths
+     */
+    public void invalidate(Collection<String> paths);
+
+    /**
+     * Drops every memoized hierarchy.
+     */
+    public void invalidateAll();
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.services;
+
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolver;
+
+/**
+ * Provides the "config-service" service resource resolver. Within a request, a single resolver is lazily created
+ * on first use and shared by every consumer (script engine, configuration provider, context processors) until the
+ * request ends.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface ServiceResourceResolverProvider {
+
+    /**
+     * Returns the service resource resolver of the current request, creating it on first use. Outside of a request
+     * (e.g. observation or background threads) a new resolver is returned.
+     *
+     * @return resourceResolver The service resource resolver
+     * @throws LoginException
+     */
+    public ResourceResolver acquire()
+            throws LoginException;
+
+    /**
+     * Releases a resolver returned by {@link #acquire()}. The resolver of the current request is left open (it is
+     * closed when the request ends); any other resolver is closed.
+     *
+     * @param resourceResolver The resolver to release, may be null
+     */
+    public void release(ResourceResolver resourceResolver);
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.services;
+
+/**
+ * Warms up the Danta caches (component configurations, compiled templates and resource type hierarchies) when
+ * the bundle starts. When readiness is enabled, this service is only registered once the warm up is complete, so
+ * it can be used as a readiness signal (e.g. by a system ready or health check).
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface WarmUpService {
+
+    /**
+     * @return true when the warm up is complete (or disabled)
+     */
+    public boolean isComplete();
+
+    /**
+     * @return The number of components to warm up, or -1 while they are being discovered
+     */
+    public int getTotal();
+
+    /**
+     * @return The number of components already warmed up
+     */
+    public int getCompleted();
+
+    /**
+     * @return The duration of the warm up in milliseconds, so far if it is still running
+     */
+    public long getDuration();
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.services.impl;
+
+import danta.aem.services.IncludeExecutorProvider;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default include executor provider: a fixed size pool with a bounded queue (direct hand-off by default), so the
+ * instance can't have more includes rendering at the same time than the pool size. Includes the pool rejects are
+ * rendered synchronously on the request thread instead of waiting in an unbounded queue until their timeout. On
+ * JDKs with virtual threads the pool can be backed by virtual threads instead of platform threads.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component(
+        label = "Danta Include Executor",
+        description = "Executor parallel includes are rendered on",
+        metatype = true
+)
+@Service(IncludeExecutorProvider.class)
+@Properties({
+        @Property(
+                label = "Pool size",
+                description = "Maximum number of includes rendered at the same time",
+                name = IncludeExecutorProviderImpl.POOL_SIZE_PN,
+                intValue = IncludeExecutorProviderImpl.DEFAULT_POOL_SIZE,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Queue size",
+                description = "Maximum number of includes waiting for a pool thread; 0 hands includes off to idle " +
+                        "threads only. Includes that don't fit are rendered on the request thread",
+                name = IncludeExecutorProviderImpl.QUEUE_SIZE_PN,
+                intValue = IncludeExecutorProviderImpl.DEFAULT_QUEUE_SIZE,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Virtual threads",
+                description = "Run the pool on virtual threads when the JDK supports them",
+                name = IncludeExecutorProviderImpl.VIRTUAL_THREADS_PN,
+                boolValue = IncludeExecutorProviderImpl.DEFAULT_VIRTUAL_THREADS,
+                propertyPrivate = false
+        )
+})
+public class IncludeExecutorProviderImpl
+        implements IncludeExecutorProvider {
+
+    private final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    protected static final String POOL_SIZE_PN = "poolSize";
+    protected static final int DEFAULT_POOL_SIZE = 8;
+    protected static final String QUEUE_SIZE_PN = "queueSize";
+    protected static final int DEFAULT_QUEUE_SIZE = 0;
+    protected static final String VIRTUAL_THREADS_PN = "virtualThreads";
+    protected static final boolean DEFAULT_VIRTUAL_THREADS = false;
+    private static final String THREAD_NAME_PREFIX = "danta-include-";
+
+    private ExecutorService executorService;
+
+    @Override
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Returns a virtual thread factory, or null when the JDK doesn't support virtual threads. Looked up by
+     * reflection, since the bundle is compiled for Java 8.
+     */
+    private ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class)
+                    .invoke(builder, THREAD_NAME_PREFIX, 0L);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (Exception ew) {
+            LOG.info("Virtual threads are not available, using platform threads: {}", ew.toString());
+            return null;
+        }
+    }
+
+    private ThreadFactory platformThreadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Component activator
+     *
+     * @param componentContext The component context
+     * @throws Exception
+     */
+    @Activate
+    protected void activate(ComponentContext componentContext)
+            throws Exception {
+        int poolSize = Math.max(1,
+                PropertiesUtil.toInteger(componentContext.getProperties().get(POOL_SIZE_PN), DEFAULT_POOL_SIZE));
+        boolean virtualThreads = PropertiesUtil.toBoolean(
+                componentContext.getProperties().get(VIRTUAL_THREADS_PN), DEFAULT_VIRTUAL_THREADS);
+        int queueSize = Math.max(0,
+                PropertiesUtil.toInteger(componentContext.getProperties().get(QUEUE_SIZE_PN), DEFAULT_QUEUE_SIZE));
+        ThreadFactory threadFactory = virtualThreads ? virtualThreadFactory() : null;
+        if (threadFactory == null) {
+            threadFactory = platformThreadFactory();
+        }
+        BlockingQueue<Runnable> queue = (queueSize == 0)
+                ? new SynchronousQueue<Runnable>() : new ArrayBlockingQueue<Runnable>(queueSize);
+        // Rejects (AbortPolicy) once every thread is busy and the queue is full
+        executorService = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue, threadFactory);
+    }
+
+    /**
+     * Component deactivator
+     *
+     * @param context The component context
+     * @throws Exception
+     */
+    @Deactivate
+    protected void deactivate(final ComponentContext context)
+            throws Exception {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+}
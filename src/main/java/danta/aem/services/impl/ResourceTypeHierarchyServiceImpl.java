@@ -0,0 +1,175 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+
+package danta.aem.services.impl;
+
+import danta.aem.services.ResourceTypeHierarchyService;
+import danta.aem.services.ServiceResourceResolverProvider;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static danta.Constants.ERROR;
+
+/**
+ * Resource type hierarchy service implementer. Hierarchies are always computed with the service resource resolver,
+ * never with the resolver of the request being rendered, so what is memoized doesn't depend on the permissions of
+ * the first user who rendered a resource type.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component
+@Service(ResourceTypeHierarchyService.class)
+public class ResourceTypeHierarchyServiceImpl
+        implements ResourceTypeHierarchyService {
+
+    private static final char KEY_SEPARATOR = '|';
+
+    private final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private ServiceResourceResolverProvider serviceResourceResolverProvider;
+
+    private volatile ConcurrentMap<String, List<String>> hierarchies = new ConcurrentHashMap<>();
+    private volatile String[] searchPath = new String[0];
+
+    @Override
+    public List<String> getResourceTypes(final Resource resource) {
+        // Loads running while the hierarchies are invalidated complete into the map they started with
+        ConcurrentMap<String, List<String>> cache = hierarchies;
+        String resourceType = resource.getResourceType();
+        String resourceSuperType = resource.getResourceSuperType();
+        String key = resourceType + KEY_SEPARATOR + (resourceSuperType == null ? "" : resourceSuperType);
+        List<String> resourceTypes = cache.get(key);
+        if (resourceTypes == null) {
+            ResourceResolver resolver = null;
+            try {
+                resolver = serviceResourceResolverProvider.acquire();
+                searchPath = resolver.getSearchPath();
+                resourceTypes = load(resolver, resourceType, resourceSuperType);
+                cache.put(key, resourceTypes);
+            } catch (LoginException ew) {
+                LOG.error(ERROR, ew);
+                // Not memoized, the hierarchy is computed again once the service user can log in
+                resourceTypes = Collections.singletonList(relativize(searchPath, resourceType));
+            } finally {
+                serviceResourceResolverProvider.release(resolver);
+            }
+        }
+        return resourceTypes;
+    }
+
+    @Override
+    public boolean isResourceType(final Resource resource, final Collection<String> resourceTypes) {
+        List<String> hierarchy = getResourceTypes(resource);
+        for (String resourceType : resourceTypes) {
+            if (resourceType != null && hierarchy.contains(relativize(searchPath, resourceType))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void invalidate(Collection<String> paths) {
+        // Copied without the affected hierarchies, so loads running meanwhile complete into the map they started with
+        String[] searchPath = this.searchPath;
+        ConcurrentMap<String, List<String>> cache = new ConcurrentHashMap<>();
+        for (Map.Entry<String, List<String>> entry : hierarchies.entrySet()) {
+            if (!isAffected(searchPath, entry.getValue(), paths)) {
+                cache.put(entry.getKey(), entry.getValue());
+            }
+        }
+        hierarchies = cache;
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        hierarchies = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Checks if the component of any of the resource types, in any search path, is or is under any of the paths
+     */
+    private static boolean isAffected(String[] searchPath, List<String> resourceTypes, Collection<String> paths) {
+        for (String resourceType : resourceTypes) {
+            if (resourceType.startsWith("/")) {
+                if (isAffected(resourceType, paths)) {
+                    return true;
+                }
+                continue;
+            }
+            for (String prefix : searchPath) {
+                if (isAffected(prefix + resourceType, paths)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAffected(String componentPath, Collection<String> paths) {
+        for (String path : paths) {
+            if (componentPath.equals(path) || componentPath.startsWith(path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> load(ResourceResolver resolver, String resourceType, String resourceSuperType) {
+        String[] searchPath = resolver.getSearchPath();
+        List<String> resourceTypes = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        resourceTypes.add(relativize(searchPath, resourceType));
+        String superType = (resourceSuperType != null) ? resourceSuperType : resolver.getParentResourceType(resourceType);
+        // Guard against super type cycles
+        while (superType != null && visited.add(superType)) {
+            resourceTypes.add(relativize(searchPath, superType));
+            superType = resolver.getParentResourceType(superType);
+        }
+        return Collections.unmodifiableList(resourceTypes);
+    }
+
+    private static String relativize(String[] searchPath, String resourceType) {
+        if (resourceType.startsWith("/")) {
+            for (String path : searchPath) {
+                if (resourceType.startsWith(path)) {
+                    return resourceType.substring(path.length());
+                }
+            }
+        }
+        return resourceType;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.services.impl;
+
+import danta.aem.services.ServiceResourceResolverProvider;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.engine.SlingRequestEvent;
+import org.apache.sling.engine.SlingRequestListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Service resource resolver provider implementer. The request scope is opened and closed by the Sling request
+ * events, so the shared resolver is closed exactly once per top-level request, even when rendering fails.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component
+@Service({ServiceResourceResolverProvider.class, SlingRequestListener.class})
+public class ServiceResourceResolverProviderImpl
+        implements ServiceResourceResolverProvider, SlingRequestListener {
+
+    private static final String CONFIG_SERVICE = "config-service";
+    private static final Map<String, Object> RESOURCE_RESOLVER_PARAMS =
+            Collections.unmodifiableMap(Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, (Object) CONFIG_SERVICE));
+
+    private static final ThreadLocal<RequestScope> REQUEST_SCOPE = new ThreadLocal<>();
+
+    private final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private ResourceResolverFactory resourceResolverFactory;
+
+    @Override
+    public ResourceResolver acquire()
+            throws LoginException {
+        RequestScope scope = REQUEST_SCOPE.get();
+        if (scope == null) {
+            return resourceResolverFactory.getServiceResourceResolver(RESOURCE_RESOLVER_PARAMS);
+        }
+        if (scope.resourceResolver == null || !scope.resourceResolver.isLive()) {
+            scope.resourceResolver = resourceResolverFactory.getServiceResourceResolver(RESOURCE_RESOLVER_PARAMS);
+        }
+        return scope.resourceResolver;
+    }
+
+    @Override
+    public void release(ResourceResolver resourceResolver) {
+        if (resourceResolver == null) {
+            return;
+        }
+        RequestScope scope = REQUEST_SCOPE.get();
+        if ((scope == null || scope.resourceResolver != resourceResolver) && resourceResolver.isLive()) {
+            resourceResolver.close();
+        }
+    }
+
+    /**
+     * Opens the request scope on the first (top-level) request of the thread and closes it, along with its resolver,
+     * when that request ends. Internal requests processed on the same thread share the scope.
+     *
+     * @param event The request event
+     */
+    @Override
+    public void onEvent(SlingRequestEvent event) {
+        RequestScope scope = REQUEST_SCOPE.get();
+        switch (event.getType()) {
+            case EVENT_INIT:
+                if (scope == null) {
+                    scope = new RequestScope();
+                    REQUEST_SCOPE.set(scope);
+                }
+                scope.depth++;
+                break;
+            case EVENT_DESTROY:
+                if (scope != null && --scope.depth <= 0) {
+                    REQUEST_SCOPE.remove();
+                    if (scope.resourceResolver != null && scope.resourceResolver.isLive()) {
+                        scope.resourceResolver.close();
+                    }
+                }
+                break;
+            default:
+                LOG.debug("Unhandled request event {}", event.getType());
+        }
+    }
+
+    /**
+     * Inner class: the resolver of a top-level request
+     */
+    private static class RequestScope {
+
+        private ResourceResolver resourceResolver;
+        private int depth;
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.services.impl;
+
+import danta.aem.configuration.DantaComponentRegistry;
+import danta.aem.services.ResourceTypeHierarchyService;
+import danta.aem.services.ServiceResourceResolverProvider;
+import danta.aem.services.WarmUpService;
+import danta.aem.templating.DantaScriptEngineFactory;
+import danta.api.configuration.ConfigurationProvider;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.query.Query;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static danta.Constants.ERROR;
+import static danta.aem.Constants.XK_CONFIG_NODES_QUERY;
+
+/**
+ * Warm up service implementer. Components with an xk.config under /apps are discovered with a query, and each
+ * of them is warmed up on a bounded pool: its configuration snapshot and flags, its resource type hierarchy and
+ * the compiled templates of its Danta scripts.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component(
+        label = "Danta Warm Up",
+        description = "Loads Danta configurations, templates and component metadata when the bundle starts",
+        immediate = true,
+        metatype = true
+)
+@Properties({
+        @Property(
+                label = "Enabled",
+                description = "Warm up the Danta caches on activation",
+                name = WarmUpServiceImpl.ENABLED_PN,
+                boolValue = WarmUpServiceImpl.DEFAULT_ENABLED,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Pool size",
+                description = "Number of components warmed up at the same time",
+                name = WarmUpServiceImpl.POOL_SIZE_PN,
+                intValue = WarmUpServiceImpl.DEFAULT_POOL_SIZE,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Readiness",
+                description = "Register the WarmUpService only once the warm up is complete, as a readiness signal",
+                name = WarmUpServiceImpl.READINESS_PN,
+                boolValue = WarmUpServiceImpl.DEFAULT_READINESS,
+                propertyPrivate = false
+        )
+})
+public class WarmUpServiceImpl
+        implements WarmUpService {
+
+    private final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    protected static final String ENABLED_PN = "enabled";
+    protected static final boolean DEFAULT_ENABLED = true;
+    protected static final String POOL_SIZE_PN = "poolSize";
+    protected static final int DEFAULT_POOL_SIZE = 4;
+    protected static final String READINESS_PN = "readiness";
+    protected static final boolean DEFAULT_READINESS = false;
+    private static final String SCRIPT_EXTENSION = ".d";
+    private static final int PROGRESS_STEPS = 10;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private ConfigurationProvider configurationProvider;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private DantaComponentRegistry dantaComponentRegistry;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private DantaScriptEngineFactory dantaScriptEngineFactory;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private ServiceResourceResolverProvider serviceResourceResolverProvider;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private ResourceTypeHierarchyService resourceTypeHierarchyService;
+
+    private volatile boolean complete;
+    private volatile int total = -1;
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile long startTime;
+    private volatile long endTime;
+    private ExecutorService executorService;
+    private ServiceRegistration serviceRegistration;
+
+    @Override
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    @Override
+    public long getDuration() {
+        return (complete ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    /**
+     * Discovers the Danta components and warms them up on the pool, then completes the warm up.
+     */
+    private void warmUp(final ComponentContext componentContext, final boolean readiness) {
+        List<String> componentPaths = new ArrayList<>();
+        ResourceResolver resourceResolver = null;
+        try {
+            resourceResolver = serviceResourceResolverProvider.acquire();
+            Iterator<Resource> configResources = resourceResolver.findResources(XK_CONFIG_NODES_QUERY, Query.JCR_SQL2);
+            while (configResources.hasNext()) {
+                componentPaths.add(configResources.next().getParent().getPath());
+            }
+        } catch (Exception ew) {
+            LOG.error(ERROR, ew);
+        } finally {
+            serviceResourceResolverProvider.release(resourceResolver);
+        }
+
+        total = componentPaths.size();
+        LOG.info("Danta warm up: {} components to warm up", total);
+        if (componentPaths.isEmpty()) {
+            complete(componentContext, readiness);
+            return;
+        }
+        final int progressStep = Math.max(1, total / PROGRESS_STEPS);
+        for (final String componentPath : componentPaths) {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        warmUp(componentPath);
+                    } catch (Exception ew) {
+                        LOG.error("Danta warm up failed for " + componentPath, ew);
+                    } finally {
+                        int count = completed.incrementAndGet();
+                        if (count % progressStep == 0 || count == total) {
+                            LOG.info("Danta warm up: {}/{} components in {} ms", count, total, getDuration());
+                        }
+                        if (count == total) {
+                            complete(componentContext, readiness);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Warms up a single component: configuration and flags, resource type hierarchy and compiled scripts.
+     */
+    private void warmUp(String componentPath)
+            throws Exception {
+        ResourceResolver resourceResolver = serviceResourceResolverProvider.acquire();
+        try {
+            Resource component = resourceResolver.getResource(componentPath);
+            if (component == null) {
+                return;
+            }
+            String resourceType = componentPath;
+            for (String searchPath : resourceResolver.getSearchPath()) {
+                if (componentPath.startsWith(searchPath)) {
+                    resourceType = componentPath.substring(searchPath.length());
+                    break;
+                }
+            }
+            configurationProvider.getFor(resourceType);
+            dantaComponentRegistry.isPageComponent(resourceType);
+            resourceTypeHierarchyService.getResourceTypes(
+                    new SyntheticResource(resourceResolver, componentPath, resourceType));
+            for (Resource child : component.getChildren()) {
+                if (child.getName().endsWith(SCRIPT_EXTENSION)) {
+                    dantaScriptEngineFactory.precompile(child);
+                }
+            }
+        } finally {
+            serviceResourceResolverProvider.release(resourceResolver);
+        }
+    }
+
+    private synchronized void complete(ComponentContext componentContext, boolean readiness) {
+        if (complete) {
+            return;
+        }
+        endTime = System.currentTimeMillis();
+        complete = true;
+        LOG.info("Danta warm up complete: {} components in {} ms", total, getDuration());
+        if (readiness) {
+            register(componentContext);
+        }
+    }
+
+    private synchronized void register(ComponentContext componentContext) {
+        if (serviceRegistration == null && executorService != null) {
+            serviceRegistration = componentContext.getBundleContext().registerService(
+                    WarmUpService.class.getName(), this, new Hashtable<String, Object>());
+        }
+    }
+
+    /**
+     * Component activator
+     *
+     * @param componentContext The component context
+     * @throws Exception
+     */
+    @Activate
+    protected void activate(final ComponentContext componentContext)
+            throws Exception {
+        boolean enabled = PropertiesUtil.toBoolean(componentContext.getProperties().get(ENABLED_PN), DEFAULT_ENABLED);
+        final boolean readiness = PropertiesUtil.toBoolean(componentContext.getProperties().get(READINESS_PN), DEFAULT_READINESS);
+        int poolSize = Math.max(1, PropertiesUtil.toInteger(componentContext.getProperties().get(POOL_SIZE_PN), DEFAULT_POOL_SIZE));
+        startTime = System.currentTimeMillis();
+        executorService = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "danta-warm-up-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        if (!readiness) {
+            register(componentContext);
+        }
+        if (enabled) {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    warmUp(componentContext, readiness);
+                }
+            });
+        } else {
+            total = 0;
+            complete(componentContext, readiness);
+        }
+    }
+
+    /**
+     * Component deactivator
+     *
+     * @param context The component context
+     * @throws Exception
+     */
+    @Deactivate
+    protected synchronized void deactivate(final ComponentContext context)
+            throws Exception {
+        if (serviceRegistration != null) {
+            serviceRegistration.unregister();
+            serviceRegistration = null;
+        }
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+}
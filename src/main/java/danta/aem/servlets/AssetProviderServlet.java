@@ -24,8 +24,11 @@ import com.day.cq.dam.api.Asset;
 import com.day.cq.dam.commons.util.DamUtil;
 import com.day.image.Layer;
 import com.google.common.io.ByteStreams;
+import danta.aem.assets.RenditionCache;
+import danta.aem.assets.TransformAdmission;
 import danta.aem.util.ImageUtils;
 import danta.aem.util.ResourceUtils;
+import danta.aem.util.SingleFlight;
 import danta.api.configuration.ConfigurationProvider;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
@@ -43,24 +46,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.jcr.Binary;
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.servlet.Servlet;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.day.cq.commons.jcr.JcrConstants.JCR_DATA;
+import static com.day.cq.commons.jcr.JcrConstants.JCR_LASTMODIFIED;
 import static com.day.cq.commons.jcr.JcrConstants.JCR_MIMETYPE;
 import static danta.Constants.*;
 import static danta.aem.Constants.*;
+import static danta.aem.servlets.ByteRanges.BYTES_UNIT;
+import static danta.aem.servlets.ByteRanges.CONTENT_RANGE;
+import static danta.aem.servlets.ByteRanges.MULTIPART_BYTERANGES;
 
 /**
  * The Asset Provider Servlet provides access to DAM assets in AEM without exposing the JCR structure.
@@ -97,6 +122,31 @@ import static danta.aem.Constants.*;
                 value = {"1280x720"},
                 propertyPrivate = false
         ),
+        @Property(
+                label = "Cache-Control",
+                description = "Cache-Control header per transform. Format: transformName:header value. " +
+                        "Use " + AssetProviderServlet.ORIGINAL_TRANSFORM + " for untransformed assets and " +
+                        AssetProviderServlet.ANY_TRANSFORM + " for the default",
+                name = AssetProviderServlet.CACHE_CONTROL_PN,
+                value = {AssetProviderServlet.ANY_TRANSFORM + ":no-cache"},
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Transform fallback",
+                description = "Response when an image transform can't be admitted: " +
+                        AssetProviderServlet.FALLBACK_ORIGINAL + " (the untransformed original) or " +
+                        AssetProviderServlet.FALLBACK_UNAVAILABLE + " (503 with Retry-After)",
+                name = AssetProviderServlet.TRANSFORM_FALLBACK_PN,
+                value = {AssetProviderServlet.FALLBACK_ORIGINAL},
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Retry after",
+                description = "Retry-After, in seconds, of the 503 sent when an image transform can't be admitted",
+                name = AssetProviderServlet.RETRY_AFTER_PN,
+                intValue = AssetProviderServlet.DEFAULT_RETRY_AFTER,
+                propertyPrivate = false
+        ),
         @Property(
                 label = "Extension",
                 description = "",
@@ -129,9 +179,41 @@ public class AssetProviderServlet extends SlingSafeMethodsServlet implements Opt
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
     protected ConfigurationProvider configurationProvider;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    protected RenditionCache renditionCache;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    protected TransformAdmission transformAdmission;
+
     private Map<String, NamedImageTransformer> namedImageTransformers = new HashMap();
+    // Rendition cache key of each transform: its name and a fingerprint of its configuration
+    private Map<String, String> transformKeys = new HashMap();
     private final Logger LOGGER = LoggerFactory.getLogger(AssetProviderServlet.class);
     protected static final String MAX_DIMENSIONS_PN = "maxDimensions";
+    protected static final String CACHE_CONTROL_PN = "cacheControl";
+    protected static final String ORIGINAL_TRANSFORM = "original";
+    protected static final String ANY_TRANSFORM = "*";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+    private static final String RANGE = "Range";
+    private static final String IF_RANGE = "If-Range";
+    protected static final String TRANSFORM_FALLBACK_PN = "transformFallback";
+    protected static final String FALLBACK_ORIGINAL = "original";
+    protected static final String FALLBACK_UNAVAILABLE = "unavailable";
+    protected static final String RETRY_AFTER_PN = "retryAfter";
+    protected static final int DEFAULT_RETRY_AFTER = 5;
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final String NO_STORE = "no-store";
+    private static final char FLIGHT_KEY_SEPARATOR = '|';
+    private String transformFallback = FALLBACK_ORIGINAL;
+    private final SingleFlight<String, File> renditionFlights = new SingleFlight<>();
+    private final SingleFlight<String, TransformedImage> transformFlights = new SingleFlight<>();
+    private int retryAfter = DEFAULT_RETRY_AFTER;
+    private Map<String, String> cacheControls = new HashMap();
     private int maxHeight = 1280;
     private int maxWidth = 720;
 
@@ -187,6 +269,12 @@ public class AssetProviderServlet extends SlingSafeMethodsServlet implements Opt
                 Binary binary;
                 String mimeType = BLANK;
                 Asset asset = DamUtil.resolveToAsset(assetResource);
+                long lastModified = getLastModified(request.getResource(), asset);
+                String etag = getETag(asset, transformName, lastModified);
+                if (isNotModified(request, response, etag, lastModified, transformName)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
                 Resource original = asset.getOriginal();
 
                 Node assetNode = original.adaptTo(Node.class);
@@ -199,52 +287,315 @@ public class AssetProviderServlet extends SlingSafeMethodsServlet implements Opt
                         response.setContentType(mimeType);
                     }
                     binary = assetInfo.getProperty(JCR_DATA).getBinary();
-                    InputStream inputStream = binary.getStream();
                     OutputStream outputStream = response.getOutputStream();
 
-                    boolean shouldTransform = StringUtils.isNotBlank(transformName);
-                    if (shouldTransform && ImageUtils.isImage(assetResource)) {
-                        double quality = 1;
-                        double maxGifQuality = 255;
-
-                        // Transform the image
-                        final Layer layer = new Layer(inputStream, new Dimension(maxWidth, maxHeight));
-                        Layer newLayer = null;
-                        try {
-                            final NamedImageTransformer namedImageTransformer = this.namedImageTransformers.get(transformName);
-                            newLayer = namedImageTransformer.transform(layer);
-
-                            if (StringUtils.isBlank(mimeType) || !ImageIO.getImageWritersByMIMEType(mimeType).hasNext()) {
-                                mimeType = getImageMimeType(layer, asset.getName());
-                                response.setContentType(mimeType);
+                    boolean shouldTransform = StringUtils.isNotBlank(transformName) && ImageUtils.isImage(assetResource);
+                    boolean isWritable = StringUtils.isNotBlank(mimeType) && ImageIO.getImageWritersByMIMEType(mimeType).hasNext();
+                    final NamedImageTransformer namedImageTransformer = this.namedImageTransformers.get(transformName);
+                    String transformKey = this.transformKeys.get(transformName);
+                    try {
+                        File rendition = null;
+                        if (shouldTransform && isWritable && transformKey != null && renditionCache.isEnabled()) {
+                            rendition = getCachedRendition(asset, binary, namedImageTransformer, transformKey, mimeType);
+                            if (rendition != null && !sendRendition(rendition, response)) {
+                                // The file is gone: drop a stale index entry and publish the rendition again
+                                renditionCache.remove(asset.getPath(), asset.getLastModified(), transformKey, mimeType);
+                                rendition = getCachedRendition(asset, binary, namedImageTransformer, transformKey, mimeType);
+                                if (rendition != null && !sendRendition(rendition, response)) {
+                                    rendition = null;
+                                }
                             }
-                            // For GIF images the colors will be reduced according to the quality argument.
-                            if (StringUtils.equals(mimeType, GIF_MIME_TYPE)) {
-                                quality = quality * maxGifQuality;
+                        }
+
+                        if (rendition != null) {
+                            LOGGER.debug("Served {} rendition of {} from {}", transformName, asset.getPath(), rendition);
+                        } else if (shouldTransform) {
+                            // Transform the image, sharing the result with identical requests in flight
+                            TransformedImage transformedImage = getTransformedImage(asset, binary, namedImageTransformer,
+                                    StringUtils.defaultString(transformKey, transformName), mimeType, isWritable);
+                            response.setContentType(transformedImage.mimeType);
+                            response.setContentLength(transformedImage.bytes.length);
+                            outputStream.write(transformedImage.bytes);
+
+                        } else {
+                            List<long[]> ranges = getRanges(request, etag, lastModified, binary.getSize());
+                            if (ranges == null) {
+                                response.setHeader(ACCEPT_RANGES, BYTES_UNIT);
+                                try (InputStream inputStream = binary.getStream()) {
+                                    ByteStreams.copy(inputStream, outputStream);
+                                }
+                            } else {
+                                sendRanges(response, binary, ranges, mimeType, outputStream);
                             }
+                        }
+                    } catch (RejectedExecutionException ew) {
+                        LOGGER.warn("Image transform of {} rejected: {}", asset.getPath(), ew.getMessage());
+                        sendTransformFallback(response, binary, mimeType);
+                    }
 
-                            newLayer.write(mimeType, quality, outputStream);
+                    response.flushBuffer();
+                    outputStream.close();
+
+                }
+            }
+        } catch (RepositoryException repoException) {
+            LOGGER.error("Repository Exception. ", repoException);
+        }
+    }
+
+    /**
+     * Returns the cached rendition of an asset, transforming the original and publishing the rendition to the cache
+     * on a miss. Concurrent misses for the same rendition are coalesced; waiting for the miss in flight is bounded by
+     * the time it may take to be admitted and transformed, and rejected like an admission when it times out.
+     *
+     * @param asset The asset
+     * @param binary The original binary
+     * @param namedImageTransformer The transform
+     * @param transformKey The transform name and configuration fingerprint
+     * @param mimeType The output mime type
+     * @return rendition The rendition file
+     * @throws IOException
+     */
+    private File getCachedRendition(final Asset asset, final Binary binary,
+                                    final NamedImageTransformer namedImageTransformer, final String transformKey,
+                                    final String mimeType)
+            throws IOException {
+        File rendition = renditionCache.get(asset.getPath(), asset.getLastModified(), transformKey, mimeType);
+        if (rendition == null) {
+            // Identical misses in flight wait for the first one to publish the rendition
+            rendition = renditionFlights.execute(flightKey(asset, transformKey, mimeType),
+                    getFlightTimeout(), new SingleFlight.Call<File>() {
+                @Override
+                public File call()
+                        throws IOException {
+                    File published = renditionCache.get(asset.getPath(), asset.getLastModified(), transformKey, mimeType);
+                    return (published != null) ? published
+                            : publishRendition(asset, binary, namedImageTransformer, transformKey, mimeType);
+                }
+            });
+        }
+        return rendition;
+    }
+
+    /**
+     * Transforms the original and publishes the rendition to the cache.
+     */
+    private File publishRendition(final Asset asset, final Binary binary,
+                                  final NamedImageTransformer namedImageTransformer, String transformKey,
+                                  final String mimeType)
+            throws IOException {
+        return renditionCache.put(asset.getPath(), asset.getLastModified(), transformKey, mimeType,
+                new RenditionCache.RenditionWriter() {
+                    @Override
+                    public void write(OutputStream out)
+                            throws IOException {
+                        TransformAdmission.Permit permit = admit(binary);
+                        Layer layer = null;
+                        try (InputStream inputStream = binary.getStream()) {
+                            layer = new Layer(inputStream, new Dimension(maxWidth, maxHeight));
+                            transform(layer, namedImageTransformer, mimeType, out);
+                        } catch (RepositoryException ew) {
+                            throw new IOException(ew);
                         } finally {
                             if (layer != null) {
                                 layer.dispose();
                             }
-                            if (newLayer != null) {
-                                newLayer.dispose();
-                            }
+                            permit.release();
                         }
+                    }
+                });
+    }
 
-                    } else {
-                        ByteStreams.copy(inputStream, outputStream);
+    /**
+     * Transforms the original in memory, sharing the result with the identical requests in flight. Used when the
+     * rendition can't be cached.
+     *
+     * @param asset The asset
+     * @param binary The original binary
+     * @param namedImageTransformer The transform
+     * @param transformKey The transform name and configuration fingerprint
+     * @param mimeType The original mime type
+     * @param isWritable true if the image can be written back in its original mime type
+     * @return transformedImage The transformed image and its mime type
+     * @throws IOException
+     */
+    private TransformedImage getTransformedImage(final Asset asset, final Binary binary,
+                                                 final NamedImageTransformer namedImageTransformer,
+                                                 String transformKey, final String mimeType, final boolean isWritable)
+            throws IOException {
+        return transformFlights.execute(flightKey(asset, transformKey, mimeType),
+                getFlightTimeout(), new SingleFlight.Call<TransformedImage>() {
+            @Override
+            public TransformedImage call()
+                    throws IOException {
+                TransformAdmission.Permit permit = admit(binary);
+                Layer layer = null;
+                try (InputStream inputStream = binary.getStream()) {
+                    layer = new Layer(inputStream, new Dimension(maxWidth, maxHeight));
+                    String outputMimeType = isWritable ? mimeType : getImageMimeType(layer, asset.getName());
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    transform(layer, namedImageTransformer, outputMimeType, out);
+                    return new TransformedImage(outputMimeType, out.toByteArray());
+                } catch (RepositoryException ew) {
+                    throw new IOException(ew);
+                } finally {
+                    if (layer != null) {
+                        layer.dispose();
                     }
+                    permit.release();
+                }
+            }
+        });
+    }
 
-                    response.flushBuffer();
-                    outputStream.close();
+    /**
+     * Maximum time to wait for an identical transform in flight: the time the transform in flight may wait for its
+     * admission, plus the time it may take once admitted.
+     */
+    private long getFlightTimeout() {
+        return transformAdmission.getQueueTimeout() + transformAdmission.getTransformTimeout();
+    }
+
+    /**
+     * Key of identical transform requests: asset path and version, transform and mime type.
+     */
+    private static String flightKey(Asset asset, String transformKey, String mimeType) {
+        return asset.getPath() + FLIGHT_KEY_SEPARATOR + asset.getLastModified()
+                + FLIGHT_KEY_SEPARATOR + transformKey + FLIGHT_KEY_SEPARATOR + mimeType;
+    }
+
+    /**
+     * Waits for the admission of a transform, given the size of the decoded image.
+     *
+     * @param binary The original binary
+     * @return permit The permit to release once the image is transformed and disposed
+     * @throws RejectedExecutionException if the transform queue is full or the wait timed out
+     * @throws IOException if the wait was interrupted
+     */
+    private TransformAdmission.Permit admit(Binary binary)
+            throws IOException {
+        try {
+            return transformAdmission.admit(estimatePixels(binary));
+        } catch (InterruptedException ew) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an image transform slot");
+        }
+    }
 
+    /**
+     * Estimates the number of pixels of a decoded image from its header, without decoding it. Falls back to the
+     * maximum dimensions when the header can't be read.
+     *
+     * @param binary The original binary
+     * @return pixels The number of pixels
+     */
+    private long estimatePixels(Binary binary) {
+        try (InputStream inputStream = binary.getStream();
+             ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = (imageInputStream != null)
+                    ? ImageIO.getImageReaders(imageInputStream) : Collections.<ImageReader>emptyIterator();
+            if (readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(imageInputStream, true, true);
+                    return (long) reader.getWidth(0) * reader.getHeight(0);
+                } finally {
+                    reader.dispose();
                 }
             }
-        } catch (RepositoryException repoException) {
-            LOGGER.error("Repository Exception. ", repoException);
+        } catch (Exception ew) {
+            LOGGER.debug("Could not read the image dimensions", ew);
         }
+        return (long) maxWidth * maxHeight;
+    }
+
+    /**
+     * Answers a request whose transform was rejected: with the untransformed original, or a 503 with Retry-After.
+     * Headers already set for the transformed image (validators, Cache-Control) are dropped, so the fallback isn't
+     * cached in its place.
+     *
+     * @param response The response
+     * @param binary The original binary
+     * @param mimeType The original mime type
+     * @throws IOException
+     * @throws RepositoryException
+     */
+    private void sendTransformFallback(SlingHttpServletResponse response, Binary binary, String mimeType)
+            throws IOException, RepositoryException {
+        response.reset();
+        response.setHeader(CACHE_CONTROL, NO_STORE);
+        if (FALLBACK_ORIGINAL.equals(transformFallback)) {
+            if (StringUtils.isNotBlank(mimeType)) {
+                response.setContentType(mimeType);
+            }
+            try (InputStream inputStream = binary.getStream()) {
+                ByteStreams.copy(inputStream, response.getOutputStream());
+            }
+        } else {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(RETRY_AFTER, String.valueOf(retryAfter));
+        }
+    }
+
+    /**
+     * Applies a transform to an image and writes the result.
+     *
+     * @param layer The decoded image
+     * @param namedImageTransformer The transform
+     * @param mimeType The output mime type
+     * @param outputStream The stream the transformed image is written to
+     * @throws IOException
+     */
+    private void transform(Layer layer, NamedImageTransformer namedImageTransformer, String mimeType,
+                           OutputStream outputStream)
+            throws IOException {
+        double quality = 1;
+        double maxGifQuality = 255;
+        Layer newLayer = null;
+        try {
+            newLayer = namedImageTransformer.transform(layer);
+            // For GIF images the colors will be reduced according to the quality argument.
+            if (StringUtils.equals(mimeType, GIF_MIME_TYPE)) {
+                quality = quality * maxGifQuality;
+            }
+            newLayer.write(mimeType, quality, outputStream);
+        } finally {
+            if (newLayer != null) {
+                newLayer.dispose();
+            }
+        }
+    }
+
+    /**
+     * Streams a cached rendition into the response with FileChannel.transferTo.
+     *
+     * @param rendition The rendition file
+     * @param response The response
+     * @return true if the rendition was sent, false if its file is missing (evicted in the meantime, or deleted)
+     * @throws IOException
+     */
+    private boolean sendRendition(File rendition, SlingHttpServletResponse response)
+            throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(rendition.toPath(), StandardOpenOption.READ);
+        } catch (NoSuchFileException ew) {
+            return false;
+        }
+        try {
+            long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                response.setContentLength((int) size);
+            }
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        } finally {
+            channel.close();
+        }
+        return true;
     }
 
     protected final void bindNamedImageTransformers(final NamedImageTransformer service,
@@ -252,6 +603,7 @@ public class AssetProviderServlet extends SlingSafeMethodsServlet implements Opt
         final String type = PropertiesUtil.toString(props.get(NamedImageTransformer.PROP_NAME), null);
         if (type != null) {
             this.namedImageTransformers.put(type, service);
+            this.transformKeys.put(type, type + "-" + Integer.toHexString(configurationHash(props)));
         }
     }
 
@@ -260,7 +612,164 @@ public class AssetProviderServlet extends SlingSafeMethodsServlet implements Opt
         final String type = PropertiesUtil.toString(props.get(NamedImageTransformer.PROP_NAME), null);
         if (type != null) {
             this.namedImageTransformers.remove(type);
+            this.transformKeys.remove(type);
+        }
+    }
+
+    /**
+     * Sets the validators (ETag, Last-Modified) and Cache-Control header of an asset delivery, and checks them
+     * against the conditional headers of the request.
+     *
+     * @param request The request
+     * @param response The response
+     * @param etag The ETag of the delivery
+     * @param lastModified The last modified time of the delivery
+     * @param transformName The transform name, blank if the asset is delivered as is
+     * @return true if the client copy is still valid and a 304 must be sent
+     */
+    private boolean isNotModified(SlingHttpServletRequest request, SlingHttpServletResponse response, String etag,
+                                  long lastModified, String transformName) {
+        String cacheControl = this.cacheControls.get(StringUtils.isBlank(transformName) ? ORIGINAL_TRANSFORM : transformName);
+        if (cacheControl == null) {
+            cacheControl = this.cacheControls.get(ANY_TRANSFORM);
+        }
+        if (cacheControl != null) {
+            response.setHeader(CACHE_CONTROL, cacheControl);
+        }
+        if (lastModified <= 0) {
+            return false;
+        }
+        response.setHeader(ETAG, etag);
+        response.setDateHeader(LAST_MODIFIED, lastModified);
+
+        String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+        long ifModifiedSince = -1;
+        if (ifNoneMatch == null) {
+            try {
+                ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE);
+            } catch (IllegalArgumentException ew) {
+                LOGGER.debug("Invalid If-Modified-Since header: {}", request.getHeader(IF_MODIFIED_SINCE));
+            }
+        }
+        return ConditionalRequests.isNotModified(ifNoneMatch, ifModifiedSince, etag, lastModified);
+    }
+
+    /**
+     * Returns the last modified time of an asset delivery: the latest of the asset and of the component resource
+     * whose file reference picks the asset, so repointing the component to another asset is a modification too.
+     *
+     * @param componentResource The component resource
+     * @param asset The asset
+     * @return lastModified The last modified time, 0 if unknown
+     */
+    private static long getLastModified(Resource componentResource, Asset asset) {
+        long lastModified = asset.getLastModified();
+        Calendar componentLastModified = ResourceUtils.getPropertyAsCalendar(componentResource, JCR_LASTMODIFIED);
+        if (componentLastModified != null) {
+            lastModified = Math.max(lastModified, componentLastModified.getTimeInMillis());
         }
+        return lastModified;
+    }
+
+    /**
+     * Returns the strong ETag of an asset delivery (see {@link ConditionalRequests#etag(String, long, String)}).
+     *
+     * @param asset The asset
+     * @param transformName The transform name, blank if the asset is delivered as is
+     * @param lastModified The last modified time of the delivery
+     * @return etag The quoted ETag
+     * @throws IOException
+     */
+    private String getETag(Asset asset, String transformName, long lastModified)
+            throws IOException {
+        String transformKey = StringUtils.isBlank(transformName)
+                ? ORIGINAL_TRANSFORM : StringUtils.defaultString(this.transformKeys.get(transformName), transformName);
+        return ConditionalRequests.etag(asset.getPath(), lastModified, transformKey);
+    }
+
+    /**
+     * Returns the byte ranges requested, unless If-Range shows the client copy is stale.
+     *
+     * @param request The request
+     * @param etag The ETag of the delivery
+     * @param lastModified The last modified time of the delivery
+     * @param size The binary size
+     * @return ranges The ranges to send; null to send the whole binary (no Range header, a stale If-Range, a
+     *         malformed or abusive Range header); empty if no range can be satisfied
+     */
+    private List<long[]> getRanges(SlingHttpServletRequest request, String etag, long lastModified, long size) {
+        String range = request.getHeader(RANGE);
+        if (range == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(IF_RANGE);
+        long ifRangeDate = -1;
+        if (ifRange != null) {
+            try {
+                ifRangeDate = request.getDateHeader(IF_RANGE);
+            } catch (IllegalArgumentException ew) {
+                // An ETag
+            }
+        }
+        if (!ByteRanges.isIfRangeSatisfied(ifRange, ifRangeDate, etag, lastModified)) {
+            return null;
+        }
+        return ByteRanges.parse(range, size);
+    }
+
+    /**
+     * Sends byte ranges of a binary: a 206 with a single part, a 206 multipart/byteranges for several ranges, or a
+     * 416 when no range can be satisfied. Each range is read from its own stream of the binary.
+     *
+     * @param response The response
+     * @param binary The binary
+     * @param ranges The ranges, sorted and disjoint
+     * @param mimeType The binary mime type
+     * @param outputStream The response stream
+     * @throws IOException
+     * @throws RepositoryException
+     */
+    private void sendRanges(SlingHttpServletResponse response, Binary binary, List<long[]> ranges, String mimeType,
+                            OutputStream outputStream)
+            throws IOException, RepositoryException {
+        long size = binary.getSize();
+        response.setHeader(ACCEPT_RANGES, BYTES_UNIT);
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(CONTENT_RANGE, BYTES_UNIT + " */" + size);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            response.setHeader(CONTENT_RANGE, ByteRanges.contentRange(range, size));
+            long length = range[1] - range[0] + 1;
+            if (length <= Integer.MAX_VALUE) {
+                response.setContentLength((int) length);
+            }
+            ByteRanges.copy(binary, range, outputStream);
+        } else {
+            String boundary = UUID.randomUUID().toString();
+            response.setContentType(MULTIPART_BYTERANGES + "; boundary=" + boundary);
+            ByteRanges.writeMultipart(binary, ranges, mimeType, boundary, outputStream);
+        }
+    }
+
+    /**
+     * Hash of the configuration of a transform, so renditions are cached apart once its configuration changes.
+     * Service and component ids, which change on every registration, are left out.
+     */
+    private static int configurationHash(Map<Object, Object> props) {
+        Map<String, String> configuration = new TreeMap<>();
+        for (Map.Entry<Object, Object> prop : props.entrySet()) {
+            String key = String.valueOf(prop.getKey());
+            if (!key.startsWith("service.") && !key.startsWith("component.")) {
+                Object value = prop.getValue();
+                configuration.put(key, (value instanceof Object[])
+                        ? Arrays.deepToString((Object[]) value) : String.valueOf(value));
+            }
+        }
+        return configuration.hashCode();
     }
 
     private Resource getAssetResource(SlingHttpServletRequest request) {
@@ -292,6 +801,17 @@ public class AssetProviderServlet extends SlingSafeMethodsServlet implements Opt
             maxHeight = NumberUtils.toInt(maxDimensionsArray[0], maxHeight);
             maxWidth = NumberUtils.toInt(maxDimensionsArray[1], maxWidth);
         }
+        Map<String, String> cacheControlValues = new HashMap<>();
+        for (String cacheControl : PropertiesUtil.toStringArray(context.getProperties().get(CACHE_CONTROL_PN), new String[0])) {
+            String transform = StringUtils.substringBefore(cacheControl, ":").trim();
+            String value = StringUtils.substringAfter(cacheControl, ":").trim();
+            if (StringUtils.isNotBlank(transform) && StringUtils.isNotBlank(value)) {
+                cacheControlValues.put(transform, value);
+            }
+        }
+        cacheControls = cacheControlValues;
+        transformFallback = PropertiesUtil.toString(context.getProperties().get(TRANSFORM_FALLBACK_PN), FALLBACK_ORIGINAL);
+        retryAfter = PropertiesUtil.toInteger(context.getProperties().get(RETRY_AFTER_PN), DEFAULT_RETRY_AFTER);
     }
 
     private String getProperty(String propertyName, ComponentContext context) {
@@ -318,4 +838,18 @@ public class AssetProviderServlet extends SlingSafeMethodsServlet implements Opt
         return mimeType;
     }
 
+    /**
+     * Inner class: a transformed image held in memory
+     */
+    private static class TransformedImage {
+
+        private final String mimeType;
+        private final byte[] bytes;
+
+        private TransformedImage(String mimeType, byte[] bytes) {
+            this.mimeType = mimeType;
+            this.bytes = bytes;
+        }
+    }
+
 }
@@ -0,0 +1,196 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+
+package danta.aem.servlets;
+
+import com.google.common.io.ByteStreams;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.jcr.Binary;
+import javax.jcr.RepositoryException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Byte range requests of the asset provider servlet: parsing of the Range header, evaluation of If-Range and
+ * writing of the selected bytes of a binary.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+final class ByteRanges {
+
+    static final String BYTES_UNIT = "bytes";
+    static final String CONTENT_RANGE = "Content-Range";
+    static final String MULTIPART_BYTERANGES = "multipart/byteranges";
+    private static final String CRLF = "\r\n";
+    private static final int MAX_RANGES = 16;
+
+    private ByteRanges() {
+    }
+
+    /**
+     * Parses a Range header into byte ranges (first and last byte positions) within the binary. Unsatisfiable
+     * ranges (starting at or after the end of the binary, or empty suffixes) are dropped, and ranges are sorted with
+     * overlapping and adjacent ones merged.
+     *
+     * @param range The Range header
+     * @param size The binary size
+     * @return ranges The ranges to send; null to send the whole binary (a malformed or abusive Range header, or a
+     *         unit other than bytes); empty if no range can be satisfied
+     */
+    static List<long[]> parse(String range, long size) {
+        if (range == null || !range.startsWith(BYTES_UNIT + "=")) {
+            return null;
+        }
+        String[] specs = StringUtils.split(range.substring(BYTES_UNIT.length() + 1), ',');
+        if (specs.length == 0 || specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (String spec : specs) {
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String firstPosition = spec.substring(0, dash).trim();
+            String lastPosition = spec.substring(dash + 1).trim();
+            // Positions are digits only: no sign, and not both omitted
+            if ((!firstPosition.isEmpty() && !StringUtils.isNumeric(firstPosition))
+                    || (!lastPosition.isEmpty() && !StringUtils.isNumeric(lastPosition))
+                    || (firstPosition.isEmpty() && lastPosition.isEmpty())) {
+                return null;
+            }
+            long first;
+            long last;
+            try {
+                if (firstPosition.isEmpty()) {
+                    // Suffix range: the last n bytes
+                    long length = Long.parseLong(lastPosition);
+                    if (length == 0 || size == 0) {
+                        continue;
+                    }
+                    first = Math.max(0, size - length);
+                    last = size - 1;
+                } else {
+                    first = Long.parseLong(firstPosition);
+                    last = lastPosition.isEmpty() ? Long.MAX_VALUE : Long.parseLong(lastPosition);
+                    if (last < first) {
+                        return null;
+                    }
+                    // Checked before the last position is clipped to the binary
+                    if (first >= size) {
+                        continue;
+                    }
+                    last = Math.min(last, size - 1);
+                }
+            } catch (NumberFormatException ew) {
+                return null;
+            }
+            ranges.add(new long[] { first, last });
+        }
+
+        Collections.sort(ranges, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] range1, long[] range2) {
+                return Long.compare(range1[0], range2[0]);
+            }
+        });
+        List<long[]> merged = new ArrayList<>();
+        for (long[] byteRange : ranges) {
+            long[] previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (previous != null && byteRange[0] <= previous[1] + 1) {
+                previous[1] = Math.max(previous[1], byteRange[1]);
+            } else {
+                merged.add(byteRange);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Evaluates an If-Range header: the ranges are only sent if the representation didn't change since the client
+     * got its validator. An ETag must match the (strong) ETag exactly; a date must not be older than the last
+     * modified time.
+     *
+     * @param ifRange The If-Range header, null if absent
+     * @param ifRangeDate The If-Range header parsed as a date, -1 if it isn't a date
+     * @param etag The ETag of the representation
+     * @param lastModified The last modified time of the representation
+     * @return true if the ranges can be sent
+     */
+    static boolean isIfRangeSatisfied(String ifRange, long ifRangeDate, String etag, long lastModified) {
+        if (ifRange == null || ifRange.trim().equals(etag)) {
+            return true;
+        }
+        // HTTP dates have a one second precision
+        return ifRangeDate >= 0 && lastModified / 1000 <= ifRangeDate / 1000;
+    }
+
+    /**
+     * Writes the parts of a multipart/byteranges body.
+     *
+     * @param binary The binary
+     * @param ranges The ranges, sorted and disjoint
+     * @param mimeType The binary mime type, blank if unknown
+     * @param boundary The multipart boundary
+     * @param outputStream The response stream
+     * @throws IOException
+     * @throws RepositoryException
+     */
+    static void writeMultipart(Binary binary, List<long[]> ranges, String mimeType, String boundary,
+                               OutputStream outputStream)
+            throws IOException, RepositoryException {
+        long size = binary.getSize();
+        for (long[] range : ranges) {
+            StringBuilder partHeaders = new StringBuilder();
+            partHeaders.append(CRLF).append("--").append(boundary).append(CRLF);
+            if (StringUtils.isNotBlank(mimeType)) {
+                partHeaders.append("Content-Type: ").append(mimeType).append(CRLF);
+            }
+            partHeaders.append(CONTENT_RANGE).append(": ").append(contentRange(range, size)).append(CRLF).append(CRLF);
+            outputStream.write(partHeaders.toString().getBytes(StandardCharsets.ISO_8859_1));
+            copy(binary, range, outputStream);
+        }
+        outputStream.write((CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Copies a byte range of a binary from a single stream, skipping to the first byte (the repository stream can
+     * seek instead of reading the skipped bytes).
+     */
+    static void copy(Binary binary, long[] range, OutputStream outputStream)
+            throws IOException, RepositoryException {
+        try (InputStream inputStream = binary.getStream()) {
+            ByteStreams.skipFully(inputStream, range[0]);
+            ByteStreams.copy(ByteStreams.limit(inputStream, range[1] - range[0] + 1), outputStream);
+        }
+    }
+
+    static String contentRange(long[] range, long size) {
+        return BYTES_UNIT + " " + range[0] + "-" + range[1] + "/" + size;
+    }
+}
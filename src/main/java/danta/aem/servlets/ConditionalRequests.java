@@ -0,0 +1,83 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.servlets;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conditional requests of the asset provider servlet: the strong ETag of an asset delivery and the evaluation of
+ * If-None-Match and If-Modified-Since against it.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+final class ConditionalRequests {
+
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String ANY_ETAG = "*";
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Returns the strong ETag of an asset delivery. It changes with the asset path, the last modified time of the
+     * delivery and the transform (including its configuration).
+     *
+     * @param assetPath The asset path
+     * @param lastModified The last modified time of the delivery
+     * @param transformKey The transform key, or the name of the original rendition
+     * @return etag The quoted ETag
+     * @throws UnsupportedEncodingException
+     */
+    static String etag(String assetPath, long lastModified, String transformKey)
+            throws UnsupportedEncodingException {
+        // Encoded, so the path can't bring quotes or non ASCII characters into the header
+        String encodedPath = URLEncoder.encode(assetPath, StandardCharsets.UTF_8.name());
+        return "\"" + encodedPath + "-" + Long.toHexString(lastModified) + "-" + transformKey + "\"";
+    }
+
+    /**
+     * Evaluates the conditional headers of a request. If-None-Match takes precedence over If-Modified-Since, and
+     * uses the weak comparison; a date must not be older than the last modified time.
+     *
+     * @param ifNoneMatch The If-None-Match header, null if absent
+     * @param ifModifiedSince The If-Modified-Since header parsed as a date, -1 if absent or invalid
+     * @param etag The ETag of the delivery
+     * @param lastModified The last modified time of the delivery
+     * @return true if the client copy is still valid and a 304 must be sent
+     */
+    static boolean isNotModified(String ifNoneMatch, long ifModifiedSince, String etag, long lastModified) {
+        if (ifNoneMatch != null) {
+            for (String candidate : StringUtils.split(ifNoneMatch, ',')) {
+                candidate = StringUtils.removeStart(candidate.trim(), WEAK_ETAG_PREFIX);
+                if (ANY_ETAG.equals(candidate) || etag.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        // HTTP dates have a one second precision
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+}
@@ -19,6 +19,7 @@
 package danta.aem.servlets;
 
 import danta.aem.services.ContentModelFactoryService;
+import danta.aem.templating.RenderMetrics;
 import danta.api.ContextProcessorEngine;
 import danta.api.TemplateContentModel;
 import danta.api.configuration.ConfigurationProvider;
@@ -34,14 +35,23 @@ import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
 import javax.servlet.ServletException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static danta.Constants.*;
 import static danta.aem.Constants.CLIENT_STATISTICS_CONTENT_MODEL_SELECTORS;
+import static danta.aem.Constants.RENDER_METRICS_PROFILE_PARAMETER;
+import static danta.aem.Constants.RENDER_METRICS_RENDERS;
+import static danta.aem.Constants.RENDER_METRICS_TIMINGS_PARAMETER;
+import static danta.aem.Constants.RENDER_PHASE_CONTEXT_PROCESSORS;
 import static danta.aem.Constants.SLING_HTTP_REQUEST;
 
 /**
- * This servlet returns the executing CPs for a given resource
+ * This servlet returns the executing CPs for a given resource, as recorded by the most recent render of its
+ * resource type. With timings=true, it returns an object holding the CPs (processors) along with the render phase
+ * statistics (timings) and recent renders (renders) of the resource type. With profile=true, the content model is
+ * built and the CPs are executed live instead, and the object holds their times (profile).
  *
  * @author      jarriola
  * @version     1.0.0
@@ -58,6 +68,9 @@ import static danta.aem.Constants.SLING_HTTP_REQUEST;
 public class StatisticsServlet
         extends SlingSafeMethodsServlet {
 
+    private static final String CONTENT_MODEL_PHASE = "contentModel";
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
     @Reference
     private ContentModelFactoryService contentModelFactoryService;
 
@@ -67,6 +80,9 @@ public class StatisticsServlet
     @Reference
     private ContextProcessorEngine contextProcessorEngine;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private RenderMetrics renderMetrics;
+
     @Override
     protected void doGet(SlingHttpServletRequest request, SlingHttpServletResponse response)
             throws ServletException, IOException {
@@ -75,21 +91,48 @@ public class StatisticsServlet
         try {
             Resource resource = request.getResource();
             if (resource != null && configurationProvider.hasConfig(resource.getResourceType())) {
+                String resourceType = resource.getResourceType();
+                JSONObject statistics = new JSONObject();
+                List<String> currentProcessorChain;
+                boolean profile = Boolean.parseBoolean(request.getParameter(RENDER_METRICS_PROFILE_PARAMETER));
+                boolean timings = Boolean.parseBoolean(request.getParameter(RENDER_METRICS_TIMINGS_PARAMETER));
+
+                if (profile) {
+                    // Live profiling: builds the content model and runs the chain again, as a full render would
+                    Map<String, Object> profileTimes = new LinkedHashMap<>();
+                    long start = System.nanoTime();
+                    TemplateContentModel contentModel = (TemplateContentModel) contentModelFactoryService.getContentModel(request, response);
+                    profileTimes.put(CONTENT_MODEL_PHASE, (System.nanoTime() - start) / NANOS_PER_MILLI);
+
+                    ExecutionContextImpl executionContext = new ExecutionContextImpl();
+                    executionContext.put(SLING_HTTP_REQUEST, request);
+                    executionContext.put(ENGINE_RESOURCE, resourceType);
+
+                    start = System.nanoTime();
+                    currentProcessorChain = contextProcessorEngine.execute(executionContext, contentModel);
+                    profileTimes.put(RENDER_PHASE_CONTEXT_PROCESSORS, (System.nanoTime() - start) / NANOS_PER_MILLI);
+                    statistics.put(RENDER_METRICS_PROFILE_PARAMETER, profileTimes);
+                } else {
+                    currentProcessorChain = latestProcessorChain(resourceType);
+                }
 
                 JSONArray CPsList = new JSONArray();
-                TemplateContentModel contentModel = (TemplateContentModel) contentModelFactoryService.getContentModel(request, response);
-
-                ExecutionContextImpl executionContext = new ExecutionContextImpl();
-                executionContext.put(SLING_HTTP_REQUEST, request);
-                executionContext.put(ENGINE_RESOURCE, resource.getResourceType());
-
-                List<String> currentProcessorChain = contextProcessorEngine.execute(executionContext, contentModel);
-
-                for (String CP : currentProcessorChain) {
-                    CPsList.add(CP);
+                if (currentProcessorChain != null) {
+                    for (String CP : currentProcessorChain) {
+                        CPsList.add(CP);
+                    }
                 }
 
-                out.write(CPsList.toString());
+                if (timings || profile) {
+                    statistics.put(PROCESSORS, CPsList);
+                    if (timings) {
+                        statistics.put(RENDER_METRICS_TIMINGS_PARAMETER, renderMetrics.getStatistics(resourceType));
+                        statistics.put(RENDER_METRICS_RENDERS, renderMetrics.getRecentRenders(resourceType));
+                    }
+                    out.write(statistics.toJSONString());
+                } else {
+                    out.write(CPsList.toString());
+                }
             } else {
                 out.write(new JSONObject().toJSONString());
             }
@@ -97,5 +140,17 @@ public class StatisticsServlet
             throw new ServletException(ew);
         }
     }
+
+    /**
+     * This method returns the context processor chain of the most recent recorded render of a resource type, or
+     * null if none was recorded.
+     *
+     * @param resourceType The resource type
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> latestProcessorChain(String resourceType) {
+        List<Map<String, Object>> recentRenders = renderMetrics.getRecentRenders(resourceType);
+        return recentRenders.isEmpty() ? null : (List<String>) recentRenders.get(0).get(PROCESSORS);
+    }
 }
 
@@ -0,0 +1,109 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer with a bounded buffer that hands its content to the underlying writer in chunks of the buffer size.
+ * Unlike a {@link java.io.BufferedWriter}, it never flushes or closes the underlying writer, which belongs to
+ * the response (or to the including component).
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+class ChunkedWriter
+        extends Writer {
+
+    private final Writer out;
+    private final char[] buffer;
+    private int count;
+
+    ChunkedWriter(final Writer out, final int bufferSize) {
+        this.out = out;
+        this.buffer = new char[bufferSize];
+    }
+
+    @Override
+    public void write(int c)
+            throws IOException {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length)
+            throws IOException {
+        if (length >= buffer.length) {
+            // Bigger than a chunk: write it through
+            drain();
+            out.write(chars, offset, length);
+            return;
+        }
+        if (length > buffer.length - count) {
+            drain();
+        }
+        System.arraycopy(chars, offset, buffer, count, length);
+        count += length;
+    }
+
+    @Override
+    public void write(String string, int offset, int length)
+            throws IOException {
+        while (length > 0) {
+            if (count == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(buffer.length - count, length);
+            string.getChars(offset, offset + chunk, buffer, count);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Writes the buffered chunk to the underlying writer.
+     *
+     * @throws IOException
+     */
+    void drain()
+            throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    @Override
+    public void flush()
+            throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close()
+            throws IOException {
+        drain();
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+/**
+ * Cache of the rendered output of Danta components that opt in through the xk_renderCache flag of their
+ * xk.config. Each entry records the repository paths it was rendered from, and is dropped when any of them
+ * changes. Those are the content resource, the component definitions and the paths listed in the
+ * xk_renderCacheDependencies property of the xk.config. A component whose output is built from other content (e.g.
+ * a navigation built from the pages of the site) must list the roots of that content (e.g. the site root), or it
+ * keeps serving its output after pages are added, moved or retitled; only changes under /content and /apps are
+ * observed.
+ * <p>
+ * Only anonymous requests are served from and stored in the cache, since the key has no user dimension. A hit
+ * skips the context processors: the request attribute changes recorded with the entry are replayed instead (see
+ * {@link RenderSideEffects}), but any other side effect of the processors or the template is lost. Components whose
+ * output depends on anything beyond the key (cookies, headers, date, earlier components of the page) must not set
+ * the flag.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface DantaRenderCache {
+
+    /**
+     * @return true if the cache is enabled
+     */
+    public boolean isEnabled();
+
+    /**
+     * Returns the cached output for the given key.
+     *
+     * @param key The render key (resource path, resource type, selectors, extension, suffix and WCM mode)
+     * @return The cached output, or null if there is none
+     */
+    public RenderedOutput get(String key);
+
+    /**
+     * @return The invalidation generation, to be read before the render starts and passed to
+     * {@link #put(String, RenderedOutput, long)}
+     */
+    public long getGeneration();
+
+    /**
+     * Caches the output rendered for the given key, unless an invalidation ran since the render started: the render
+     * may have read content changed meanwhile.
+     *
+     * @param key The render key
+     * @param output The rendered output, along with its side effects and dependencies
+     * @param generation The invalidation generation read before the render started
+     */
+    public void put(String key, RenderedOutput output, long generation);
+
+    /**
+     * Drops every entry rendered from the given path, its ancestors or its descendants.
+     *
+     * @param path The changed path
+     */
+    public void invalidate(String path);
+
+    /**
+     * Drops every entry.
+     */
+    public void invalidateAll();
+
+}
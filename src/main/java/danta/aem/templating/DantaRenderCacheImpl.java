@@ -0,0 +1,268 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import danta.aem.util.PathIndex;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.apache.sling.jcr.api.SlingRepository;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static danta.Constants.ERROR;
+import static danta.aem.Constants.APPS_ROOT;
+import static danta.aem.Constants.CONTENT_ROOT;
+
+/**
+ * Rendered output cache implementer. The cache is bounded by the total size of the cached output, and entries
+ * are dropped on any change to their content resource (or its subtree) and to the definitions of their
+ * component and super components. Entries are indexed by the paths they depend on, and the paths of an event
+ * batch are de-duplicated first, so an invalidation costs a few index lookups instead of a scan of every entry.
+ * Every invalidation increments a generation, and the output of a render that started before it isn't stored.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component(
+        label = "Danta Render Cache",
+        description = "Caches the rendered output of components flagged with xk_renderCache in their xk.config",
+        immediate = true,
+        metatype = true
+)
+@Service(DantaRenderCache.class)
+@Properties({
+        @Property(
+                label = "Enabled",
+                description = "Serve and store the output of components flagged with xk_renderCache",
+                name = DantaRenderCacheImpl.ENABLED_PN,
+                boolValue = DantaRenderCacheImpl.DEFAULT_ENABLED,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Maximum weight",
+                description = "Maximum total length, in characters, of the cached output",
+                name = DantaRenderCacheImpl.MAX_WEIGHT_PN,
+                longValue = DantaRenderCacheImpl.DEFAULT_MAX_WEIGHT,
+                propertyPrivate = false
+        )
+})
+public class DantaRenderCacheImpl
+        implements DantaRenderCache {
+
+    protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    protected static final String ENABLED_PN = "enabled";
+    protected static final boolean DEFAULT_ENABLED = true;
+    protected static final String MAX_WEIGHT_PN = "maxWeight";
+    protected static final long DEFAULT_MAX_WEIGHT = 8L * 1024 * 1024;
+    private static final String CONFIG_SERVICE = "config-service";
+    private static final int EVENT_TYPES = Event.NODE_ADDED | Event.NODE_REMOVED | Event.NODE_MOVED
+            | Event.PROPERTY_CHANGED | Event.PROPERTY_ADDED | Event.PROPERTY_REMOVED;
+
+    @Reference
+    private SlingRepository repository;
+
+    private Session session;
+    private ObservationManager observationManager;
+    private boolean enabled = DEFAULT_ENABLED;
+    private final PathIndex<String> dependencyIndex = new PathIndex<>();
+    private final Object invalidationLock = new Object();
+    // Incremented, under invalidationLock, by every invalidation
+    private volatile long generation;
+    private Cache<String, RenderedOutput> renders = newCache(DEFAULT_MAX_WEIGHT, dependencyIndex);
+
+    // One listener per observed tree: a listener registered twice only keeps its last registration
+    private final EventListener contentListener = new EventListener() {
+        @Override
+        public void onEvent(EventIterator eventIterator) {
+            invalidate(eventIterator);
+        }
+    };
+    private final EventListener appsListener = new EventListener() {
+        @Override
+        public void onEvent(EventIterator eventIterator) {
+            invalidate(eventIterator);
+        }
+    };
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public RenderedOutput get(String key) {
+        return enabled ? renders.getIfPresent(key) : null;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public void put(String key, RenderedOutput output, long generation) {
+        if (enabled) {
+            synchronized (invalidationLock) {
+                // A render that started before an invalidation may have read the content it dropped
+                if (generation == this.generation) {
+                    dependencyIndex.add(key, output.getDependencies());
+                    renders.put(key, output);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidate(String path) {
+        invalidate(Collections.singleton(path));
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (invalidationLock) {
+            generation++;
+            renders.invalidateAll();
+            dependencyIndex.clear();
+        }
+    }
+
+    /**
+     * Drops the entries rendered from any of the changed paths, their ancestors or their descendants.
+     *
+     * @param paths The changed paths
+     */
+    private void invalidate(Set<String> paths) {
+        synchronized (invalidationLock) {
+            generation++;
+            renders.invalidateAll(dependencyIndex.affectedBy(PathIndex.toRoots(paths)));
+        }
+    }
+
+    private void invalidate(EventIterator eventIterator) {
+        try {
+            Set<String> paths = new LinkedHashSet<>();
+            while (eventIterator.hasNext()) {
+                Event event = eventIterator.nextEvent();
+                String path = event.getPath();
+                switch (event.getType()) {
+                    case Event.PROPERTY_REMOVED:
+                    case Event.PROPERTY_CHANGED:
+                    case Event.PROPERTY_ADDED:
+                        path = path.substring(0, path.lastIndexOf('/'));
+                        break;
+                    case Event.NODE_MOVED:
+                        Object srcAbsPath = event.getInfo().get("srcAbsPath");
+                        if (srcAbsPath != null) {
+                            paths.add(srcAbsPath.toString());
+                        }
+                        break;
+                    default:
+                }
+                paths.add(path);
+            }
+            invalidate(paths);
+        } catch (Exception ew) {
+            LOG.error(ERROR, ew);
+        }
+    }
+
+    private static Cache<String, RenderedOutput> newCache(long maxWeight, final PathIndex<String> dependencyIndex) {
+        return CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(new Weigher<String, RenderedOutput>() {
+                    @Override
+                    public int weigh(String key, RenderedOutput renderedOutput) {
+                        return key.length() + renderedOutput.getHtml().length();
+                    }
+                })
+                .removalListener(new RemovalListener<String, RenderedOutput>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<String, RenderedOutput> notification) {
+                        // A replaced entry keeps its key, which the new entry has just indexed again
+                        if (notification.getCause() != RemovalCause.REPLACED) {
+                            dependencyIndex.remove(notification.getKey(), notification.getValue().getDependencies());
+                        }
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Component activator
+     *
+     * @param componentContext The component context
+     * @throws Exception
+     */
+    @Activate
+    protected void activate(ComponentContext componentContext)
+            throws Exception {
+        enabled = PropertiesUtil.toBoolean(componentContext.getProperties().get(ENABLED_PN), DEFAULT_ENABLED);
+        renders.invalidateAll();
+        renders = newCache(PropertiesUtil.toLong(componentContext.getProperties().get(MAX_WEIGHT_PN), DEFAULT_MAX_WEIGHT),
+                dependencyIndex);
+
+        session = repository.loginService(CONFIG_SERVICE, null);
+        observationManager = session.getWorkspace().getObservationManager();
+        observationManager.addEventListener(contentListener, EVENT_TYPES, CONTENT_ROOT,
+                true /* isDeep */, null /* uuid */, null /* nodeTypeName */, true /* noLocal */);
+        observationManager.addEventListener(appsListener, EVENT_TYPES, APPS_ROOT,
+                true /* isDeep */, null /* uuid */, null /* nodeTypeName */, true /* noLocal */);
+    }
+
+    /**
+     * Component deactivator
+     *
+     * @param context The component context
+     * @throws Exception
+     */
+    @Deactivate
+    protected void deactivate(final ComponentContext context)
+            throws Exception {
+        if (session != null) {
+            try {
+                observationManager.removeEventListener(contentListener);
+                observationManager.removeEventListener(appsListener);
+            } catch (RepositoryException ew) {
+                LOG.error(ERROR, ew);
+            }
+            session.logout();
+            session = null;
+        }
+        invalidateAll();
+    }
+}
@@ -20,17 +20,21 @@ package danta.aem.templating;
 
 import com.day.cq.wcm.api.components.ComponentManager;
 import com.github.jknack.handlebars.Context;
-import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
-import com.google.common.collect.Sets;
+import com.github.jknack.handlebars.io.TemplateLoader;
+import danta.aem.configuration.DantaComponentRegistry;
+import danta.aem.contextprocessors.domprocesors.StreamingDOMProcessor;
+import danta.aem.services.ServiceResourceResolverProvider;
+import danta.aem.util.GeneralRequestObjects;
 import danta.api.ContextProcessorEngine;
 import danta.api.DOMProcessorEngine;
 import danta.api.configuration.Configuration;
 import danta.api.configuration.ConfigurationProvider;
-import danta.api.configuration.Mode;
 import danta.core.execution.ExecutionContextImpl;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestPathInfo;
 import org.apache.sling.api.resource.*;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.scripting.api.AbstractSlingScriptEngine;
@@ -42,16 +46,30 @@ import org.slf4j.LoggerFactory;
 import javax.script.Bindings;
 import javax.script.ScriptContext;
 import javax.script.ScriptException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static danta.Constants.*;
+import static danta.aem.Constants.ANONYMOUS_USER_ID;
+import static danta.aem.Constants.RENDER_CACHE_CONFIG_PROPERTY_NAME;
+import static danta.aem.Constants.RENDER_CACHE_DEPENDENCIES_CONFIG_PROPERTY_NAME;
+import static danta.aem.Constants.RENDER_PHASE_CONTEXT_PROCESSORS;
+import static danta.aem.Constants.RENDER_PHASE_DOM_PARSE;
+import static danta.aem.Constants.RENDER_PHASE_DOM_PROCESS;
+import static danta.aem.Constants.RENDER_PHASE_DOM_SERIALIZE;
+import static danta.aem.Constants.RENDER_PHASE_INCLUDES_STITCH;
+import static danta.aem.Constants.RENDER_PHASE_OUTPUT_WRITE;
+import static danta.aem.Constants.RENDER_PHASE_SERVICE_LOGIN;
+import static danta.aem.Constants.RENDER_PHASE_TEMPLATE_APPLY;
+import static danta.aem.Constants.RENDER_PHASE_TEMPLATE_COMPILE;
 import static danta.aem.Constants.SLING_HTTP_REQUEST;
-import static danta.core.Constants.XK_COMPONENT_CATEGORY;
 
 /**
  * Danta script engine
@@ -64,26 +82,38 @@ public class DantaScriptEngine
         extends AbstractSlingScriptEngine {
 
     protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
-    private static final String CONFIG_SERVICE = "config-service";
+
+    private static final char RENDER_CACHE_KEY_SEPARATOR = '|';
 
     private ConfigurationProvider configurationProvider;
-    private ResourceResolverFactory resourceResolverFactory;
+    private DantaComponentRegistry dantaComponentRegistry;
+    private ServiceResourceResolverProvider serviceResourceResolverProvider;
     private ContextProcessorEngine contextProcessorEngine;
     private DOMProcessorEngine domProcessorEngine;
-    private HelperFunctionBind helperFunctionBind;
+    private DantaScriptEngineFactory dantaScriptEngineFactory;
+    private DantaTemplateCache templateCache;
+    private DantaRenderCache renderCache;
+    private RenderMetrics renderMetrics;
 
     public DantaScriptEngine(DantaScriptEngineFactory dantaScriptEngineFactory,
                               ContextProcessorEngine contextProcessorEngine,
                               ConfigurationProvider configurationProvider,
-                              ResourceResolverFactory resourceResolverFactory,
+                              DantaComponentRegistry dantaComponentRegistry,
+                              ServiceResourceResolverProvider serviceResourceResolverProvider,
                               DOMProcessorEngine domProcessorEngine,
-                              HelperFunctionBind helperFunctionBind) {
+                              DantaTemplateCache templateCache,
+                              DantaRenderCache renderCache,
+                              RenderMetrics renderMetrics) {
         super(dantaScriptEngineFactory);
         this.configurationProvider = configurationProvider;
-        this.resourceResolverFactory = resourceResolverFactory;
+        this.dantaComponentRegistry = dantaComponentRegistry;
+        this.serviceResourceResolverProvider = serviceResourceResolverProvider;
         this.contextProcessorEngine = contextProcessorEngine;
         this.domProcessorEngine = domProcessorEngine;
-        this.helperFunctionBind = helperFunctionBind;
+        this.dantaScriptEngineFactory = dantaScriptEngineFactory;
+        this.templateCache = templateCache;
+        this.renderCache = renderCache;
+        this.renderMetrics = renderMetrics;
     }
 
     public Object eval(Reader reader, ScriptContext scriptContext) throws ScriptException {
@@ -99,9 +129,9 @@ public class DantaScriptEngine
 
             if (request.getMethod().equalsIgnoreCase(HTTP_GET) && configurationProvider.hasConfig(resource.getResourceType()) && !isUnstructuredResource(resource)) {
                 String requestedResourcePath = resource.getPath();
-                Map<String, Object> authenticationInfo = new HashMap<String, Object>();
-                authenticationInfo.put(ResourceResolverFactory.SUBSERVICE, CONFIG_SERVICE);
-                adminResourceResolver = resourceResolverFactory.getServiceResourceResolver(authenticationInfo);
+                RenderTimer timer = renderMetrics.start(resource.getResourceType());
+                adminResourceResolver = serviceResourceResolverProvider.acquire();
+                timer.lap(RENDER_PHASE_SERVICE_LOGIN);
 
                 // Uplevel the privileges so we're sure we can access Templates
                 if (!ResourceUtil.isSyntheticResource(resource)) {
@@ -113,14 +143,23 @@ public class DantaScriptEngine
                     resource = syntheticResource;
                 }
 
-                List<HelperFunction> helpers = helperFunctionBind.getHelpers();
-
-                Handlebars handlebars = new Handlebars(new HTMLResourceBasedTemplateLoader(resource));
-                handlebars.infiniteLoops(true);
-                for (HelperFunction helper : helpers) {
-                    handlebars.setStartDelimiter(START_DELIM);
-                    handlebars.setEndDelimiter(END_DELIM);
-                    handlebars.registerHelper(helper.name(), helper);
+                String renderCacheKey = renderCacheKey(request, resource);
+                RenderSideEffects.Recorder sideEffectsRecorder = null;
+                long renderCacheGeneration = 0;
+                if (renderCacheKey != null) {
+                    RenderedOutput cachedOutput = renderCache.get(renderCacheKey);
+                    if (cachedOutput != null) {
+                        timer.mark();
+                        // The context processors are skipped: apply the request attribute changes they made instead
+                        cachedOutput.getSideEffects().replay(request);
+                        response.getWriter().write(cachedOutput.getHtml());
+                        timer.lap(RENDER_PHASE_OUTPUT_WRITE);
+                        timer.stop();
+                        return null;
+                    }
+                    // Read before the context processors, so the output isn't stored if its content changes meanwhile
+                    renderCacheGeneration = renderCache.getGeneration();
+                    sideEffectsRecorder = RenderSideEffects.record(request, TEMPLATE_CONTENT_MODEL_ATTR_NAME);
                 }
 
                 TemplateContentModelImpl contentModel = (TemplateContentModelImpl) request.getAttribute(TEMPLATE_CONTENT_MODEL_ATTR_NAME);
@@ -135,33 +174,59 @@ public class DantaScriptEngine
                 executionContext.put(SLING_HTTP_REQUEST, request);
                 executionContext.put(ENGINE_RESOURCE, resource.getResourceType());
 
+                timer.mark();
                 List<String> currentProcessorChain = contextProcessorEngine.execute(executionContext, contentModel);
+                timer.lap(RENDER_PHASE_CONTEXT_PROCESSORS);
+                timer.processors(currentProcessorChain);
 
                 Map<String, Object> statisticsMap = new HashMap<>();
                 statisticsMap.put(PROCESSORS, currentProcessorChain);
                 contentModel.set(STATISTICS_KEY, statisticsMap); //Add to ContentModel for later inspection by Components
 
-                DantaTemplateSourceReader templateSourceReader = new DantaTemplateSourceReader();
-                String unprocessedResponse = templateSourceReader.contentReader(reader);
-                String outputHTML = unprocessedResponse;
-
-                Template template = handlebars.compileInline(unprocessedResponse);
-                Context handlebarsContext = contentModel.handlebarsContext();
-                outputHTML = template.apply(handlebarsContext);
-
-                if (hasPageAndHTMLPageCategories(adminResourceResolver, resource)) {
-                    Document document = Jsoup.parse(outputHTML);
-                    domProcessorEngine.execute(executionContext, document);
-                    outputHTML = document.html();
-                }
-
-                contentModel.retractScope();
-                PrintWriter out = response.getWriter();
-                out.write(outputHTML);
-
-                if (adminResourceResolver != null) {
-                    adminResourceResolver.close();
+                boolean pageRender = hasPageAndHTMLPageCategories(resource);
+                // Streaming is only possible for components without DOM processing whose output isn't cached
+                boolean buffered = pageRender || renderCacheKey != null || !dantaScriptEngineFactory.isStreamingEnabled();
+                DeferredIncludes deferredIncludes = buffered ? dantaScriptEngineFactory.newDeferredIncludes() : null;
+                TemplateLoader previousLoader = RenderScopedTemplateLoader.bind(new HTMLResourceBasedTemplateLoader(resource, templateCache));
+                DeferredIncludes previousDeferredIncludes = DeferredIncludes.bind(deferredIncludes);
+                try {
+                    timer.mark();
+                    Template template = dantaScriptEngineFactory.getTemplate(reader, slingBindings.getSling().getScript().getScriptResource());
+                    Context handlebarsContext = contentModel.handlebarsContext();
+                    timer.lap(RENDER_PHASE_TEMPLATE_COMPILE);
+                    if (!buffered) {
+                        // No DOM processing for this component, so there is no need to hold the whole output in memory
+                        streamTemplate(template, handlebarsContext, response.getWriter());
+                        timer.lap(RENDER_PHASE_TEMPLATE_APPLY);
+                        contentModel.retractScope();
+                    } else {
+                        String outputHTML = template.apply(handlebarsContext);
+                        timer.lap(RENDER_PHASE_TEMPLATE_APPLY);
+                        if (deferredIncludes != null && !deferredIncludes.isEmpty()) {
+                            outputHTML = deferredIncludes.stitch(outputHTML);
+                            timer.lap(RENDER_PHASE_INCLUDES_STITCH);
+                        }
+                        if (pageRender) {
+                            processPage(executionContext, outputHTML, response.getWriter(), timer);
+                            contentModel.retractScope();
+                        } else {
+                            contentModel.retractScope();
+                            PrintWriter out = response.getWriter();
+                            timer.mark();
+                            out.write(outputHTML);
+                            timer.lap(RENDER_PHASE_OUTPUT_WRITE);
+                            if (renderCacheKey != null) {
+                                renderCache.put(renderCacheKey, new RenderedOutput(outputHTML,
+                                        sideEffectsRecorder.stop(request),
+                                        renderDependencies(adminResourceResolver, resource)), renderCacheGeneration);
+                            }
+                        }
+                    }
+                } finally {
+                    DeferredIncludes.restore(previousDeferredIncludes);
+                    RenderScopedTemplateLoader.restore(previousLoader);
                 }
+                timer.stop();
 
             } else {
                 LOG.debug("{} is not a Danta component", resource.getPath());
@@ -171,35 +236,140 @@ public class DantaScriptEngine
             throw re;
         } catch (Exception ew) {
             throw new ScriptException(ew);
+        } finally {
+            serviceResourceResolverProvider.release(adminResourceResolver);
         }
 
         return null;
     }
 
     /**
-     * This method validate if the component has or inherits the categories 'page' and 'htmlpage' in the xk.config node.
+     * This method returns the render cache key of a component include, or null when its output must not be cached:
+     * the render cache is disabled, the component doesn't set xk_renderCache in its xk.config, the request isn't
+     * anonymous (the key has no user dimension), has a query string or is in edit or design mode. The key holds the
+     * resource path and type, the selectors, extension and suffix of the request and the WCM mode.
      *
-     * @param resolver
-     * @param resource
+     * @param request The request
+     * @param resource The resource being rendered
      */
-    private boolean hasPageAndHTMLPageCategories(ResourceResolver resolver, Resource resource)
+    private String renderCacheKey(SlingHttpServletRequest request, Resource resource)
             throws Exception {
+        if (!renderCache.isEnabled() || request.getQueryString() != null
+                || !ANONYMOUS_USER_ID.equals(request.getResourceResolver().getUserID())
+                || GeneralRequestObjects.isEditOrDesignMode(request)) {
+            return null;
+        }
+        Configuration configuration = configurationProvider.getFor(resource.getResourceType());
+        if (!Boolean.valueOf(configuration.asString(RENDER_CACHE_CONFIG_PROPERTY_NAME))) {
+            return null;
+        }
+        RequestPathInfo requestPathInfo = request.getRequestPathInfo();
+        return resource.getPath() + RENDER_CACHE_KEY_SEPARATOR + resource.getResourceType()
+                + RENDER_CACHE_KEY_SEPARATOR + StringUtils.defaultString(requestPathInfo.getSelectorString())
+                + RENDER_CACHE_KEY_SEPARATOR + StringUtils.defaultString(requestPathInfo.getExtension())
+                + RENDER_CACHE_KEY_SEPARATOR + StringUtils.defaultString(requestPathInfo.getSuffix())
+                + RENDER_CACHE_KEY_SEPARATOR + GeneralRequestObjects.getWCMModeString(request);
+    }
 
-        boolean hasPageAndHTMLPageCategories = false;
-        if (resource != null) {
-            ComponentManager componentManager = resolver.adaptTo(ComponentManager.class);
-            com.day.cq.wcm.api.components.Component component = componentManager.getComponentOfResource(resource);
+    /**
+     * This method returns the paths the output of a component include is rendered from: the resource itself, the
+     * definitions of its component and super components, and the paths its xk.config declares in
+     * xk_renderCacheDependencies (e.g. the site root, for output built from other pages).
+     *
+     * @param resolver The service resource resolver
+     * @param resource The resource being rendered
+     */
+    private Collection<String> renderDependencies(ResourceResolver resolver, Resource resource)
+            throws Exception {
+        List<String> dependencies = new ArrayList<>();
+        dependencies.add(resource.getPath());
+        Configuration configuration = configurationProvider.getFor(resource.getResourceType());
+        for (String dependency : configuration.asStrings(RENDER_CACHE_DEPENDENCIES_CONFIG_PROPERTY_NAME)) {
+            if (StringUtils.isNotBlank(dependency)) {
+                dependencies.add(StringUtils.removeEnd(dependency.trim(), "/"));
+            }
+        }
+        ComponentManager componentManager = resolver.adaptTo(ComponentManager.class);
+        com.day.cq.wcm.api.components.Component component = componentManager.getComponentOfResource(resource);
+        while (component != null) {
+            dependencies.add(component.getPath());
+            component = component.getSuperComponent();
+        }
+        return dependencies;
+    }
 
-            if (component != null) {
-                Configuration configuration = configurationProvider.getFor(resource.getResourceType());
-                Collection<String> compCategories = configuration.asStrings(XK_COMPONENT_CATEGORY, Mode.MERGE);
+    /**
+     * This method runs the DOM processors over the page output and writes the result. The page is written as is when
+     * every DOM processor declares its marker attributes and none of them shows up in the output.
+     *
+     * @param executionContext The execution context
+     * @param outputHTML The rendered page
+     * @param out The response writer
+     * @param timer The render timer
+     */
+    private void processPage(ExecutionContextImpl executionContext, String outputHTML, Writer out, RenderTimer timer)
+            throws Exception {
+        timer.mark();
+        String[] markers = dantaScriptEngineFactory.getDOMProcessorMarkers();
+        if (markers != null && !containsAny(outputHTML, markers)) {
+            timer.lap(RENDER_PHASE_DOM_PARSE);
+            out.write(outputHTML);
+            timer.lap(RENDER_PHASE_OUTPUT_WRITE);
+            return;
+        }
+        List<StreamingDOMProcessor> streamingDOMProcessors = dantaScriptEngineFactory.getStreamingDOMProcessors();
+        if (streamingDOMProcessors != null) {
+            new StreamingDOMPipeline(executionContext, streamingDOMProcessors, timer).process(outputHTML, out);
+        } else {
+            Document document = Jsoup.parse(outputHTML);
+            timer.lap(RENDER_PHASE_DOM_PARSE);
+            domProcessorEngine.execute(executionContext, document);
+            timer.lap(RENDER_PHASE_DOM_PROCESS);
+            String html = document.html();
+            timer.lap(RENDER_PHASE_DOM_SERIALIZE);
+            out.write(html);
+            timer.lap(RENDER_PHASE_OUTPUT_WRITE);
+        }
+    }
 
-                if (compCategories.containsAll(Sets.newHashSet(PAGE_CATEGORY, HTML_PAGE_CATEGORY))) {
-                    hasPageAndHTMLPageCategories = true;
-                }
+    private static boolean containsAny(String outputHTML, String[] markers) {
+        for (String marker : markers) {
+            if (outputHTML.indexOf(marker) >= 0) {
+                return true;
             }
         }
-        return hasPageAndHTMLPageCategories;
+        return false;
+    }
+
+    /**
+     * This method applies the template straight into the response writer, through a bounded buffer that is written
+     * out in chunks when a buffer size is configured.
+     *
+     * @param template The compiled template
+     * @param handlebarsContext The handlebars context
+     * @param out The response writer
+     */
+    private void streamTemplate(Template template, Context handlebarsContext, Writer out)
+            throws IOException {
+        int bufferSize = dantaScriptEngineFactory.getStreamingBufferSize();
+        if (bufferSize > 0) {
+            ChunkedWriter chunkedWriter = new ChunkedWriter(out, bufferSize);
+            template.apply(handlebarsContext, chunkedWriter);
+            chunkedWriter.drain();
+        } else {
+            template.apply(handlebarsContext, out);
+        }
+    }
+
+    /**
+     * This method validate if the component has or inherits the categories 'page' and 'htmlpage' in the xk.config node.
+     * The flag is cached per resource type by the component registry.
+     *
+     * @param resource
+     */
+    private boolean hasPageAndHTMLPageCategories(Resource resource)
+            throws Exception {
+        return resource != null && dantaComponentRegistry.isPageComponent(resource.getResourceType());
     }
 
     /**
@@ -18,16 +18,38 @@
 
 package danta.aem.templating;
 
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Template;
+import danta.aem.configuration.DantaComponentRegistry;
+import danta.aem.contextprocessors.domprocesors.StreamingDOMProcessor;
+import danta.aem.services.ServiceResourceResolverProvider;
 import danta.api.ContextProcessorEngine;
+import danta.api.DOMProcessor;
 import danta.api.DOMProcessorEngine;
 import danta.api.configuration.ConfigurationProvider;
 import org.apache.felix.scr.annotations.*;
-import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.scripting.api.AbstractScriptEngineFactory;
+import org.osgi.service.component.ComponentContext;
 
 import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Dictionary;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static danta.Constants.END_DELIM;
+import static danta.Constants.START_DELIM;
 
 
 /**
@@ -43,10 +65,56 @@ import java.util.List;
         immediate = true,
         metatype = true
 )
-@Service
+@Service({ScriptEngineFactory.class, DantaScriptEngineFactory.class})
+@Reference(
+        name = "domProcessors",
+        referenceInterface = DOMProcessor.class,
+        policy = ReferencePolicy.DYNAMIC,
+        cardinality = ReferenceCardinality.OPTIONAL_MULTIPLE
+)
 @Properties({
         @Property(name = "service.description", value = "Scripting engine for Danta"),
-        @Property(name = "service.ranking", intValue = 0, propertyPrivate = false)
+        @Property(name = "service.ranking", intValue = 0, propertyPrivate = false),
+        @Property(
+                label = "Streaming render",
+                description = "Apply the templates of components without DOM processing (not page/htmlpage) straight into the response. " +
+                        "A template error then leaves the output written so far in the page, instead of failing before any output",
+                name = DantaScriptEngineFactory.STREAMING_ENABLED_PN,
+                boolValue = false,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Streaming buffer size",
+                description = "Size in characters of the chunks written to the response in streaming mode. 0 writes through without buffering",
+                name = DantaScriptEngineFactory.STREAMING_BUFFER_SIZE_PN,
+                intValue = DantaScriptEngineFactory.DEFAULT_STREAMING_BUFFER_SIZE,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Streaming DOM processing",
+                description = "Rewrite page/htmlpage output in a single pass, parsing only the elements the DOM processors " +
+                        "declare interest in. Only applies when every registered DOM processor is a StreamingDOMProcessor; " +
+                        "otherwise the full page is parsed",
+                name = DantaScriptEngineFactory.STREAMING_DOM_ENABLED_PN,
+                boolValue = false,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Parallel includes",
+                description = "Render includes flagged with parallel=true concurrently on the include executor (publish " +
+                        "only). A parallel include is rendered as a request of its own, so it doesn't see the content " +
+                        "model of the including component",
+                name = DantaScriptEngineFactory.PARALLEL_INCLUDES_ENABLED_PN,
+                boolValue = false,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Parallel includes timeout",
+                description = "Maximum time in milliseconds a render waits for its parallel includes",
+                name = DantaScriptEngineFactory.PARALLEL_INCLUDES_TIMEOUT_PN,
+                longValue = DantaScriptEngineFactory.DEFAULT_PARALLEL_INCLUDES_TIMEOUT,
+                propertyPrivate = false
+        )
 })
 public class DantaScriptEngineFactory
         extends AbstractScriptEngineFactory {
@@ -55,6 +123,13 @@ public class DantaScriptEngineFactory
     protected final static String SCRIPT_NAME = "danta";
     protected final static String LANGUAGE_VERSION = "1.0";
     protected final static String LX_EXT = "d";
+    protected final static String STREAMING_ENABLED_PN = "streaming.enabled";
+    protected final static String STREAMING_BUFFER_SIZE_PN = "streaming.bufferSize";
+    protected final static int DEFAULT_STREAMING_BUFFER_SIZE = 8192;
+    protected final static String STREAMING_DOM_ENABLED_PN = "streaming.domProcessing";
+    protected final static String PARALLEL_INCLUDES_ENABLED_PN = "includes.parallel";
+    protected final static String PARALLEL_INCLUDES_TIMEOUT_PN = "includes.parallelTimeout";
+    protected final static long DEFAULT_PARALLEL_INCLUDES_TIMEOUT = 10000;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
     private ContextProcessorEngine contextProcessorEngine;
@@ -63,7 +138,10 @@ public class DantaScriptEngineFactory
     private ConfigurationProvider configurationProvider;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
-    private ResourceResolverFactory resourceResolverFactory;
+    private DantaComponentRegistry dantaComponentRegistry;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private ServiceResourceResolverProvider serviceResourceResolverProvider;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
     private DOMProcessorEngine domProcessorEngine;
@@ -71,11 +149,90 @@ public class DantaScriptEngineFactory
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
     private HelperFunctionBind helperFunctionBind;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private DantaTemplateCache templateCache;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private DantaRenderCache renderCache;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
+    private RenderMetrics renderMetrics;
+
+    private volatile HandlebarsRegistry handlebarsRegistry;
+    private boolean streamingEnabled = false;
+    private int streamingBufferSize = DEFAULT_STREAMING_BUFFER_SIZE;
+    private boolean streamingDOMEnabled = false;
+    private boolean parallelIncludesEnabled = false;
+    private long parallelIncludesTimeout = DEFAULT_PARALLEL_INCLUDES_TIMEOUT;
+    private final List<DOMProcessor> domProcessors = new ArrayList<>();
+    private volatile List<StreamingDOMProcessor> streamingDOMProcessors = Collections.emptyList();
+    private volatile String[] domProcessorMarkers = new String[0];
+
     public DantaScriptEngineFactory() {
         setExtensions(LX_EXT);
         setNames(SCRIPT_NAME);
     }
 
+    @Activate
+    protected void activate(ComponentContext componentContext) {
+        Dictionary properties = componentContext.getProperties();
+        streamingEnabled = PropertiesUtil.toBoolean(properties.get(STREAMING_ENABLED_PN), false);
+        streamingBufferSize = PropertiesUtil.toInteger(properties.get(STREAMING_BUFFER_SIZE_PN), DEFAULT_STREAMING_BUFFER_SIZE);
+        streamingDOMEnabled = PropertiesUtil.toBoolean(properties.get(STREAMING_DOM_ENABLED_PN), false);
+        parallelIncludesEnabled = PropertiesUtil.toBoolean(properties.get(PARALLEL_INCLUDES_ENABLED_PN), false);
+        parallelIncludesTimeout = PropertiesUtil.toLong(properties.get(PARALLEL_INCLUDES_TIMEOUT_PN), DEFAULT_PARALLEL_INCLUDES_TIMEOUT);
+    }
+
+    protected void bindDomProcessors(final DOMProcessor domProcessor) {
+        synchronized (domProcessors) {
+            domProcessors.add(domProcessor);
+            streamingDOMProcessors = toStreamingDOMProcessors(domProcessors);
+            domProcessorMarkers = toMarkers(streamingDOMProcessors);
+        }
+    }
+
+    protected void unbindDomProcessors(final DOMProcessor domProcessor) {
+        synchronized (domProcessors) {
+            domProcessors.remove(domProcessor);
+            streamingDOMProcessors = toStreamingDOMProcessors(domProcessors);
+            domProcessorMarkers = toMarkers(streamingDOMProcessors);
+        }
+    }
+
+    /**
+     * @return The attributes declared by the processors, or null when some processor doesn't declare any
+     */
+    private static String[] toMarkers(List<StreamingDOMProcessor> processors) {
+        if (processors == null) {
+            return null;
+        }
+        Set<String> markers = new LinkedHashSet<>();
+        for (StreamingDOMProcessor processor : processors) {
+            markers.addAll(processor.attributes());
+        }
+        return markers.toArray(new String[markers.size()]);
+    }
+
+    /**
+     * @return The processors sorted by priority if all of them are StreamingDOMProcessors; else null
+     */
+    private static List<StreamingDOMProcessor> toStreamingDOMProcessors(List<DOMProcessor> domProcessors) {
+        List<StreamingDOMProcessor> processors = new ArrayList<>();
+        for (DOMProcessor domProcessor : domProcessors) {
+            if (!(domProcessor instanceof StreamingDOMProcessor)) {
+                return null;
+            }
+            processors.add((StreamingDOMProcessor) domProcessor);
+        }
+        Collections.sort(processors, new Comparator<StreamingDOMProcessor>() {
+            @Override
+            public int compare(StreamingDOMProcessor first, StreamingDOMProcessor second) {
+                return Integer.compare(second.priority(), first.priority());
+            }
+        });
+        return Collections.unmodifiableList(processors);
+    }
+
     @Override
     public String getLanguageName() {
         return SCRIPT_NAME;
@@ -103,10 +260,143 @@ public class DantaScriptEngineFactory
         return new DantaScriptEngine(this,
                 contextProcessorEngine,
                 configurationProvider,
-                resourceResolverFactory,
+                dantaComponentRegistry,
+                serviceResourceResolverProvider,
                 domProcessorEngine,
-                helperFunctionBind
+                templateCache,
+                renderCache,
+                renderMetrics
         );
     }
 
+    /**
+     * Returns the shared Handlebars instance along with its helper generation. The instance is rebuilt
+     * (copy-on-write) whenever the helper snapshot published by {@link HelperFunctionBind} changes, so a render never
+     * sees a half-updated set of helpers. Each rebuild starts a new generation; compiled templates and partials are
+     * cached per generation, so a render still holding the previous instance can't publish a template compiled with
+     * the previous helpers.
+     *
+     * @return The registry holding every registered helper
+     * @throws Exception
+     */
+    HandlebarsRegistry handlebarsRegistry()
+            throws Exception {
+        List<HelperFunction> helpers = helperFunctionBind.getHelpers();
+        HandlebarsRegistry registry = handlebarsRegistry;
+        if (registry == null || registry.helpers != helpers) {
+            synchronized (this) {
+                registry = handlebarsRegistry;
+                if (registry == null || registry.helpers != helpers) {
+                    long generation = (registry == null) ? 0 : registry.generation + 1;
+                    registry = new HandlebarsRegistry(helpers, generation, templateCache);
+                    handlebarsRegistry = registry;
+                    // Entries of previous generations can no longer be hit; drop them instead of waiting for eviction
+                    templateCache.invalidateAll();
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * This method returns the compiled template of the script, reading and compiling the script only when the
+     * template cache does not hold it for the script's current modification time and helper generation.
+     *
+     * @param reader The script reader
+     * @param scriptResource The script resource
+     */
+    Template getTemplate(final Reader reader, final Resource scriptResource)
+            throws Exception {
+        final HandlebarsRegistry registry = handlebarsRegistry();
+        long lastModified = scriptResource.getResourceMetadata().getModificationTime();
+        final boolean[] compiled = {false};
+        try {
+            return templateCache.get(scriptResource.getPath(), lastModified, registry.generation, new Callable<Template>() {
+                @Override
+                public Template call()
+                        throws Exception {
+                    compiled[0] = true;
+                    DantaTemplateSourceReader templateSourceReader = new DantaTemplateSourceReader();
+                    return registry.handlebars.compileInline(templateSourceReader.contentReader(reader));
+                }
+            });
+        } finally {
+            if (!compiled[0] && reader != null) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Compiles the given script into the template cache, unless it is already there, so the first render doesn't
+     * pay for it.
+     *
+     * @param scriptResource The script resource
+     * @throws Exception
+     */
+    public void precompile(final Resource scriptResource)
+            throws Exception {
+        InputStream inputStream = scriptResource.adaptTo(InputStream.class);
+        if (inputStream != null) {
+            getTemplate(new InputStreamReader(inputStream, StandardCharsets.UTF_8), scriptResource);
+        }
+    }
+
+    boolean isStreamingEnabled() {
+        return streamingEnabled;
+    }
+
+    int getStreamingBufferSize() {
+        return streamingBufferSize;
+    }
+
+    /**
+     * @return The deferred includes of a new buffered render, or null when parallel includes are disabled or the
+     * render is itself a parallel include (nested includes are rendered synchronously on the pool thread)
+     */
+    DeferredIncludes newDeferredIncludes() {
+        return (parallelIncludesEnabled && !DeferredIncludes.isParallelRender())
+                ? new DeferredIncludes(parallelIncludesTimeout) : null;
+    }
+
+    /**
+     * Marker attributes for the DOM processing pre-check. They only depend on the registered processors, so they are
+     * computed once per bind/unbind and shared by every page resource type.
+     *
+     * @return The marker attributes of every DOM processor, or null when the pre-check isn't possible
+     */
+    String[] getDOMProcessorMarkers() {
+        return domProcessorMarkers;
+    }
+
+    /**
+     * @return The DOM processors to run through the streaming pipeline, or null when the full page must be parsed
+     */
+    List<StreamingDOMProcessor> getStreamingDOMProcessors() {
+        return streamingDOMEnabled ? streamingDOMProcessors : null;
+    }
+
+    /**
+     * Inner class: Handlebars instance along with the helper snapshot and generation it was built from
+     */
+    static class HandlebarsRegistry {
+
+        private final List<HelperFunction> helpers;
+        private final long generation;
+        private final Handlebars handlebars;
+
+        private HandlebarsRegistry(List<HelperFunction> helpers, long generation, DantaTemplateCache templateCache) {
+            this.helpers = helpers;
+            this.generation = generation;
+            handlebars = new Handlebars(new RenderScopedTemplateLoader())
+                    .with(templateCache.partialTemplateCache(generation));
+            handlebars.infiniteLoops(true);
+            handlebars.setStartDelimiter(START_DELIM);
+            handlebars.setEndDelimiter(END_DELIM);
+            for (HelperFunction helper : helpers) {
+                handlebars.registerHelper(helper.name(), helper);
+            }
+        }
+    }
+
 }
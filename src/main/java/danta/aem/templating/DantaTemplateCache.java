@@ -0,0 +1,90 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.cache.TemplateCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Shared cache of compiled Danta templates, keyed by script path, last modification time and helper generation,
+ * along with the resolution and compiled forms of the partials they use. Compiled templates bind the helpers of the
+ * Handlebars instance that compiled them, hence the generation.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface DantaTemplateCache {
+
+    /**
+     * Returns the compiled template for the given script, compiling it on a miss.
+     *
+     * @param scriptPath The path of the script resource
+     * @param lastModified The last modification time of the script resource
+     * @param generation The generation of the helpers the compiler uses
+     * @param compiler Compiles the script when it is not cached yet
+     * @return The compiled template
+     * @throws Exception
+     */
+    public Template get(String scriptPath, long lastModified, long generation, Callable<Template> compiler)
+            throws Exception;
+
+    /**
+     * Returns the script path a partial location resolves to, resolving it on a miss. Unresolved locations are
+     * cached too, so a missing partial doesn't hit the repository on every render.
+     *
+     * @param scope The resource type relative locations are resolved against, or blank for absolute locations
+     * @param location The partial location as written in the template
+     * @param resolver Resolves the location to a script path, or to blank when it can't be resolved
+     * @return The script path, or blank when the location can't be resolved
+     * @throws Exception
+     */
+    public String resolvePartial(String scope, String location, Callable<String> resolver)
+            throws Exception;
+
+    /**
+     * @param generation The generation of the helpers of the Handlebars instance the cache is given to
+     * @return The Handlebars template cache holding the compiled partials of that generation
+     */
+    public TemplateCache partialTemplateCache(long generation);
+
+    /**
+     * Drops every cached template whose script is, contains or is contained in the given path.
+     *
+     * @param path The changed repository path
+     */
+    public void invalidate(String path);
+
+    /**
+     * Drops every cached template and partial.
+     */
+    public void invalidateAll();
+
+    /**
+     * @return The number of lookups served from the cache
+     */
+    public long hitCount();
+
+    /**
+     * @return The number of lookups that had to compile the script
+     */
+    public long missCount();
+}
@@ -0,0 +1,369 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import com.github.jknack.handlebars.Parser;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.cache.TemplateCache;
+import com.github.jknack.handlebars.io.TemplateSource;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.apache.sling.jcr.api.SlingRepository;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static danta.Constants.BLANK;
+import static danta.Constants.ERROR;
+import static danta.aem.Constants.APPS_ROOT;
+
+/**
+ * Compiled template cache implementer. Entries are bounded in number and dropped when the script
+ * (or any of its ancestors) changes under /apps, so package installs that keep the original
+ * jcr:lastModified are picked up as well. Unresolved partial locations are dropped on any change,
+ * since a new file anywhere in the super component chain may satisfy them.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component(
+        label = "Danta Template Cache",
+        description = "Caches compiled Danta templates by script path and modification time",
+        immediate = true,
+        metatype = true
+)
+@Service({DantaTemplateCache.class, EventListener.class})
+@Properties({
+        @Property(
+                label = "Maximum size",
+                description = "Maximum number of compiled templates, partials and partial locations to keep in memory",
+                name = DantaTemplateCacheImpl.MAX_SIZE_PN,
+                intValue = DantaTemplateCacheImpl.DEFAULT_MAX_SIZE,
+                propertyPrivate = false
+        )
+})
+public class DantaTemplateCacheImpl
+        implements DantaTemplateCache, EventListener {
+
+    protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    protected static final String MAX_SIZE_PN = "maxSize";
+    protected static final int DEFAULT_MAX_SIZE = 1000;
+    private static final String CONFIG_SERVICE = "config-service";
+    private static final char KEY_SEPARATOR = '@';
+
+    @Reference
+    private SlingRepository repository;
+
+    private Session session;
+    private ObservationManager observationManager;
+    private Cache<String, Template> templates = CacheBuilder.newBuilder().maximumSize(DEFAULT_MAX_SIZE).build();
+    private Cache<String, String> partialLocations = CacheBuilder.newBuilder().maximumSize(DEFAULT_MAX_SIZE).build();
+    private Cache<String, Template> partialTemplates = CacheBuilder.newBuilder().maximumSize(DEFAULT_MAX_SIZE).build();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Override
+    public Template get(String scriptPath, long lastModified, long generation, final Callable<Template> compiler)
+            throws Exception {
+        lookups.incrementAndGet();
+        try {
+            return templates.get(keyOf(scriptPath, lastModified, generation), new Callable<Template>() {
+                @Override
+                public Template call()
+                        throws Exception {
+                    misses.incrementAndGet();
+                    return compiler.call();
+                }
+            });
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : ee;
+        }
+    }
+
+    @Override
+    public String resolvePartial(String scope, String location, Callable<String> resolver)
+            throws Exception {
+        try {
+            return partialLocations.get(scope + KEY_SEPARATOR + location, resolver);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : ee;
+        }
+    }
+
+    @Override
+    public TemplateCache partialTemplateCache(long generation) {
+        return new PartialTemplateCache(generation);
+    }
+
+    @Override
+    public void invalidate(String path) {
+        for (String key : templates.asMap().keySet()) {
+            if (isRelated(scriptPathOf(key), path)) {
+                templates.invalidate(key);
+            }
+        }
+        for (Map.Entry<String, String> entry : partialLocations.asMap().entrySet()) {
+            String scriptPath = entry.getValue();
+            if (BLANK.equals(scriptPath) || isRelated(scriptPath, path)) {
+                partialLocations.invalidate(entry.getKey());
+            }
+        }
+        for (String key : partialTemplates.asMap().keySet()) {
+            if (isRelated(scriptPathOf(key), path)) {
+                partialTemplates.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        templates.invalidateAll();
+        partialLocations.invalidateAll();
+        partialTemplates.invalidateAll();
+    }
+
+    @Override
+    public long hitCount() {
+        return lookups.get() - misses.get();
+    }
+
+    @Override
+    public long missCount() {
+        return misses.get();
+    }
+
+    /**
+     * Builds the key of a template or partial from values only, so cached entries never hold on to a resource
+     */
+    private static String keyOf(String scriptPath, long lastModified, long generation) {
+        return scriptPath + KEY_SEPARATOR + lastModified + KEY_SEPARATOR + generation;
+    }
+
+    /**
+     * Strips the modification time and the generation from a template or partial key
+     */
+    private static String scriptPathOf(String key) {
+        int generationStart = key.lastIndexOf(KEY_SEPARATOR);
+        return key.substring(0, key.lastIndexOf(KEY_SEPARATOR, generationStart - 1));
+    }
+
+    /**
+     * Checks if the script path is, contains or is contained in the changed path
+     */
+    private boolean isRelated(String scriptPath, String path) {
+        return scriptPath.equals(path) || scriptPath.startsWith(path + "/") || path.startsWith(scriptPath + "/");
+    }
+
+    /**
+     * Trigger on event
+     *
+     * @param eventIterator The event iterator object
+     */
+    @Override
+    public void onEvent(EventIterator eventIterator) {
+        try {
+            while (eventIterator.hasNext()) {
+                Event event = eventIterator.nextEvent();
+                String path = event.getPath();
+                switch (event.getType()) {
+                    case Event.PROPERTY_REMOVED:
+                    case Event.PROPERTY_CHANGED:
+                    case Event.PROPERTY_ADDED:
+                        path = path.substring(0, path.lastIndexOf('/'));
+                        break;
+                    case Event.NODE_MOVED:
+                        Object srcAbsPath = event.getInfo().get("srcAbsPath");
+                        if (srcAbsPath != null) {
+                            invalidate(srcAbsPath.toString());
+                        }
+                        break;
+                    default:
+                }
+                invalidate(path);
+            }
+            LOG.debug("Template cache: {} hits, {} misses", hitCount(), missCount());
+        } catch (Exception ew) {
+            LOG.error(ERROR, ew);
+        }
+    }
+
+    /**
+     * Component activator
+     *
+     * @param componentContext The component context
+     * @throws Exception
+     */
+    @Activate
+    protected void activate(ComponentContext componentContext)
+            throws Exception {
+        int maxSize = PropertiesUtil.toInteger(componentContext.getProperties().get(MAX_SIZE_PN), DEFAULT_MAX_SIZE);
+        templates = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        partialLocations = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+        partialTemplates = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+
+        session = repository.loginService(CONFIG_SERVICE, null);
+        observationManager = session.getWorkspace().getObservationManager();
+        observationManager.addEventListener(
+                this,
+                Event.NODE_ADDED | Event.NODE_REMOVED | Event.NODE_MOVED | Event.PROPERTY_CHANGED | Event.PROPERTY_ADDED | Event.PROPERTY_REMOVED,
+                APPS_ROOT,
+                true /* isDeep */,
+                null /* uuid */,
+                null /* nodeTypeName */,
+                true /* noLocal */
+        );
+    }
+
+    /**
+     * Component deactivator
+     *
+     * @param context The component context
+     * @throws Exception
+     */
+    @Deactivate
+    protected void deactivate(final ComponentContext context)
+            throws Exception {
+        if (session != null) {
+            try {
+                observationManager.removeEventListener(this);
+            } catch (RepositoryException ew) {
+                LOG.error(ERROR, ew);
+            }
+            session.logout();
+            session = null;
+        }
+        invalidateAll();
+    }
+
+    /**
+     * Inner class: Handlebars view of the compiled partials of one helper generation. Partials are keyed by script
+     * path and modification time, and compiled from a detached copy of their content: the sources handed in by the
+     * loader hold request-scoped resources, which must not outlive the render.
+     */
+    private class PartialTemplateCache
+            implements TemplateCache {
+
+        private final long generation;
+
+        private PartialTemplateCache(long generation) {
+            this.generation = generation;
+        }
+
+        @Override
+        public void clear() {
+            partialTemplates.invalidateAll();
+        }
+
+        @Override
+        public void evict(TemplateSource source) {
+            partialTemplates.invalidate(keyOf(source.filename(), source.lastModified(), generation));
+        }
+
+        @Override
+        public Template get(final TemplateSource source, final Parser parser)
+                throws IOException {
+            try {
+                String key = keyOf(source.filename(), source.lastModified(), generation);
+                return partialTemplates.get(key, new Callable<Template>() {
+                    @Override
+                    public Template call()
+                            throws Exception {
+                        return parser.parse(new DetachedTemplateSource(source));
+                    }
+                });
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+            }
+        }
+
+        /**
+         * Partials are keyed by modification time, so there is nothing to reload
+         */
+        public TemplateCache setReload(boolean reload) {
+            return this;
+        }
+    }
+
+    /**
+     * Inner class: value-only template source, with the content read up front
+     */
+    private static class DetachedTemplateSource
+            implements TemplateSource {
+
+        private final String filename;
+        private final long lastModified;
+        private final String content;
+
+        private DetachedTemplateSource(TemplateSource source)
+                throws IOException {
+            filename = source.filename();
+            lastModified = source.lastModified();
+            content = source.content();
+        }
+
+        @Override
+        public String content() {
+            return content;
+        }
+
+        @Override
+        public String filename() {
+            return filename;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof DetachedTemplateSource))
+                return false;
+            DetachedTemplateSource that = (DetachedTemplateSource) obj;
+            return lastModified == that.lastModified && filename.equals(that.filename);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * filename.hashCode() + (int) (lastModified ^ (lastModified >>> 32));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static danta.Constants.BLANK;
+
+/**
+ * The includes of a render that are being rendered on other threads. The include helper leaves a placeholder
+ * in the template output for each of them, and the script engine replaces the placeholders with the rendered
+ * includes once the template has been applied, in document order.
+ * <p>
+ * An include the executor rejects, or hasn't started by the time its placeholder is stitched, is rendered on the
+ * request thread instead, so a saturated executor slows a page down rather than leaving sections empty. Renders
+ * running on the executor never defer includes of their own: a pool thread waiting on the same pool could starve it.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+final class DeferredIncludes {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeferredIncludes.class);
+
+    private static final ThreadLocal<DeferredIncludes> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PARALLEL_RENDER = new ThreadLocal<>();
+    private static final String PLACEHOLDER_END = "-->";
+
+    private final String placeholderPrefix =
+            "<!--danta-include:" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ":";
+    private final List<Pending> includes = new ArrayList<>();
+    private final long timeout;
+
+    /**
+     * @param timeout The maximum time, in milliseconds, to wait for the includes once the template is applied
+     */
+    DeferredIncludes(final long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Binds the deferred includes of the render that is about to start to the current thread.
+     *
+     * @param deferredIncludes The deferred includes, or null if includes must be rendered synchronously
+     * @return The previously bound deferred includes, to be passed to {@link #restore(DeferredIncludes)}
+     */
+    static DeferredIncludes bind(DeferredIncludes deferredIncludes) {
+        DeferredIncludes previous = CURRENT.get();
+        CURRENT.set(deferredIncludes);
+        return previous;
+    }
+
+    /**
+     * Restores the deferred includes that were bound before the current render.
+     *
+     * @param previous The deferred includes returned by {@link #bind(DeferredIncludes)}
+     */
+    static void restore(DeferredIncludes previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * @return The deferred includes of the render running on the current thread, or null
+     */
+    static DeferredIncludes current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return true if the current thread is rendering a parallel include
+     */
+    static boolean isParallelRender() {
+        return PARALLEL_RENDER.get() != null;
+    }
+
+    /**
+     * Submits an include to the executor.
+     *
+     * @param include The include
+     * @param executor The include executor
+     * @return The placeholder to output in its place, or null when the executor rejected the include and it must be
+     * rendered on the request thread
+     */
+    String defer(final Include include, ExecutorService executor) {
+        final AtomicBoolean claimed = new AtomicBoolean();
+        Future<String> future;
+        try {
+            future = executor.submit(new Callable<String>() {
+                @Override
+                public String call()
+                        throws Exception {
+                    if (!claimed.compareAndSet(false, true)) {
+                        // Already rendered on the request thread
+                        return BLANK;
+                    }
+                    PARALLEL_RENDER.set(Boolean.TRUE);
+                    try {
+                        return include.renderInParallel();
+                    } finally {
+                        PARALLEL_RENDER.remove();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            include.discard();
+            return null;
+        }
+        includes.add(new Pending(include, claimed, future));
+        return placeholderPrefix + (includes.size() - 1) + PLACEHOLDER_END;
+    }
+
+    boolean isEmpty() {
+        return includes.isEmpty();
+    }
+
+    /**
+     * Replaces the placeholders with the rendered includes in document order. Includes the executor hasn't started
+     * yet are rendered right away on the current thread; the others are waited for. Includes that fail or time out
+     * are logged and left empty.
+     *
+     * @param html The template output
+     * @return The template output with the includes in place
+     */
+    String stitch(String html) {
+        StringBuilder stitched = new StringBuilder(html.length());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        int from = 0;
+        int start;
+        while ((start = html.indexOf(placeholderPrefix, from)) >= 0) {
+            int end = html.indexOf(PLACEHOLDER_END, start);
+            stitched.append(html, from, start);
+            int index = Integer.parseInt(html.substring(start + placeholderPrefix.length(), end));
+            stitched.append(includes.get(index).await(deadline));
+            from = end + PLACEHOLDER_END.length();
+        }
+        stitched.append(html, from, html.length());
+        for (Pending include : includes) {
+            include.abandon();
+        }
+        return stitched.toString();
+    }
+
+    /**
+     * An include that can be rendered either on the executor or on the request thread.
+     */
+    abstract static class Include {
+
+        /**
+         * Renders the include on the executor. Releases whatever {@link #discard()} would.
+         */
+        abstract String renderInParallel()
+                throws Exception;
+
+        /**
+         * Renders the include on the request thread.
+         */
+        abstract String render()
+                throws Exception;
+
+        /**
+         * Releases the resources held for the parallel render, once it is known it won't run.
+         */
+        void discard() {
+        }
+    }
+
+    /**
+     * Inner class: an include submitted to the executor
+     */
+    private final class Pending {
+
+        private final Include include;
+        private final AtomicBoolean claimed;
+        private final Future<String> future;
+
+        private Pending(Include include, AtomicBoolean claimed, Future<String> future) {
+            this.include = include;
+            this.claimed = claimed;
+            this.future = future;
+        }
+
+        private String await(long deadline) {
+            if (claimed.compareAndSet(false, true)) {
+                // Still queued: render it here rather than wait for a pool thread
+                future.cancel(false);
+                include.discard();
+                try {
+                    return include.render();
+                } catch (Exception ew) {
+                    LOG.error("Include failed", ew);
+                    return BLANK;
+                }
+            }
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException te) {
+                LOG.error("Parallel include timed out after {} ms", timeout);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (Exception ew) {
+                LOG.error("Parallel include failed", ew);
+            }
+            return BLANK;
+        }
+
+        /**
+         * Cancels the include, releasing its resources if it never started.
+         */
+        private void abandon() {
+            if (claimed.compareAndSet(false, true)) {
+                include.discard();
+            }
+            future.cancel(true);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import java.io.*;
 import java.util.Calendar;
+import java.util.concurrent.Callable;
 
 import static danta.Constants.BLANK;
 import static danta.Constants.HTML_EXT;
@@ -51,24 +52,46 @@ public class HTMLResourceBasedTemplateLoader
     protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
     protected Resource resource;
     protected Component component;
+    protected DantaTemplateCache templateCache;
     protected String prefix = "";
     protected String suffix = "";
 
     public HTMLResourceBasedTemplateLoader(Resource resource)
             throws Exception {
+        this(resource, null);
+    }
+
+    public HTMLResourceBasedTemplateLoader(Resource resource, DantaTemplateCache templateCache)
+            throws Exception {
         this.resource = resource;
-        this.component = WCMUtils.getComponent(resource);
+        this.templateCache = templateCache;
     }
 
     @Override
     public TemplateSource sourceAt(final String location)
             throws IOException {
         Resource scriptResource;
-        if (location.startsWith("/")) {
-            ResourceResolver resourceResolver = resource.getResourceResolver();
-            scriptResource = resourceResolver.getResource(ResourceUtil.normalize(location));
+        if (templateCache == null) {
+            scriptResource = findScriptResource(location);
         } else {
-            scriptResource = component.getLocalResource(resolve(location));
+            // Relative partials depend on the component of the resource, absolute ones don't
+            String scope = location.startsWith("/") ? BLANK : resource.getResourceType();
+            String scriptPath;
+            try {
+                scriptPath = templateCache.resolvePartial(scope, location, new Callable<String>() {
+                    @Override
+                    public String call()
+                            throws Exception {
+                        Resource found = findScriptResource(location);
+                        return (found == null || ResourceUtil.isNonExistingResource(found)) ? BLANK : found.getPath();
+                    }
+                });
+            } catch (IOException ioe) {
+                throw ioe;
+            } catch (Exception ew) {
+                throw new IOException(ew);
+            }
+            scriptResource = BLANK.equals(scriptPath) ? null : resource.getResourceResolver().getResource(scriptPath);
         }
         if (scriptResource == null || ResourceUtil.isNonExistingResource(scriptResource))
             throw new IOException("Unable to resolve " + location + " to a valid Resource path.");
@@ -76,6 +99,25 @@ public class HTMLResourceBasedTemplateLoader
             return new HTMLFileTemplateSource(scriptResource);
     }
 
+    private Resource findScriptResource(final String location) {
+        if (location.startsWith("/")) {
+            ResourceResolver resourceResolver = resource.getResourceResolver();
+            return resourceResolver.getResource(ResourceUtil.normalize(location));
+        } else {
+            return component().getLocalResource(resolve(location));
+        }
+    }
+
+    /**
+     * The component is only needed to resolve relative partials, so it is looked up on first use.
+     */
+    protected Component component() {
+        if (component == null) {
+            component = WCMUtils.getComponent(resource);
+        }
+        return component;
+    }
+
     @Override
     public String resolve(final String location) {
         String fullLocation = (location.startsWith("/")) ? ResourceUtil.normalize(location) : new StringBuilder(location).append(HTML_EXT).toString();
@@ -102,22 +144,35 @@ public class HTMLResourceBasedTemplateLoader
         this.suffix = suffix;
     }
 
+    /**
+     * Template source backed by a script resource. Two sources are equal when they point to the same file with the
+     * same modification time, which lets Handlebars reuse compiled partials until the file changes. The source holds
+     * the resource of the current render, so it must not be kept beyond it; {@link DantaTemplateCache} only keeps
+     * its path, modification time and content.
+     */
     public static class HTMLFileTemplateSource
             implements TemplateSource {
 
         private final Resource resource;
+        private final long lastModified;
 
         public HTMLFileTemplateSource(final Resource scriptResource)
                 throws FileNotFoundException {
             if (scriptResource == null || ResourceUtil.isNonExistingResource(scriptResource))
                 throw new FileNotFoundException("No file with the path " + scriptResource.getName() + " was found.");
             this.resource = scriptResource;
+            this.lastModified = readLastModified(scriptResource);
         }
 
         @Override
         public String content()
                 throws IOException {
-            return IOUtils.toString(inputStream(), "UTF-8");
+            InputStream inputStream = inputStream();
+            try {
+                return IOUtils.toString(inputStream, "UTF-8");
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
         }
 
         protected InputStream inputStream()
@@ -132,8 +187,30 @@ public class HTMLResourceBasedTemplateLoader
 
         @Override
         public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof HTMLFileTemplateSource))
+                return false;
+            HTMLFileTemplateSource that = (HTMLFileTemplateSource) obj;
+            return lastModified == that.lastModified && filename().equals(that.filename());
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * filename().hashCode() + (int) (lastModified ^ (lastModified >>> 32));
+        }
+
+        private static long readLastModified(final Resource scriptResource) {
+            long modificationTime = scriptResource.getResourceMetadata().getModificationTime();
+            if (modificationTime > 0)
+                return modificationTime;
             try {
-                return JcrUtils.getLastModified(resource.adaptTo(Node.class)).getTimeInMillis();
+                return JcrUtils.getLastModified(scriptResource.adaptTo(Node.class)).getTimeInMillis();
             } catch (RepositoryException ew) {
                 return Calendar.getInstance().getTimeInMillis();
             }
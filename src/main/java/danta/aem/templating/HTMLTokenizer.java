@@ -0,0 +1,262 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Single pass, non-validating HTML tokenizer. It doesn't build any tree: it reports every token to a
+ * {@link Handler} as offsets into the source, so untouched markup can be copied through as is.
+ * The contents of script, style, textarea and title elements are reported as plain characters.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class HTMLTokenizer {
+
+    private static final Set<String> RAW_TEXT_ELEMENTS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("script", "style", "textarea", "title")));
+
+    private static final Set<String> VOID_ELEMENTS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    "area", "base", "br", "col", "embed", "hr", "img", "input", "keygen", "link", "meta", "param",
+                    "source", "track", "wbr")));
+
+    /**
+     * Receives the tokens found by the tokenizer, in document order.
+     */
+    public interface Handler {
+
+        /**
+         * Text, comments, doctypes and anything else that is not an element tag.
+         */
+        public void characters(int start, int end)
+                throws IOException;
+
+        /**
+         * An element start tag.
+         *
+         * @param name The lower cased tag name
+         * @param attributeNames The lower cased names of the tag attributes
+         * @param selfClosing true if the tag can't have content (void element or ending with '/&gt;')
+         */
+        public void startTag(String name, Set<String> attributeNames, boolean selfClosing, int start, int end)
+                throws IOException;
+
+        /**
+         * An element end tag.
+         *
+         * @param name The lower cased tag name
+         */
+        public void endTag(String name, int start, int end)
+                throws IOException;
+    }
+
+    private final CharSequence source;
+    private final int length;
+    private boolean trailingSlash;
+
+    public HTMLTokenizer(final CharSequence source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * @param name A lower cased tag name
+     * @return true if the element never has content
+     */
+    public static boolean isVoidElement(String name) {
+        return VOID_ELEMENTS.contains(name);
+    }
+
+    /**
+     * Tokenizes the whole source, reporting every token to the handler.
+     *
+     * @param handler The token handler
+     * @throws IOException
+     */
+    public void tokenize(final Handler handler)
+            throws IOException {
+        int pos = 0;
+        int textStart = 0;
+        while (pos < length) {
+            if (source.charAt(pos) != '<' || pos + 1 >= length) {
+                pos++;
+                continue;
+            }
+            char next = source.charAt(pos + 1);
+            int tokenEnd;
+            if (next == '!' || next == '?') {
+                tokenEnd = startsWith(pos, "<!--") ? indexOf("-->", pos + 4, 3) : indexOf(">", pos + 2, 1);
+                flush(handler, textStart, pos);
+                handler.characters(pos, tokenEnd);
+            } else if (next == '/' && pos + 2 < length && isLetter(source.charAt(pos + 2))) {
+                int nameEnd = nameEnd(pos + 2);
+                tokenEnd = indexOf(">", nameEnd, 1);
+                flush(handler, textStart, pos);
+                handler.endTag(lowerCase(pos + 2, nameEnd), pos, tokenEnd);
+            } else if (isLetter(next)) {
+                int nameEnd = nameEnd(pos + 1);
+                String name = lowerCase(pos + 1, nameEnd);
+                Set<String> attributeNames = new HashSet<>();
+                tokenEnd = attributes(nameEnd, attributeNames);
+                boolean selfClosing = isVoidElement(name) || trailingSlash;
+                flush(handler, textStart, pos);
+                handler.startTag(name, attributeNames, selfClosing, pos, tokenEnd);
+                if (!selfClosing && RAW_TEXT_ELEMENTS.contains(name)) {
+                    int rawEnd = rawTextEnd(tokenEnd, name);
+                    if (rawEnd > tokenEnd) {
+                        handler.characters(tokenEnd, rawEnd);
+                    }
+                    tokenEnd = rawEnd;
+                }
+            } else {
+                pos++;
+                continue;
+            }
+            pos = tokenEnd;
+            textStart = tokenEnd;
+        }
+        flush(handler, textStart, length);
+    }
+
+    private void flush(Handler handler, int start, int end)
+            throws IOException {
+        if (end > start) {
+            handler.characters(start, end);
+        }
+    }
+
+    /**
+     * Skips the attributes of a start tag, collecting their names. Also records whether the tag ends with a '/'
+     * of its own, as opposed to one ending an unquoted attribute value (e.g. href=/x/).
+     *
+     * @return The offset right after the closing '&gt;'
+     */
+    private int attributes(int pos, Set<String> attributeNames) {
+        trailingSlash = false;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '>') {
+                return pos + 1;
+            }
+            // Only a '/' right before the '>' makes the tag self-closing
+            trailingSlash = (c == '/');
+            if (c == '=') {
+                pos = attributeValueEnd(pos + 1);
+            } else if (Character.isWhitespace(c) || c == '/' || c == '"' || c == '\'') {
+                pos++;
+            } else {
+                int nameStart = pos;
+                while (pos < length && !isAttributeNameEnd(source.charAt(pos))) {
+                    pos++;
+                }
+                attributeNames.add(lowerCase(nameStart, pos));
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return The offset right after a quoted or unquoted attribute value
+     */
+    private int attributeValueEnd(int pos) {
+        while (pos < length && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos < length && (source.charAt(pos) == '"' || source.charAt(pos) == '\'')) {
+            return indexOf(String.valueOf(source.charAt(pos)), pos + 1, 1);
+        }
+        while (pos < length && !Character.isWhitespace(source.charAt(pos)) && source.charAt(pos) != '>') {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * @return The offset of the end tag closing a raw text element, or the end of the source
+     */
+    private int rawTextEnd(int pos, String name) {
+        while (pos < length) {
+            int candidate = indexOf("</", pos, 0);
+            if (candidate >= length) {
+                return length;
+            }
+            int nameEnd = candidate + 2 + name.length();
+            if (nameEnd <= length && lowerCase(candidate + 2, nameEnd).equals(name)
+                    && (nameEnd == length || isAttributeNameEnd(source.charAt(nameEnd)))) {
+                return candidate;
+            }
+            pos = candidate + 2;
+        }
+        return length;
+    }
+
+    private int nameEnd(int pos) {
+        while (pos < length && !isAttributeNameEnd(source.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * @return The offset of the given string plus the skip, or the end of the source when it is not found
+     */
+    private int indexOf(String string, int from, int skip) {
+        for (int pos = from; pos <= length - string.length(); pos++) {
+            if (startsWith(pos, string)) {
+                return pos + skip;
+            }
+        }
+        return length;
+    }
+
+    private boolean startsWith(int pos, String string) {
+        if (pos + string.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (source.charAt(pos + i) != string.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String lowerCase(int start, int end) {
+        StringBuilder name = new StringBuilder(end - start);
+        for (int pos = start; pos < end; pos++) {
+            name.append(Character.toLowerCase(source.charAt(pos)));
+        }
+        return name.toString();
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAttributeNameEnd(char c) {
+        return Character.isWhitespace(c) || c == '>' || c == '/' || c == '=';
+    }
+}
@@ -29,7 +29,7 @@ import java.util.List;
  */
 public interface HelperFunctionBind {
     /**
-     * @return A List of the Helpers that were applied
+     * @return An immutable snapshot of the Helpers that were applied; a new snapshot is returned after every change
      */
     public List<HelperFunction> getHelpers()
             throws Exception;
@@ -22,6 +22,7 @@ import org.apache.felix.scr.annotations.*;
 import org.osgi.service.component.ComponentContext;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -39,8 +40,12 @@ public class HelperFunctionBindImpl
     protected ComponentContext componentContext;
 
     @Reference(cardinality = ReferenceCardinality.OPTIONAL_MULTIPLE, bind = "bindHelperFunction", unbind = "unbindHelperFunction", referenceInterface = HelperFunction.class, policy = ReferencePolicy.DYNAMIC)
-    private List<HelperFunction> helpers = new ArrayList<>();
+    private volatile List<HelperFunction> helpers = Collections.emptyList();
 
+    /**
+     * Returns an immutable snapshot of the bound helpers. Every bind/unbind publishes a new snapshot, so the list
+     * returned here never changes and a new list identity means the helpers changed.
+     */
     public List<HelperFunction> getHelpers()
             throws Exception {
         return helpers;
@@ -52,12 +57,16 @@ public class HelperFunctionBindImpl
         this.componentContext = componentContext;
     }
 
-    private void bindHelperFunction(HelperFunction helper) {
-        helpers.add(helper);
+    private synchronized void bindHelperFunction(HelperFunction helper) {
+        List<HelperFunction> snapshot = new ArrayList<>(helpers);
+        snapshot.add(helper);
+        helpers = Collections.unmodifiableList(snapshot);
     }
 
-    private void unbindHelperFunction(HelperFunction helper) {
-        helpers.remove(helper);
+    private synchronized void unbindHelperFunction(HelperFunction helper) {
+        List<HelperFunction> snapshot = new ArrayList<>(helpers);
+        snapshot.remove(helper);
+        helpers = Collections.unmodifiableList(snapshot);
     }
 
 }
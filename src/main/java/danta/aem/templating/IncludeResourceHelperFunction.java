@@ -18,26 +18,33 @@
 
 package danta.aem.templating;
 
+import com.day.cq.contentsync.handler.util.RequestResponseFactory;
+import com.day.cq.wcm.api.WCMMode;
 import com.day.cq.wcm.api.components.ComponentManager;
 import com.github.jknack.handlebars.Handlebars;
+import danta.aem.services.IncludeExecutorProvider;
 import danta.api.configuration.ConfigurationProvider;
 import danta.core.util.UrlUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.felix.scr.annotations.*;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.request.RequestDispatcherOptions;
+import org.apache.sling.api.request.RequestPathInfo;
 import org.apache.sling.api.resource.NonExistingResource;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.commons.osgi.OsgiUtil;
+import org.apache.sling.engine.SlingRequestProcessor;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.RequestDispatcher;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.CharArrayWriter;
 import java.io.PrintWriter;
@@ -46,6 +53,7 @@ import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import static danta.Constants.*;
+import static danta.aem.Constants.PARALLEL_INCLUDE_CONFIG_PROPERTY_NAME;
 
 /**
  * The include helper allows the developer to include components in the html content.
@@ -76,6 +84,14 @@ import static danta.Constants.*;
  *         variable, or a static string; that will be appended to the variable
  *         provided in the 'name' attribute.
  *
+ * parallel: An optional flag (publish only, when parallel includes are enabled in the script engine factory)
+ *           to render an existing resource concurrently with the rest of the template. The include is rendered
+ *           as a request of its own, with the selectors, extension and suffix of the including request, but
+ *           without its request attributes or the scope of the including component's content model. So it is
+ *           only honored for components that declare xk_parallelInclude in their xk.config, stating that their
+ *           output doesn't depend on either; other includes are rendered synchronously as usual, as are
+ *           includes rendered while the include executor is saturated or unavailable.
+ *
  * @author      joshuaoransky
  * @version     1.0.0
  * @since       2013-11-09
@@ -94,9 +110,22 @@ public class IncludeResourceHelperFunction
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY, policy = ReferencePolicy.STATIC)
     protected ConfigurationProvider configurationProvider;
 
+    // Only used by parallel includes: includes render through the dispatcher while any of them is missing
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    private volatile RequestResponseFactory requestResponseFactory;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    private volatile SlingRequestProcessor requestProcessor;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    private volatile IncludeExecutorProvider includeExecutorProvider;
+
     protected final Logger LOG = LoggerFactory.getLogger(this.getClass());
     static final String DEFAULT_INVALID_CHARACTERS = "[ \\t$&+,;=?@#|'<>.^*()%!~\\[\\]{}]";
     static final String CONFIG_CHARACTERS_PROPERTY = "invalidCharacteres";
+    private static final String PARALLEL_PARAM = "parallel";
+    private static final String HTML_EXTENSION = "html";
+    private static final String UTF_8 = "UTF-8";
     private String configCharacters;
 
     public IncludeResourceHelperFunction() {
@@ -140,15 +169,125 @@ public class IncludeResourceHelperFunction
             com.day.cq.wcm.api.components.Component component = componentManager.getComponentOfResource(resource);
 
             dispatcher = request.getRequestDispatcher(resource, opts);
-            HttpServletResponse wrappedResponse = wrapResponse(contentModel().response());
-            dispatcher.include(request, wrappedResponse);
-            responseString = wrappedResponse.toString();
+            DeferredIncludes deferredIncludes = DeferredIncludes.current();
+            RequestResponseFactory requestResponseFactory = this.requestResponseFactory;
+            SlingRequestProcessor requestProcessor = this.requestProcessor;
+            IncludeExecutorProvider includeExecutorProvider = this.includeExecutorProvider;
+            if (deferredIncludes != null && requestResponseFactory != null && requestProcessor != null
+                    && includeExecutorProvider != null && isParallelInclude(request, tmp, resourceType)) {
+                String placeholder = deferredIncludes.defer(
+                        parallelInclude(request, resource, dispatcher, contentModel.response(),
+                                requestResponseFactory, requestProcessor),
+                        includeExecutorProvider.getExecutorService());
+                if (placeholder != null) {
+                    return new Handlebars.SafeString(placeholder);
+                }
+                // The include executor is saturated: render it here
+            }
+
+            responseString = include(dispatcher, request, contentModel.response());
         } else {
             LOG.error("{} It is not valid", path);
         }
         return new Handlebars.SafeString(responseString);
     }
 
+    /**
+     * This method validates if an include can be rendered in parallel: it must be flagged with parallel=true, the
+     * request must be in disabled WCM mode (publish) and the included resource must exist and be rendered with its
+     * own resource type, since it is rendered as a request of its own. For the same reason, its component must
+     * declare xk_parallelInclude in its xk.config: it doesn't read the request attributes or the content model
+     * scope of the including component.
+     *
+     * @param request The including request
+     * @param resource The resolved include resource
+     * @param resourceType The resource type forced by the include, may be null
+     */
+    private boolean isParallelInclude(SlingHttpServletRequest request, Resource resource, String resourceType)
+            throws Exception {
+        return Boolean.parseBoolean(String.valueOf(param(PARALLEL_PARAM)))
+                && WCMMode.fromRequest(request) == WCMMode.DISABLED
+                && resource != null && !(resource instanceof NonExistingResource)
+                && (resourceType == null || resourceType.equals(resource.getResourceType()))
+                && configurationProvider.hasConfig(resource.getResourceType())
+                && Boolean.valueOf(configurationProvider.getFor(resource.getResourceType())
+                        .asString(PARALLEL_INCLUDE_CONFIG_PROPERTY_NAME));
+    }
+
+    /**
+     * This method renders an include on the request thread, through the request dispatcher.
+     *
+     * @param dispatcher The dispatcher of the include resource
+     * @param request The including request
+     * @param response The including response
+     * @return The include output
+     */
+    private String include(RequestDispatcher dispatcher, SlingHttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        HttpServletResponse wrappedResponse = wrapResponse(response);
+        dispatcher.include(request, wrappedResponse);
+        return wrappedResponse.toString();
+    }
+
+    /**
+     * This method returns an include that renders on the include executor as a request of its own, with a resolver
+     * of its own, or on the request thread through the dispatcher when the executor can't start it in time. The
+     * include request keeps the selectors, extension and suffix of the including request, as a dispatcher include
+     * does.
+     *
+     * @param request The including request
+     * @param resource The include resource
+     * @param dispatcher The dispatcher of the include resource
+     * @param response The including response
+     * @param requestResponseFactory The factory of the include request and response
+     * @param requestProcessor The processor of the include request
+     * @return The include
+     */
+    private DeferredIncludes.Include parallelInclude(final SlingHttpServletRequest request, Resource resource,
+                                                     final RequestDispatcher dispatcher,
+                                                     final HttpServletResponse response,
+                                                     final RequestResponseFactory requestResponseFactory,
+                                                     final SlingRequestProcessor requestProcessor)
+            throws Exception {
+        RequestPathInfo requestPathInfo = request.getRequestPathInfo();
+        StringBuilder includePathBuilder = new StringBuilder(resource.getPath());
+        if (StringUtils.isNotEmpty(requestPathInfo.getSelectorString())) {
+            includePathBuilder.append(DOT).append(requestPathInfo.getSelectorString());
+        }
+        includePathBuilder.append(DOT)
+                .append(StringUtils.defaultIfEmpty(requestPathInfo.getExtension(), HTML_EXTENSION))
+                .append(StringUtils.defaultString(requestPathInfo.getSuffix()));
+        final String includePath = includePathBuilder.toString();
+        final ResourceResolver includeResolver = request.getResourceResolver().clone(null);
+        return new DeferredIncludes.Include() {
+            @Override
+            String renderInParallel()
+                    throws Exception {
+                try {
+                    HttpServletRequest includeRequest = requestResponseFactory.createRequest(HTTP_GET, includePath);
+                    WCMMode.DISABLED.toRequest(includeRequest);
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    HttpServletResponse includeResponse = requestResponseFactory.createResponse(output);
+                    requestProcessor.processRequest(includeRequest, includeResponse, includeResolver);
+                    return output.toString(StringUtils.defaultIfEmpty(includeResponse.getCharacterEncoding(), UTF_8));
+                } finally {
+                    includeResolver.close();
+                }
+            }
+
+            @Override
+            String render()
+                    throws Exception {
+                return include(dispatcher, request, response);
+            }
+
+            @Override
+            void discard() {
+                includeResolver.close();
+            }
+        };
+    }
+
     private final HttpServletResponse wrapResponse(HttpServletResponse response) {
         HttpServletResponseWrapper wrappedResponse = new HttpServletResponseWrapper(response) {
             final CharArrayWriter output = new CharArrayWriter();
@@ -0,0 +1,87 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated timings of the phases of a Danta render (service login, context processors, template compile and
+ * apply, DOM parse/process/serialize and output write), kept per resource type as latency histograms. Phase
+ * times of a component include the includes it renders in place. The context processor chain and phase times of
+ * the most recent renders of each resource type are also kept, in a bounded ring, for the statistics servlet.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface RenderMetrics {
+
+    /**
+     * @return true if renders are being timed
+     */
+    public boolean isEnabled();
+
+    /**
+     * Starts timing a render. The returned timer does nothing when the metrics are disabled.
+     *
+     * @param resourceType The resource type being rendered
+     * @return timer The timer of this render
+     */
+    public RenderTimer start(String resourceType);
+
+    /**
+     * Records a render.
+     *
+     * @param resourceType The resource type rendered
+     * @param processors The context processor chain executed, or null if the output was served from the render cache
+     * @param phases The time spent in each phase, in nanoseconds
+     */
+    public void record(String resourceType, List<String> processors, Map<String, Long> phases);
+
+    /**
+     * @return resourceTypes The resource types with recorded timings
+     */
+    public Collection<String> getResourceTypes();
+
+    /**
+     * Returns the statistics (count, mean, p50, p90, p99 and max, in milliseconds) of each phase recorded for a
+     * resource type.
+     *
+     * @param resourceType The resource type
+     * @return statistics The statistics by phase name, empty if nothing was recorded
+     */
+    public Map<String, Map<String, Object>> getStatistics(String resourceType);
+
+    /**
+     * Returns the most recent renders of a resource type that executed the context processor chain.
+     *
+     * @param resourceType The resource type
+     * @return renders The renders, most recent first: timestamp, processors and the time of each phase in
+     *         milliseconds
+     */
+    public List<Map<String, Object>> getRecentRenders(String resourceType);
+
+    /**
+     * Drops every recorded timing.
+     */
+    public void reset();
+
+}
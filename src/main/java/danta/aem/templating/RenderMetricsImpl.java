@@ -0,0 +1,302 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import org.apache.felix.scr.annotations.*;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.service.component.ComponentContext;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static danta.Constants.PROCESSORS;
+
+/**
+ * Render metrics implementer. Timings are kept in memory, in one histogram per resource type and phase, and
+ * exposed through JMX by the whiteboard (jmx.objectname service property). Each resource type also keeps its
+ * most recent renders in a fixed size ring, overwritten in place.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+@Component(
+        label = "Danta Render Metrics",
+        description = "Times the phases of Danta renders per resource type and exposes them through JMX",
+        immediate = true,
+        metatype = true
+)
+@Service({ RenderMetrics.class, RenderMetricsMBean.class })
+@Properties({
+        @Property(
+                label = "Enabled",
+                description = "Time the phases of every Danta render",
+                name = RenderMetricsImpl.ENABLED_PN,
+                boolValue = RenderMetricsImpl.DEFAULT_ENABLED,
+                propertyPrivate = false
+        ),
+        @Property(
+                label = "Recent renders",
+                description = "Number of recent renders (context processor chain and phase times) kept per resource type",
+                name = RenderMetricsImpl.RECENT_RENDERS_PN,
+                intValue = RenderMetricsImpl.DEFAULT_RECENT_RENDERS,
+                propertyPrivate = false
+        ),
+        @Property(
+                name = "jmx.objectname",
+                value = RenderMetricsImpl.OBJECT_NAME,
+                propertyPrivate = true
+        )
+})
+public class RenderMetricsImpl
+        extends StandardMBean
+        implements RenderMetrics, RenderMetricsMBean {
+
+    protected static final String ENABLED_PN = "enabled";
+    protected static final boolean DEFAULT_ENABLED = true;
+    protected static final String RECENT_RENDERS_PN = "recentRenders";
+    protected static final int DEFAULT_RECENT_RENDERS = 10;
+    protected static final String OBJECT_NAME = "danta.aem:type=RenderMetrics";
+    private static final String RESOURCE_TYPE = "resourceType";
+    private static final String PHASE = "phase";
+    private static final String[] STATISTICS = { "count", "mean", "p50", "p90", "p99", "max" };
+    private static final String TIMESTAMP = "timestamp";
+    private static final String PHASES = "phases";
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private volatile boolean enabled = DEFAULT_ENABLED;
+    private volatile int recentRenders = DEFAULT_RECENT_RENDERS;
+    private final ConcurrentMap<String, ResourceTypeMetrics> metrics = new ConcurrentHashMap<>();
+
+    public RenderMetricsImpl()
+            throws NotCompliantMBeanException {
+        super(RenderMetricsMBean.class);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public RenderTimer start(String resourceType) {
+        return enabled ? new RenderTimer(this, resourceType) : RenderTimer.NOOP;
+    }
+
+    @Override
+    public void record(String resourceType, List<String> processors, Map<String, Long> phases) {
+        ResourceTypeMetrics resourceTypeMetrics = metrics.get(resourceType);
+        if (resourceTypeMetrics == null) {
+            ResourceTypeMetrics newResourceTypeMetrics = new ResourceTypeMetrics(recentRenders);
+            resourceTypeMetrics = metrics.putIfAbsent(resourceType, newResourceTypeMetrics);
+            if (resourceTypeMetrics == null) {
+                resourceTypeMetrics = newResourceTypeMetrics;
+            }
+        }
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            resourceTypeMetrics.histogram(phase.getKey()).record(phase.getValue());
+        }
+        if (processors != null) {
+            resourceTypeMetrics.add(new RecordedRender(System.currentTimeMillis(), processors, phases));
+        }
+    }
+
+    @Override
+    public Collection<String> getResourceTypes() {
+        return Collections.unmodifiableSet(new TreeSet<>(metrics.keySet()));
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getStatistics(String resourceType) {
+        Map<String, Map<String, Object>> statistics = new TreeMap<>();
+        ResourceTypeMetrics resourceTypeMetrics = metrics.get(resourceType);
+        if (resourceTypeMetrics != null) {
+            for (Map.Entry<String, PhaseHistogram> phase : resourceTypeMetrics.histograms.entrySet()) {
+                statistics.put(phase.getKey(), phase.getValue().statistics());
+            }
+        }
+        return statistics;
+    }
+
+    @Override
+    public List<Map<String, Object>> getRecentRenders(String resourceType) {
+        List<Map<String, Object>> renders = new ArrayList<>();
+        ResourceTypeMetrics resourceTypeMetrics = metrics.get(resourceType);
+        if (resourceTypeMetrics != null) {
+            for (RecordedRender recordedRender : resourceTypeMetrics.recent()) {
+                Map<String, Object> render = new LinkedHashMap<>();
+                render.put(TIMESTAMP, recordedRender.timestamp);
+                render.put(PROCESSORS, recordedRender.processors);
+                Map<String, Object> phases = new LinkedHashMap<>();
+                for (Map.Entry<String, Long> phase : recordedRender.phases.entrySet()) {
+                    phases.put(phase.getKey(), phase.getValue() / NANOS_PER_MILLI);
+                }
+                render.put(PHASES, phases);
+                renders.add(render);
+            }
+        }
+        return renders;
+    }
+
+    @Override
+    public TabularData getPhaseStatistics()
+            throws OpenDataException {
+        String[] itemNames = new String[STATISTICS.length + 2];
+        OpenType<?>[] itemTypes = new OpenType<?>[itemNames.length];
+        itemNames[0] = RESOURCE_TYPE;
+        itemNames[1] = PHASE;
+        itemTypes[0] = SimpleType.STRING;
+        itemTypes[1] = SimpleType.STRING;
+        for (int i = 0; i < STATISTICS.length; i++) {
+            itemNames[i + 2] = STATISTICS[i];
+            itemTypes[i + 2] = (i == 0) ? SimpleType.LONG : SimpleType.DOUBLE;
+        }
+        CompositeType rowType = new CompositeType("PhaseStatistics", "Render phase statistics",
+                itemNames, itemNames, itemTypes);
+        TabularData table = new TabularDataSupport(new TabularType("PhaseStatisticsTable",
+                "Render phase statistics per resource type", rowType, new String[] { RESOURCE_TYPE, PHASE }));
+
+        for (String resourceType : getResourceTypes()) {
+            for (Map.Entry<String, Map<String, Object>> phase : getStatistics(resourceType).entrySet()) {
+                Object[] values = new Object[itemNames.length];
+                values[0] = resourceType;
+                values[1] = phase.getKey();
+                for (int i = 0; i < STATISTICS.length; i++) {
+                    values[i + 2] = phase.getValue().get(STATISTICS[i]);
+                }
+                table.put(new CompositeDataSupport(rowType, itemNames, values));
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public void reset() {
+        metrics.clear();
+    }
+
+    /**
+     * Component activator
+     *
+     * @param componentContext The component context
+     * @throws Exception
+     */
+    @Activate
+    protected void activate(ComponentContext componentContext)
+            throws Exception {
+        enabled = PropertiesUtil.toBoolean(componentContext.getProperties().get(ENABLED_PN), DEFAULT_ENABLED);
+        recentRenders = Math.max(0, PropertiesUtil.toInteger(componentContext.getProperties().get(RECENT_RENDERS_PN),
+                DEFAULT_RECENT_RENDERS));
+    }
+
+    /**
+     * Component deactivator
+     *
+     * @param context The component context
+     * @throws Exception
+     */
+    @Deactivate
+    protected void deactivate(final ComponentContext context)
+            throws Exception {
+        reset();
+    }
+
+    /**
+     * Inner class: the histograms and recent renders of a resource type
+     */
+    private static class ResourceTypeMetrics {
+
+        private final ConcurrentMap<String, PhaseHistogram> histograms = new ConcurrentHashMap<>();
+        private final AtomicReferenceArray<RecordedRender> ring;
+        private final AtomicLong next = new AtomicLong();
+
+        private ResourceTypeMetrics(int size) {
+            this.ring = new AtomicReferenceArray<>(size);
+        }
+
+        private PhaseHistogram histogram(String phase) {
+            PhaseHistogram histogram = histograms.get(phase);
+            if (histogram == null) {
+                PhaseHistogram newHistogram = new PhaseHistogram();
+                histogram = histograms.putIfAbsent(phase, newHistogram);
+                if (histogram == null) {
+                    histogram = newHistogram;
+                }
+            }
+            return histogram;
+        }
+
+        private void add(RecordedRender recordedRender) {
+            if (ring.length() > 0) {
+                ring.set((int) (next.getAndIncrement() % ring.length()), recordedRender);
+            }
+        }
+
+        /**
+         * @return renders The recorded renders, most recent first
+         */
+        private List<RecordedRender> recent() {
+            List<RecordedRender> renders = new ArrayList<>(ring.length());
+            long last = next.get();
+            for (long i = last - 1; i >= 0 && i >= last - ring.length(); i--) {
+                RecordedRender recordedRender = ring.get((int) (i % ring.length()));
+                if (recordedRender != null) {
+                    renders.add(recordedRender);
+                }
+            }
+            return renders;
+        }
+    }
+
+    /**
+     * Inner class: the context processor chain and phase times of a render
+     */
+    private static class RecordedRender {
+
+        private final long timestamp;
+        private final List<String> processors;
+        private final Map<String, Long> phases;
+
+        private RecordedRender(long timestamp, List<String> processors, Map<String, Long> phases) {
+            this.timestamp = timestamp;
+            this.processors = Collections.unmodifiableList(new ArrayList<>(processors));
+            this.phases = Collections.unmodifiableMap(phases);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+
+/**
+ * JMX view of the {@link RenderMetrics}, registered as danta.aem:type=RenderMetrics.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public interface RenderMetricsMBean {
+
+    /**
+     * @return true if renders are being timed
+     */
+    public boolean isEnabled();
+
+    /**
+     * @return statistics One row per resource type and phase, with the count, mean, p50, p90, p99 and max times in
+     *         milliseconds
+     * @throws OpenDataException
+     */
+    public TabularData getPhaseStatistics() throws OpenDataException;
+
+    /**
+     * Drops every recorded timing.
+     */
+    public void reset();
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import com.github.jknack.handlebars.io.TemplateLoader;
+import com.github.jknack.handlebars.io.TemplateSource;
+
+import java.io.IOException;
+
+import static danta.Constants.BLANK;
+
+/**
+ * Template loader that delegates to the loader bound to the render running on the current thread.
+ * Compiled templates outlive the request that compiled them, so partials must be resolved against
+ * the resource being rendered now, not the one that happened to compile the template.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class RenderScopedTemplateLoader
+        implements TemplateLoader {
+
+    private static final ThreadLocal<TemplateLoader> CURRENT_LOADER = new ThreadLocal<>();
+
+    /**
+     * Binds the given loader to the current thread.
+     *
+     * @param loader The loader of the render that is about to start
+     * @return The previously bound loader, to be passed to {@link #restore(TemplateLoader)}
+     */
+    public static TemplateLoader bind(TemplateLoader loader) {
+        TemplateLoader previous = CURRENT_LOADER.get();
+        CURRENT_LOADER.set(loader);
+        return previous;
+    }
+
+    /**
+     * Restores the loader that was bound before the current render (e.g. the one of the including component).
+     *
+     * @param previous The loader returned by {@link #bind(TemplateLoader)}
+     */
+    public static void restore(TemplateLoader previous) {
+        if (previous == null) {
+            CURRENT_LOADER.remove();
+        } else {
+            CURRENT_LOADER.set(previous);
+        }
+    }
+
+    @Override
+    public TemplateSource sourceAt(final String location)
+            throws IOException {
+        return current().sourceAt(location);
+    }
+
+    @Override
+    public String resolve(final String location) {
+        TemplateLoader loader = CURRENT_LOADER.get();
+        return (loader != null) ? loader.resolve(location) : location;
+    }
+
+    @Override
+    public String getPrefix() {
+        return BLANK;
+    }
+
+    @Override
+    public void setPrefix(final String prefix) {
+    }
+
+    @Override
+    public String getSuffix() {
+        return BLANK;
+    }
+
+    @Override
+    public void setSuffix(final String suffix) {
+    }
+
+    private TemplateLoader current()
+            throws IOException {
+        TemplateLoader loader = CURRENT_LOADER.get();
+        if (loader == null)
+            throw new IOException("No template loader bound to the current render.");
+        return loader;
+    }
+}
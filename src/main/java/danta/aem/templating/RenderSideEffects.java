@@ -0,0 +1,204 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import javax.servlet.ServletRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Request attribute changes made while a component renders: attributes set or replaced, elements added to
+ * collections and entries put in maps. The render cache keeps them along with the output and replays them on a hit,
+ * so the components rendered afterwards see the request as if the cached component had rendered (e.g. the client
+ * libraries it already included).
+ * <p>
+ * Collections and maps are copied when recorded and merged into the request (or copied again) when replayed, so no
+ * mutable state is shared between requests. Other values are replayed as they are and are expected to be immutable.
+ * Removed attributes and servlet/Sling attributes are not recorded.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class RenderSideEffects {
+
+    public static final RenderSideEffects NONE = new RenderSideEffects(
+            Collections.<String, Object>emptyMap(),
+            Collections.<String, Collection<Object>>emptyMap(),
+            Collections.<String, Map<Object, Object>>emptyMap());
+
+    private static final String[] IGNORED_PREFIXES = {"javax.servlet.", "org.apache.sling."};
+
+    private final Map<String, Object> values;
+    private final Map<String, Collection<Object>> elements;
+    private final Map<String, Map<Object, Object>> entries;
+
+    private RenderSideEffects(Map<String, Object> values,
+                              Map<String, Collection<Object>> elements,
+                              Map<String, Map<Object, Object>> entries) {
+        this.values = values;
+        this.elements = elements;
+        this.entries = entries;
+    }
+
+    /**
+     * Starts recording the attribute changes of a render.
+     *
+     * @param request The request
+     * @param ignored Names of attributes the render is known to change on its own (e.g. the content model)
+     * @return The recorder, to be stopped once the render completes
+     */
+    public static Recorder record(ServletRequest request, String... ignored) {
+        return new Recorder(request, ignored);
+    }
+
+    /**
+     * Applies the recorded changes to the given request.
+     *
+     * @param request The request
+     */
+    public void replay(ServletRequest request) {
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            request.setAttribute(value.getKey(), value.getValue());
+        }
+        for (Map.Entry<String, Collection<Object>> added : elements.entrySet()) {
+            Object current = request.getAttribute(added.getKey());
+            Collection<Object> merged = (added.getValue() instanceof Set)
+                    ? new LinkedHashSet<Object>() : new ArrayList<Object>();
+            if (current instanceof Collection) {
+                merged.addAll((Collection<?>) current);
+            }
+            for (Object element : added.getValue()) {
+                if (!merged.contains(element)) {
+                    merged.add(element);
+                }
+            }
+            request.setAttribute(added.getKey(), merged);
+        }
+        for (Map.Entry<String, Map<Object, Object>> added : entries.entrySet()) {
+            Object current = request.getAttribute(added.getKey());
+            Map<Object, Object> merged = new LinkedHashMap<>();
+            if (current instanceof Map) {
+                merged.putAll((Map<?, ?>) current);
+            }
+            merged.putAll(added.getValue());
+            request.setAttribute(added.getKey(), merged);
+        }
+    }
+
+    private static boolean isIgnored(String name, Set<String> ignored) {
+        if (ignored.contains(name)) {
+            return true;
+        }
+        for (String prefix : IGNORED_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inner class: snapshot of the request attributes taken before a render
+     */
+    public static class Recorder {
+
+        private final Set<String> ignored = new HashSet<>();
+        private final Map<String, Object> before = new HashMap<>();
+        private final Map<String, Set<Object>> elementsBefore = new HashMap<>();
+        private final Map<String, Map<Object, Object>> entriesBefore = new HashMap<>();
+
+        private Recorder(ServletRequest request, String... ignored) {
+            Collections.addAll(this.ignored, ignored);
+            Enumeration<String> names = request.getAttributeNames();
+            while (names.hasMoreElements()) {
+                String name = names.nextElement();
+                if (isIgnored(name, this.ignored)) {
+                    continue;
+                }
+                Object value = request.getAttribute(name);
+                before.put(name, value);
+                if (value instanceof Collection) {
+                    elementsBefore.put(name, new HashSet<Object>((Collection<?>) value));
+                } else if (value instanceof Map) {
+                    entriesBefore.put(name, new HashMap<Object, Object>((Map<?, ?>) value));
+                }
+            }
+        }
+
+        /**
+         * @param request The request the render ran on
+         * @return The changes made to the request attributes since the recorder started
+         */
+        public RenderSideEffects stop(ServletRequest request) {
+            Map<String, Object> values = new HashMap<>();
+            Map<String, Collection<Object>> elements = new HashMap<>();
+            Map<String, Map<Object, Object>> entries = new HashMap<>();
+            Enumeration<String> names = request.getAttributeNames();
+            while (names.hasMoreElements()) {
+                String name = names.nextElement();
+                if (isIgnored(name, ignored)) {
+                    continue;
+                }
+                Object value = request.getAttribute(name);
+                boolean replaced = !before.containsKey(name) || before.get(name) != value;
+                if (value instanceof Collection) {
+                    Set<Object> previous = replaced ? Collections.<Object>emptySet() : elementsBefore.get(name);
+                    Collection<Object> added = (value instanceof Set)
+                            ? new LinkedHashSet<Object>() : new ArrayList<Object>();
+                    for (Object element : (Collection<?>) value) {
+                        if (!previous.contains(element)) {
+                            added.add(element);
+                        }
+                    }
+                    if (!added.isEmpty()) {
+                        elements.put(name, added);
+                    }
+                } else if (value instanceof Map) {
+                    Map<Object, Object> previous = replaced
+                            ? Collections.<Object, Object>emptyMap() : entriesBefore.get(name);
+                    Map<Object, Object> added = new LinkedHashMap<>();
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        if (!previous.containsKey(entry.getKey()) || previous.get(entry.getKey()) != entry.getValue()) {
+                            added.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    if (!added.isEmpty()) {
+                        entries.put(name, added);
+                    }
+                } else if (replaced) {
+                    values.put(name, value);
+                }
+            }
+            if (values.isEmpty() && elements.isEmpty() && entries.isEmpty()) {
+                return NONE;
+            }
+            return new RenderSideEffects(Collections.unmodifiableMap(values), Collections.unmodifiableMap(elements),
+                    Collections.unmodifiableMap(entries));
+        }
+    }
+}
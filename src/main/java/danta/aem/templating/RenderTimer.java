@@ -0,0 +1,136 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static danta.aem.Constants.RENDER_PHASE_TOTAL;
+
+/**
+ * Times the phases of a single render. Laps are accumulated per phase (a phase may be entered several times, e.g.
+ * by the streaming DOM pipeline) and handed to the {@link RenderMetrics}, along with the context processor chain,
+ * when the render stops. A timer is confined to the thread rendering the resource.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class RenderTimer {
+
+    /**
+     * The timer of untimed renders
+     */
+    static final RenderTimer NOOP = new RenderTimer(null, null) {
+        @Override
+        public void mark() {
+        }
+
+        @Override
+        public void lap(String phase) {
+        }
+
+        @Override
+        public void lap(String phase, String detail) {
+        }
+
+        @Override
+        public void processors(List<String> processors) {
+        }
+
+        @Override
+        public void stop() {
+        }
+    };
+
+    private final RenderMetrics renderMetrics;
+    private final String resourceType;
+    private final Map<String, long[]> phases = new LinkedHashMap<>();
+    private List<String> processors;
+    private final long start;
+    private long last;
+
+    RenderTimer(final RenderMetrics renderMetrics, final String resourceType) {
+        this.renderMetrics = renderMetrics;
+        this.resourceType = resourceType;
+        this.start = System.nanoTime();
+        this.last = start;
+    }
+
+    /**
+     * Starts the next lap, leaving the time since the previous one unaccounted.
+     */
+    public void mark() {
+        last = System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the previous lap to a phase.
+     *
+     * @param phase The phase name
+     */
+    public void lap(String phase) {
+        long now = System.nanoTime();
+        add(phase, now - last);
+        last = now;
+    }
+
+    /**
+     * Adds the time since the previous lap to a phase and to one of its parts (e.g. a single DOM processor).
+     *
+     * @param phase The phase name
+     * @param detail The name of the part of the phase
+     */
+    public void lap(String phase, String detail) {
+        long now = System.nanoTime();
+        add(phase, now - last);
+        add(detail, now - last);
+        last = now;
+    }
+
+    /**
+     * @param processors The context processor chain executed by this render
+     */
+    public void processors(List<String> processors) {
+        this.processors = processors;
+    }
+
+    /**
+     * Records the context processor chain, every phase and the whole render to the render metrics.
+     */
+    public void stop() {
+        long total = System.nanoTime() - start;
+        Map<String, Long> times = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> phase : phases.entrySet()) {
+            times.put(phase.getKey(), phase.getValue()[0]);
+        }
+        times.put(RENDER_PHASE_TOTAL, total);
+        renderMetrics.record(resourceType, processors, times);
+    }
+
+    private void add(String phase, long nanos) {
+        long[] elapsed = phases.get(phase);
+        if (elapsed == null) {
+            phases.put(phase, new long[] { nanos });
+        } else {
+            elapsed[0] += nanos;
+        }
+    }
+}
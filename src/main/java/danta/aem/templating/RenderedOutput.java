@@ -0,0 +1,62 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A rendered component output held by the {@link DantaRenderCache}: the markup, the request attribute changes the
+ * render made and the paths it was rendered from.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class RenderedOutput {
+
+    private final String html;
+    private final RenderSideEffects sideEffects;
+    private final List<String> dependencies;
+
+    /**
+     * @param html The rendered markup
+     * @param sideEffects The request attribute changes of the render
+     * @param dependencies The paths (content resource, component definitions) the output was rendered from
+     */
+    public RenderedOutput(String html, RenderSideEffects sideEffects, Collection<String> dependencies) {
+        this.html = html;
+        this.sideEffects = sideEffects;
+        this.dependencies = Collections.unmodifiableList(new ArrayList<>(dependencies));
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public RenderSideEffects getSideEffects() {
+        return sideEffects;
+    }
+
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+}
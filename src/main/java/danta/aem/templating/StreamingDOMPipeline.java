@@ -0,0 +1,220 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import danta.aem.contextprocessors.domprocesors.StreamingDOMProcessor;
+import danta.api.ExecutionContext;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.Tag;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static danta.Constants.BLANK;
+import static danta.aem.Constants.RENDER_PHASE_DOM_PARSE;
+import static danta.aem.Constants.RENDER_PHASE_DOM_PROCESS;
+import static danta.aem.Constants.RENDER_PHASE_DOM_PROCESSOR_PREFIX;
+import static danta.aem.Constants.RENDER_PHASE_DOM_SERIALIZE;
+import static danta.aem.Constants.RENDER_PHASE_OUTPUT_WRITE;
+
+/**
+ * Single pass rewrite of a rendered page for {@link StreamingDOMProcessor}s. Markup is copied to the writer as
+ * it is tokenized; only the elements carrying an attribute declared by a processor are buffered, parsed as a
+ * fragment in the context of their parent element (so rows, cells, list items and options keep their structure),
+ * handed to the interested processors and serialized back in place.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+class StreamingDOMPipeline
+        implements HTMLTokenizer.Handler {
+
+    private static final String HTML = "html";
+    private static final String BODY = "body";
+
+    private final ExecutionContext executionContext;
+    private final List<StreamingDOMProcessor> processors;
+    private final RenderTimer timer;
+    private final Set<String> attributes = new LinkedHashSet<>();
+
+    private CharSequence source;
+    private Writer out;
+    private final List<String> ancestors = new ArrayList<>();
+    private final List<String> openElements = new ArrayList<>();
+    private final Set<StreamingDOMProcessor> matchedProcessors = new LinkedHashSet<>();
+    private int captureStart = -1;
+
+    /**
+     * @param executionContext The execution context handed to the processors
+     * @param processors The processors, in execution order
+     * @param timer The render timer: copying is timed as output write, captured elements as DOM phases
+     */
+    StreamingDOMPipeline(final ExecutionContext executionContext, final List<StreamingDOMProcessor> processors,
+                         final RenderTimer timer) {
+        this.executionContext = executionContext;
+        this.processors = processors;
+        this.timer = timer;
+        for (StreamingDOMProcessor processor : processors) {
+            attributes.addAll(processor.attributes());
+        }
+    }
+
+    /**
+     * Rewrites the page output into the writer.
+     *
+     * @param html The rendered page
+     * @param writer The writer receiving the rewritten page
+     * @throws IOException
+     */
+    void process(final CharSequence html, final Writer writer)
+            throws IOException {
+        source = html;
+        out = writer;
+        new HTMLTokenizer(html).tokenize(this);
+        if (captureStart >= 0) {
+            // Unbalanced markup: process whatever was captured
+            processCapture(html.length());
+        }
+        timer.lap(RENDER_PHASE_OUTPUT_WRITE);
+    }
+
+    @Override
+    public void characters(int start, int end)
+            throws IOException {
+        if (captureStart < 0) {
+            out.append(source, start, end);
+        }
+    }
+
+    @Override
+    public void startTag(String name, Set<String> attributeNames, boolean selfClosing, int start, int end)
+            throws IOException {
+        boolean matched = collectMatches(attributeNames);
+        if (captureStart < 0) {
+            if (!matched) {
+                out.append(source, start, end);
+                if (!selfClosing) {
+                    ancestors.add(name);
+                }
+                return;
+            }
+            captureStart = start;
+        }
+        if (selfClosing) {
+            if (openElements.isEmpty()) {
+                processCapture(end);
+            }
+        } else {
+            openElements.add(name);
+        }
+    }
+
+    @Override
+    public void endTag(String name, int start, int end)
+            throws IOException {
+        if (captureStart < 0) {
+            out.append(source, start, end);
+            closeElement(ancestors, name);
+            return;
+        }
+        // Close the nearest matching element, along with any element left open inside it (e.g. <p>, <li>)
+        if (closeElement(openElements, name) && openElements.isEmpty()) {
+            processCapture(end);
+        }
+    }
+
+    /**
+     * Closes the nearest element with the given name, along with any element left open inside it.
+     *
+     * @return true if such an element was open
+     */
+    private static boolean closeElement(List<String> elements, String name) {
+        int index = elements.lastIndexOf(name);
+        if (index < 0) {
+            return false;
+        }
+        elements.subList(index, elements.size()).clear();
+        return true;
+    }
+
+    private boolean collectMatches(Set<String> attributeNames) {
+        boolean matched = false;
+        for (String attribute : attributeNames) {
+            if (attributes.contains(attribute)) {
+                matched = true;
+                for (StreamingDOMProcessor processor : processors) {
+                    if (processor.attributes().contains(attribute)) {
+                        matchedProcessors.add(processor);
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    private void processCapture(int captureEnd)
+            throws IOException {
+        timer.lap(RENDER_PHASE_OUTPUT_WRITE);
+        Document fragment = parseFragment(source.subSequence(captureStart, captureEnd).toString());
+        timer.lap(RENDER_PHASE_DOM_PARSE);
+        try {
+            for (StreamingDOMProcessor processor : processors) {
+                if (matchedProcessors.contains(processor)) {
+                    processor.process(executionContext, fragment);
+                    timer.lap(RENDER_PHASE_DOM_PROCESS, RENDER_PHASE_DOM_PROCESSOR_PREFIX + processor.getClass().getName());
+                }
+            }
+        } catch (Exception ew) {
+            throw new IOException(ew);
+        }
+        out.write(fragment.body().html());
+        timer.lap(RENDER_PHASE_DOM_SERIALIZE);
+        captureStart = -1;
+        openElements.clear();
+        matchedProcessors.clear();
+    }
+
+    /**
+     * Parses the captured markup as the content of its parent element, and moves the resulting nodes into the body
+     * of a new document for the processors.
+     */
+    private Document parseFragment(String html) {
+        String parent = ancestors.isEmpty() ? BODY : ancestors.get(ancestors.size() - 1);
+        if (HTML.equals(parent)) {
+            // Parsing in the html context would wrap the markup in head/body elements
+            parent = BODY;
+        }
+        List<Node> nodes = Parser.parseFragment(html, new Element(Tag.valueOf(parent), BLANK), BLANK);
+        Document fragment = Document.createShell(BLANK);
+        fragment.outputSettings().prettyPrint(false);
+        Element body = fragment.body();
+        for (Node node : nodes.toArray(new Node[nodes.size()])) {
+            body.appendChild(node);
+        }
+        return fragment;
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of cache keys by the repository paths they depend on. A changed path affects the keys depending on the path
+ * itself, on any of its ancestors (a property or child of the dependency changed) or on any of its descendants
+ * (the dependency was moved or removed along with the changed node). The lookup walks the ancestors of the changed
+ * path and a sorted range of its descendants, so it doesn't depend on the number of indexed keys.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public final class PathIndex<K> {
+
+    // '0' sorts right after '/', so [path + "/", path + "0") holds exactly the descendants of path
+    private static final char AFTER_SEPARATOR = '/' + 1;
+
+    private final NavigableMap<String, Set<K>> keysByPath = new TreeMap<>();
+
+    /**
+     * Indexes the key under each of the paths it depends on.
+     *
+     * @param key The cache key
+     * @param paths The paths the key depends on
+     */
+    public synchronized void add(K key, Collection<String> paths) {
+        for (String path : paths) {
+            Set<K> keys = keysByPath.get(path);
+            if (keys == null) {
+                keys = new HashSet<>();
+                keysByPath.put(path, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Removes the key from each of the paths it was indexed under.
+     *
+     * @param key The cache key
+     * @param paths The paths the key was indexed under
+     */
+    public synchronized void remove(K key, Collection<String> paths) {
+        for (String path : paths) {
+            Set<K> keys = keysByPath.get(path);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByPath.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys affected by the changed paths.
+     *
+     * @param changedPaths The changed paths
+     * @return The keys depending on any changed path, its ancestors or its descendants
+     */
+    public synchronized Set<K> affectedBy(Collection<String> changedPaths) {
+        Set<K> affected = new LinkedHashSet<>();
+        for (String path : changedPaths) {
+            for (int index = path.length(); index > 0; index = path.lastIndexOf('/', index - 1)) {
+                Set<K> keys = keysByPath.get(path.substring(0, index));
+                if (keys != null) {
+                    affected.addAll(keys);
+                }
+            }
+            for (Set<K> keys : keysByPath.subMap(path + '/', true, path + AFTER_SEPARATOR, false).values()) {
+                affected.addAll(keys);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Drops every key.
+     */
+    public synchronized void clear() {
+        keysByPath.clear();
+    }
+
+    /**
+     * @param paths The changed paths
+     * @return The paths without any path that is under another one, since the ancestor affects every key the
+     * descendant does
+     */
+    public static List<String> toRoots(Collection<String> paths) {
+        Set<String> unique = (paths instanceof Set) ? (Set<String>) paths : new HashSet<String>(paths);
+        List<String> roots = new ArrayList<>();
+        for (String path : unique) {
+            boolean nested = false;
+            for (int index = path.lastIndexOf('/'); index > 0 && !nested; index = path.lastIndexOf('/', index - 1)) {
+                nested = unique.contains(path.substring(0, index));
+            }
+            if (!nested) {
+                roots.add(path);
+            }
+        }
+        return roots;
+    }
+}
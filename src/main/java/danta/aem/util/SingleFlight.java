@@ -0,0 +1,111 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.util;
+
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces identical concurrent calls: the first caller for a key runs the call, and the callers arriving while
+ * it runs wait for it, for a bounded time, and share its result (or its failure). Results aren't kept once the call
+ * completes.
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the call, or waits for the identical call in flight. A failure of the call in flight is rethrown wrapped
+     * in an exception of the same kind (IOException, RejectedExecutionException, UncheckedExecutionException or
+     * ExecutionError), so waiting callers don't share the exception instance of the caller running it.
+     *
+     * @param key The key identifying identical calls
+     * @param timeout The maximum time, in milliseconds, to wait for the identical call in flight
+     * @param call The call
+     * @return result The result of the call
+     * @throws RejectedExecutionException if the wait for the identical call in flight timed out
+     * @throws IOException
+     */
+    public V execute(K key, long timeout, Call<V> call)
+            throws IOException {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            return await(inFlight, timeout);
+        }
+        try {
+            V result = call.call();
+            flight.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error ew) {
+            flight.completeExceptionally(ew);
+            throw ew;
+        } finally {
+            calls.remove(key, flight);
+        }
+    }
+
+    private V await(CompletableFuture<V> inFlight, long timeout)
+            throws IOException {
+        try {
+            return inFlight.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ew) {
+            throw new RejectedExecutionException("Timed out waiting for an identical call in flight");
+        } catch (InterruptedException ew) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a call in flight");
+        } catch (ExecutionException ew) {
+            Throwable cause = ew.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            } else if (cause instanceof RejectedExecutionException) {
+                throw new RejectedExecutionException(cause.getMessage(), cause);
+            } else if (cause instanceof Error) {
+                throw new ExecutionError((Error) cause);
+            }
+            throw new UncheckedExecutionException(cause);
+        }
+    }
+
+    /**
+     * A call whose result can be shared
+     */
+    public interface Call<V> {
+
+        /**
+         * @return result The result
+         * @throws IOException
+         */
+        public V call() throws IOException;
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.assets.impl;
+
+import danta.aem.assets.RenditionCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * RenditionCacheImpl tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class RenditionCacheImplTest {
+
+    private static final String ASSET = "/content/dam/site/hero image.png";
+    private static final String OTHER_ASSET = "/content/dam/site/logo.png";
+    private static final String FOLDER_ASSET = "/content/dam/other/banner.png";
+    private static final long LAST_MODIFIED = 1000;
+    private static final String TRANSFORM = "thumbnail";
+    private static final String MIME_TYPE = "image/png";
+    private static final int RENDITION_SIZE = 10;
+
+    private Path directory;
+    private RenditionCacheImpl cache;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("renditions");
+        cache = open(1024);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException ew) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void testStoredRenditionIsServed() throws Exception {
+        File file = put(cache, ASSET, TRANSFORM);
+        Assert.assertEquals(file, cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertArrayEquals(rendition(), Files.readAllBytes(file.toPath()));
+        Assert.assertTrue(file.toPath().startsWith(directory));
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED, "large", MIME_TYPE));
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED + 1, TRANSFORM, MIME_TYPE));
+        Assert.assertNull(cache.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedRenditionIsEvicted() throws Exception {
+        cache = open(2 * RENDITION_SIZE + 1);
+        File first = put(cache, ASSET, TRANSFORM);
+        File second = put(cache, OTHER_ASSET, TRANSFORM);
+        Assert.assertNotNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        File third = put(cache, FOLDER_ASSET, TRANSFORM);
+        Assert.assertNotNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNull(cache.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNotNull(cache.get(FOLDER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertTrue(first.exists());
+        Assert.assertFalse(second.exists());
+        Assert.assertTrue(third.exists());
+    }
+
+    @Test
+    public void testRenditionLargerThanTheCacheIsKeptAlone() throws Exception {
+        cache = open(RENDITION_SIZE - 1);
+        put(cache, ASSET, TRANSFORM);
+        Assert.assertNotNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        put(cache, OTHER_ASSET, TRANSFORM);
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNotNull(cache.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+    }
+
+    @Test
+    public void testInvalidateDropsEveryRenditionOfTheAsset() throws Exception {
+        File thumbnail = put(cache, ASSET, TRANSFORM);
+        File large = put(cache, ASSET, "large");
+        File other = put(cache, OTHER_ASSET, TRANSFORM);
+        cache.invalidate(ASSET);
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED, "large", MIME_TYPE));
+        Assert.assertFalse(thumbnail.exists());
+        Assert.assertFalse(large.exists());
+        Assert.assertFalse(thumbnail.getParentFile().exists());
+        Assert.assertNotNull(cache.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertTrue(other.exists());
+    }
+
+    @Test
+    public void testChangedSubnodeOrFolderInvalidatesTheAsset() throws Exception {
+        put(cache, ASSET, TRANSFORM);
+        put(cache, OTHER_ASSET, TRANSFORM);
+        put(cache, FOLDER_ASSET, TRANSFORM);
+        cache.invalidate(ASSET + "/jcr:content/renditions/original");
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNotNull(cache.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        cache.invalidate("/content/dam/site");
+        Assert.assertNull(cache.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNotNull(cache.get(FOLDER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+    }
+
+    @Test
+    public void testInvalidateAllDropsEveryRendition() throws Exception {
+        File first = put(cache, ASSET, TRANSFORM);
+        File second = put(cache, FOLDER_ASSET, TRANSFORM);
+        cache.invalidateAll();
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNull(cache.get(FOLDER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertFalse(first.exists());
+        Assert.assertFalse(second.exists());
+    }
+
+    @Test
+    public void testRemoveOnlyDropsMissingRenditions() throws Exception {
+        File file = put(cache, ASSET, TRANSFORM);
+        cache.remove(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE);
+        Assert.assertNotNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Files.delete(file.toPath());
+        cache.remove(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE);
+        Assert.assertNull(cache.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+    }
+
+    @Test
+    public void testRenditionsAreLoadedFromTheDirectory() throws Exception {
+        put(cache, ASSET, TRANSFORM);
+        put(cache, OTHER_ASSET, TRANSFORM);
+        Path tempFile = Files.createTempFile(directory.resolve(".tmp"), null, null);
+
+        RenditionCacheImpl reopened = open(1024);
+        Assert.assertNotNull(reopened.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNotNull(reopened.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertFalse(Files.exists(tempFile));
+        // The asset path is decoded from the directory, so the loaded renditions are still invalidated by asset
+        reopened.invalidate(ASSET);
+        Assert.assertNull(reopened.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNotNull(reopened.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+    }
+
+    @Test
+    public void testLoadEvictsTheLeastRecentlyModifiedRenditions() throws Exception {
+        File older = put(cache, ASSET, TRANSFORM);
+        File newer = put(cache, OTHER_ASSET, TRANSFORM);
+        Files.setLastModifiedTime(older.toPath(), FileTime.fromMillis(LAST_MODIFIED));
+        Files.setLastModifiedTime(newer.toPath(), FileTime.fromMillis(2 * LAST_MODIFIED));
+
+        RenditionCacheImpl reopened = open(RENDITION_SIZE);
+        Assert.assertNull(reopened.get(ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertNotNull(reopened.get(OTHER_ASSET, LAST_MODIFIED, TRANSFORM, MIME_TYPE));
+        Assert.assertFalse(older.exists());
+    }
+
+    private RenditionCacheImpl open(long maxSize) throws IOException {
+        RenditionCacheImpl renditionCache = new RenditionCacheImpl();
+        renditionCache.open(directory.toFile(), maxSize);
+        return renditionCache;
+    }
+
+    private static File put(RenditionCache renditionCache, String assetPath, String transformName)
+            throws IOException {
+        return renditionCache.put(assetPath, LAST_MODIFIED, transformName, MIME_TYPE,
+                new RenditionCache.RenditionWriter() {
+                    @Override
+                    public void write(OutputStream out) throws IOException {
+                        out.write(rendition());
+                    }
+                });
+    }
+
+    private static byte[] rendition() {
+        byte[] rendition = new byte[RENDITION_SIZE];
+        Arrays.fill(rendition, (byte) 1);
+        return rendition;
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.assets.impl;
+
+import danta.aem.assets.TransformAdmission;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransformAdmissionImpl tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class TransformAdmissionImplTest {
+
+    private static final long PIXELS_PER_PERMIT = 1024;
+    private static final long SHORT_TIMEOUT = 50;
+    private static final long LONG_TIMEOUT = 10000;
+
+    @Test
+    public void testAdmitsUpToTheConcurrentTransforms() throws Exception {
+        TransformAdmissionImpl admission = admission(2, 64 * PIXELS_PER_PERMIT, 0, SHORT_TIMEOUT);
+        TransformAdmission.Permit first = admission.admit(PIXELS_PER_PERMIT);
+        TransformAdmission.Permit second = admission.admit(PIXELS_PER_PERMIT);
+        Assert.assertEquals(2, admission.getActiveTransforms());
+        Assert.assertEquals(62 * PIXELS_PER_PERMIT, admission.getAvailablePixels());
+        first.release();
+        second.release();
+        Assert.assertEquals(0, admission.getActiveTransforms());
+        Assert.assertEquals(64 * PIXELS_PER_PERMIT, admission.getAvailablePixels());
+        Assert.assertEquals(2, admission.getAdmitted());
+    }
+
+    @Test
+    public void testRejectsWhenTheQueueIsFull() throws Exception {
+        TransformAdmissionImpl admission = admission(1, 64 * PIXELS_PER_PERMIT, 0, LONG_TIMEOUT);
+        TransformAdmission.Permit permit = admission.admit(PIXELS_PER_PERMIT);
+        try {
+            admission.admit(PIXELS_PER_PERMIT);
+            Assert.fail("Expected the queue to be full");
+        } catch (RejectedExecutionException ew) {
+            Assert.assertEquals(1, admission.getRejectedQueueFull());
+            Assert.assertEquals(0, admission.getQueueDepth());
+        }
+        permit.release();
+    }
+
+    @Test
+    public void testRejectsWhenTheWaitTimesOut() throws Exception {
+        TransformAdmissionImpl admission = admission(1, 64 * PIXELS_PER_PERMIT, 1, SHORT_TIMEOUT);
+        TransformAdmission.Permit permit = admission.admit(PIXELS_PER_PERMIT);
+        try {
+            admission.admit(PIXELS_PER_PERMIT);
+            Assert.fail("Expected the wait to time out");
+        } catch (RejectedExecutionException ew) {
+            Assert.assertEquals(1, admission.getRejectedTimeout());
+            Assert.assertEquals(0, admission.getQueueDepth());
+        }
+        permit.release();
+    }
+
+    @Test
+    public void testQueuedTransformIsAdmittedOnRelease() throws Exception {
+        final TransformAdmissionImpl admission = admission(1, 64 * PIXELS_PER_PERMIT, 1, LONG_TIMEOUT);
+        TransformAdmission.Permit permit = admission.admit(PIXELS_PER_PERMIT);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<TransformAdmission.Permit> queued = executor.submit(new Callable<TransformAdmission.Permit>() {
+                @Override
+                public TransformAdmission.Permit call() throws Exception {
+                    return admission.admit(PIXELS_PER_PERMIT);
+                }
+            });
+            long deadline = System.currentTimeMillis() + LONG_TIMEOUT;
+            while (admission.getQueueDepth() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            Assert.assertEquals(1, admission.getQueueDepth());
+            permit.release();
+            queued.get(LONG_TIMEOUT, TimeUnit.MILLISECONDS).release();
+            Assert.assertEquals(0, admission.getQueueDepth());
+            Assert.assertEquals(2, admission.getAdmitted());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSlotIsReleasedWhenThePixelBudgetTimesOut() throws Exception {
+        TransformAdmissionImpl admission = admission(2, 4 * PIXELS_PER_PERMIT, 1, SHORT_TIMEOUT);
+        TransformAdmission.Permit large = admission.admit(4 * PIXELS_PER_PERMIT);
+        try {
+            admission.admit(PIXELS_PER_PERMIT);
+            Assert.fail("Expected the wait for the pixel budget to time out");
+        } catch (RejectedExecutionException ew) {
+            Assert.assertEquals(1, admission.getRejectedTimeout());
+        }
+        large.release();
+        // Both slots are available again: neither transform waits
+        TransformAdmission.Permit first = admission.admit(PIXELS_PER_PERMIT);
+        TransformAdmission.Permit second = admission.admit(PIXELS_PER_PERMIT);
+        Assert.assertEquals(2, admission.getActiveTransforms());
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void testReleasingTwiceHasNoEffect() throws Exception {
+        TransformAdmissionImpl admission = admission(1, 64 * PIXELS_PER_PERMIT, 0, SHORT_TIMEOUT);
+        TransformAdmission.Permit permit = admission.admit(PIXELS_PER_PERMIT);
+        permit.release();
+        permit.release();
+        Assert.assertEquals(0, admission.getActiveTransforms());
+        TransformAdmission.Permit next = admission.admit(PIXELS_PER_PERMIT);
+        try {
+            admission.admit(PIXELS_PER_PERMIT);
+            Assert.fail("Expected a single transform slot");
+        } catch (RejectedExecutionException ew) {
+            Assert.assertEquals(1, admission.getRejectedQueueFull());
+        }
+        next.release();
+    }
+
+    @Test
+    public void testImageLargerThanTheBudgetRunsAlone() throws Exception {
+        TransformAdmissionImpl admission = admission(2, 4 * PIXELS_PER_PERMIT, 0, SHORT_TIMEOUT);
+        TransformAdmission.Permit permit = admission.admit(100 * PIXELS_PER_PERMIT);
+        Assert.assertEquals(0, admission.getAvailablePixels());
+        try {
+            admission.admit(PIXELS_PER_PERMIT);
+            Assert.fail("Expected the pixel budget to be exhausted");
+        } catch (RejectedExecutionException ew) {
+            Assert.assertEquals(1, admission.getRejectedQueueFull());
+        }
+        permit.release();
+        Assert.assertEquals(4 * PIXELS_PER_PERMIT, admission.getAvailablePixels());
+    }
+
+    private static TransformAdmissionImpl admission(int maxConcurrent, long maxPixels, int queueSize,
+                                                    long queueTimeout) throws Exception {
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(TransformAdmissionImpl.MAX_CONCURRENT_PN, maxConcurrent);
+        properties.put(TransformAdmissionImpl.MAX_PIXELS_PN, maxPixels);
+        properties.put(TransformAdmissionImpl.QUEUE_SIZE_PN, queueSize);
+        properties.put(TransformAdmissionImpl.QUEUE_TIMEOUT_PN, queueTimeout);
+        TransformAdmissionImpl admission = new TransformAdmissionImpl();
+        admission.activate(MockOsgi.newComponentContext(properties));
+        return admission;
+    }
+}
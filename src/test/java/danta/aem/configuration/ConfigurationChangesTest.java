@@ -0,0 +1,193 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.configuration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.jcr.Node;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.day.cq.wcm.api.NameConstants.NT_COMPONENT;
+import static danta.Constants.XK_CONFIG_RESOURCE_NAME;
+
+/**
+ * ConfigurationChanges tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class ConfigurationChangesTest {
+
+    private static final String COMPONENT = "/apps/site/components/text";
+    private static final String CONFIG = COMPONENT + "/" + XK_CONFIG_RESOURCE_NAME;
+
+    private final ConfigurationChanges changes = new ConfigurationChanges();
+
+    @Test
+    public void testConfigChangesAreReducedToTheComponent() throws Exception {
+        collect(event(Event.PROPERTY_CHANGED, CONFIG + "/title"));
+        collect(event(Event.NODE_ADDED, CONFIG + "/options"));
+        collect(event(Event.PROPERTY_ADDED, CONFIG + "/options/size"));
+        collect(event(Event.NODE_REMOVED, CONFIG));
+        Assert.assertEquals(Collections.singletonList(COMPONENT), changes.getRoots());
+        Assert.assertEquals(Collections.<String>emptyList(), changes.getHierarchyRoots());
+        Assert.assertFalse(changes.isStructuralChange());
+    }
+
+    @Test
+    public void testFilesOfAPackageInstallAreIgnored() throws Exception {
+        collect(event(Event.PROPERTY_CHANGED, COMPONENT + "/text.hbs/jcr:content/jcr:data"));
+        collect(event(Event.NODE_ADDED, "/apps/site/clientlibs/site"));
+        collect(event(Event.PROPERTY_ADDED, "/apps/site/clientlibs/site/categories"));
+        collect(event(Event.PROPERTY_CHANGED, COMPONENT + "/jcr:title"));
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertFalse(changes.isStructuralChange());
+    }
+
+    @Test
+    public void testSuperTypeChangeAffectsTheHierarchy() throws Exception {
+        collect(event(Event.PROPERTY_CHANGED, COMPONENT + "/sling:resourceSuperType"));
+        Assert.assertEquals(Collections.singletonList(COMPONENT), changes.getRoots());
+        Assert.assertEquals(Collections.singletonList(COMPONENT), changes.getHierarchyRoots());
+        Assert.assertFalse(changes.isStructuralChange());
+    }
+
+    @Test
+    public void testAddedComponentIsAStructuralChange() throws Exception {
+        collect(event(Event.NODE_ADDED, COMPONENT), COMPONENT);
+        Assert.assertEquals(Collections.singletonList(COMPONENT), changes.getRoots());
+        Assert.assertEquals(Collections.singletonList(COMPONENT), changes.getHierarchyRoots());
+        Assert.assertTrue(changes.isStructuralChange());
+    }
+
+    @Test
+    public void testRemovedNodeAffectsItsDependents() throws Exception {
+        collect(event(Event.NODE_REMOVED, "/apps/site/components/legacy"));
+        collect(event(Event.NODE_REMOVED, "/apps/site/components/legacy/teaser"));
+        Assert.assertEquals(Collections.singletonList("/apps/site/components/legacy"), changes.getRoots());
+        Assert.assertEquals(Collections.singletonList("/apps/site/components/legacy"), changes.getHierarchyRoots());
+        Assert.assertFalse(changes.isStructuralChange());
+    }
+
+    @Test
+    public void testMovedComponentAffectsBothPaths() throws Exception {
+        String destination = "/apps/site/components/richtext";
+        collect(moved(COMPONENT, destination), destination);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(COMPONENT, destination)), set(changes.getRoots()));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(COMPONENT, destination)), set(changes.getHierarchyRoots()));
+        Assert.assertTrue(changes.isStructuralChange());
+    }
+
+    @Test
+    public void testComponentRoot() {
+        Assert.assertEquals(COMPONENT, ConfigurationChanges.componentRoot(CONFIG));
+        Assert.assertEquals(COMPONENT, ConfigurationChanges.componentRoot(CONFIG + "/options/size"));
+        Assert.assertNull(ConfigurationChanges.componentRoot(CONFIG + "s"));
+        Assert.assertNull(ConfigurationChanges.componentRoot(COMPONENT + "/text.hbs"));
+    }
+
+    @Test
+    public void testIsAffected() {
+        List<String> componentPaths = Arrays.asList(COMPONENT, "/apps/core/components/text");
+        Assert.assertTrue(ConfigurationChanges.isAffected(componentPaths, Collections.singleton(COMPONENT)));
+        Assert.assertTrue(ConfigurationChanges.isAffected(componentPaths, Collections.singleton("/apps/core")));
+        Assert.assertFalse(ConfigurationChanges.isAffected(componentPaths,
+                Arrays.asList(COMPONENT + "/child", "/apps/site/components/textimage", "/apps/site/components/tex")));
+    }
+
+    /**
+     * Collects the event, with the given paths being the component nodes of the repository.
+     */
+    private void collect(Event event, String... componentPaths) throws Exception {
+        changes.collect(event, session(new HashSet<>(Arrays.asList(componentPaths))));
+    }
+
+    private static Set<String> set(List<String> paths) {
+        Set<String> set = new HashSet<>(paths);
+        Assert.assertEquals(paths.size(), set.size());
+        return set;
+    }
+
+    private static Event event(int type, String path) {
+        return event(type, path, Collections.emptyMap());
+    }
+
+    private static Event moved(String source, String destination) {
+        return event(Event.NODE_MOVED, destination, Collections.singletonMap("srcAbsPath", source));
+    }
+
+    private static Session session(final Set<String> componentPaths) {
+        return proxy(Session.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "nodeExists":
+                        return componentPaths.contains(args[0]);
+                    case "getNode":
+                        return proxy(Node.class, new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object proxy, Method method, Object[] args) {
+                                if ("isNodeType".equals(method.getName())) {
+                                    return NT_COMPONENT.equals(args[0]);
+                                }
+                                throw new UnsupportedOperationException(method.getName());
+                            }
+                        });
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        });
+    }
+
+    private static Event event(final int eventType, final String path, final Map<?, ?> info) {
+        return proxy(Event.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getType":
+                        return eventType;
+                    case "getPath":
+                        return path;
+                    case "getInfo":
+                        return info;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ConfigurationChangesTest.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+}
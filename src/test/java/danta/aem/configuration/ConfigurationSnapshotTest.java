@@ -0,0 +1,167 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.configuration;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ConfigurationSnapshot tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class ConfigurationSnapshotTest {
+
+    private static final byte[] FINGERPRINT = {1, 2, 3};
+    private static final String TEXT = "site/components/text";
+    private static final String TITLE = "site/components/title";
+    private static final String MISSING = "site/components/missing";
+    private static final List<String> TEXT_PATHS =
+            Arrays.asList("/apps/site/components/text", "/apps/core/components/text");
+    private static final List<String> TITLE_PATHS = Collections.singletonList("/apps/site/components/title");
+
+    private File file;
+    private ConfigurationSnapshot snapshot;
+    private final ConcurrentMap<String, String> cache = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("configuration-snapshot", ".bin");
+        Map<String, byte[]> entries = new TreeMap<>();
+        entries.put(TEXT, entry(true, TEXT_PATHS, "text"));
+        entries.put(TITLE, entry(true, TITLE_PATHS, "title"));
+        entries.put(MISSING, entry(false, Collections.<String>emptyList(), ""));
+        ConfigurationSnapshot.write(file, FINGERPRINT, entries);
+        snapshot = new ConfigurationSnapshot(file);
+    }
+
+    @After
+    public void tearDown() {
+        Assert.assertTrue(file.delete());
+        Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testWrittenEntriesAreRead() {
+        Assert.assertArrayEquals(FINGERPRINT, snapshot.getFingerprint());
+        Assert.assertEquals(3, snapshot.size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(TEXT, TITLE, MISSING)), snapshot.resourceTypes());
+        ByteBuffer in = snapshot.read(TEXT);
+        Assert.assertEquals(1, in.get());
+        Assert.assertEquals(TEXT_PATHS, ConfigurationSnapshot.readComponentPaths(in));
+        Assert.assertEquals("text", ConfigurationSnapshot.readString(in));
+        in = snapshot.read(MISSING);
+        Assert.assertEquals(0, in.get());
+        Assert.assertEquals(Collections.<String>emptyList(), ConfigurationSnapshot.readComponentPaths(in));
+        Assert.assertNull(snapshot.read("site/components/other"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOtherFilesAreRejected() throws Exception {
+        File other = File.createTempFile("configuration-snapshot", ".bin");
+        try {
+            try (FileOutputStream out = new FileOutputStream(other)) {
+                out.write("not a snapshot".getBytes(StandardCharsets.UTF_8));
+            }
+            new ConfigurationSnapshot(other);
+        } finally {
+            Assert.assertTrue(other.delete());
+        }
+    }
+
+    @Test
+    public void testChangeExcludesTheAffectedEntries() {
+        Assert.assertEquals(1, snapshot.exclude(Collections.singletonList("/apps/core/components"), false));
+        Assert.assertNull(snapshot.read(TEXT));
+        Assert.assertNotNull(snapshot.read(TITLE));
+        Assert.assertNotNull(snapshot.read(MISSING));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(TITLE, MISSING)), snapshot.resourceTypes());
+    }
+
+    @Test
+    public void testAddedComponentExcludesTheEntriesWithoutComponent() {
+        Assert.assertEquals(0, snapshot.exclude(Collections.singletonList("/apps/site/components/teaser"), false));
+        Assert.assertNotNull(snapshot.read(MISSING));
+        Assert.assertEquals(1, snapshot.exclude(Collections.singletonList("/apps/site/components/teaser"), true));
+        Assert.assertNull(snapshot.read(MISSING));
+        Assert.assertNotNull(snapshot.read(TEXT));
+    }
+
+    @Test
+    public void testCurrentReadIsCached() {
+        long generation = snapshot.getGeneration();
+        Assert.assertEquals("text", snapshot.putIfCurrent(generation, cache, TEXT, "text"));
+        Assert.assertEquals("text", snapshot.putIfCurrent(generation, cache, TEXT, "again"));
+        Assert.assertEquals("text", cache.get(TEXT));
+    }
+
+    @Test
+    public void testReadOverlappingAnExclusionIsNotCached() {
+        long generation = snapshot.getGeneration();
+        Assert.assertEquals(0, snapshot.exclude(Collections.singletonList("/apps/other"), false));
+        Assert.assertEquals(generation, snapshot.getGeneration());
+        Assert.assertEquals(1, snapshot.exclude(Collections.singletonList("/apps/site/components/title"), false));
+        Assert.assertNull(snapshot.putIfCurrent(generation, cache, TEXT, "text"));
+        Assert.assertTrue(cache.isEmpty());
+        Assert.assertEquals("text", snapshot.putIfCurrent(snapshot.getGeneration(), cache, TEXT, "text"));
+    }
+
+    @Test
+    public void testRetiredSnapshotIsNotCached() {
+        long generation = snapshot.getGeneration();
+        snapshot.retire();
+        Assert.assertNull(snapshot.putIfCurrent(generation, cache, TEXT, "text"));
+        Assert.assertNull(snapshot.putIfCurrent(snapshot.getGeneration(), cache, TEXT, "text"));
+        Assert.assertTrue(cache.isEmpty());
+    }
+
+    /**
+     * @return A snapshot entry with the given flag and component paths, followed by a string standing for the
+     * configuration members
+     */
+    private static byte[] entry(boolean hasConfig, List<String> componentPaths, String members) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeBoolean(hasConfig);
+        ConfigurationSnapshot.writeComponentPaths(out, componentPaths);
+        ConfigurationSnapshot.writeString(out, members);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+
+package danta.aem.servlets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.jcr.Binary;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ByteRanges tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class ByteRangesTest {
+
+    private static final long SIZE = 100;
+    private static final String ETAG = "\"%2Fcontent%2Fdam%2Fa.png-5f5e100-original\"";
+    private static final long LAST_MODIFIED = 100000000L;
+
+    @Test
+    public void testSuffixRanges() throws Exception {
+        Assert.assertEquals(Arrays.asList("90-99"), parse("bytes=-10"));
+        Assert.assertEquals(Arrays.asList("0-99"), parse("bytes=-500"));
+        Assert.assertEquals(Arrays.asList(), parse("bytes=-0"));
+    }
+
+    @Test
+    public void testOpenEndedRanges() throws Exception {
+        Assert.assertEquals(Arrays.asList("10-99"), parse("bytes=10-"));
+        Assert.assertEquals(Arrays.asList("99-99"), parse("bytes=99-"));
+        Assert.assertEquals(Arrays.asList("0-99"), parse("bytes=0-1000"));
+    }
+
+    @Test
+    public void testRangesAreSortedAndMerged() throws Exception {
+        Assert.assertEquals(Arrays.asList("0-29", "50-59"), parse("bytes=50-59,5-19,0-9,20-29"));
+        Assert.assertEquals(Arrays.asList("0-99"), parse("bytes=0-49, 40-, -5"));
+    }
+
+    @Test
+    public void testUnsatisfiableRangesAreDropped() throws Exception {
+        Assert.assertEquals(Arrays.asList(), parse("bytes=500-"));
+        Assert.assertEquals(Arrays.asList(), parse("bytes=100-"));
+        Assert.assertEquals(Arrays.asList(), parse("bytes=200-300"));
+        Assert.assertEquals(Arrays.asList("0-9"), parse("bytes=0-9,200-300"));
+        Assert.assertEquals(0, ByteRanges.parse("bytes=0-", 0).size());
+    }
+
+    @Test
+    public void testMalformedRangesAreIgnored() throws Exception {
+        Assert.assertNull(parse(null));
+        Assert.assertNull(parse("items=0-9"));
+        Assert.assertNull(parse("bytes="));
+        Assert.assertNull(parse("bytes=-"));
+        Assert.assertNull(parse("bytes=9"));
+        Assert.assertNull(parse("bytes=9-5"));
+        Assert.assertNull(parse("bytes=a-b"));
+        Assert.assertNull(parse("bytes=+1-5"));
+        Assert.assertNull(parse("bytes=1--5"));
+        Assert.assertNull(parse("bytes=500-400"));
+        StringBuilder tooMany = new StringBuilder("bytes=0-0");
+        for (int index = 1; index <= 16; index++) {
+            tooMany.append(',').append(index * 2).append('-').append(index * 2);
+        }
+        Assert.assertNull(parse(tooMany.toString()));
+    }
+
+    @Test
+    public void testIfRange() throws Exception {
+        Assert.assertTrue(ByteRanges.isIfRangeSatisfied(null, -1, ETAG, LAST_MODIFIED));
+        Assert.assertTrue(ByteRanges.isIfRangeSatisfied(ETAG, -1, ETAG, LAST_MODIFIED));
+        Assert.assertTrue(ByteRanges.isIfRangeSatisfied(" " + ETAG + " ", -1, ETAG, LAST_MODIFIED));
+        Assert.assertFalse(ByteRanges.isIfRangeSatisfied("\"other\"", -1, ETAG, LAST_MODIFIED));
+        Assert.assertFalse(ByteRanges.isIfRangeSatisfied("W/" + ETAG, -1, ETAG, LAST_MODIFIED));
+        String date = "Fri, 02 Jan 1970 03:46:40 GMT";
+        Assert.assertTrue(ByteRanges.isIfRangeSatisfied(date, LAST_MODIFIED, ETAG, LAST_MODIFIED + 999));
+        Assert.assertTrue(ByteRanges.isIfRangeSatisfied(date, LAST_MODIFIED + 1000, ETAG, LAST_MODIFIED));
+        Assert.assertFalse(ByteRanges.isIfRangeSatisfied(date, LAST_MODIFIED - 1000, ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteRanges.copy(binary(), new long[] { 10, 19 }, out);
+        Assert.assertEquals("ABCDEFGHIJ", new String(out.toByteArray(), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testMultipart() throws Exception {
+        List<long[]> ranges = ByteRanges.parse("bytes=95-,0-2", SIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteRanges.writeMultipart(binary(), ranges, "image/png", "BOUNDARY", out);
+        Assert.assertEquals("\r\n--BOUNDARY\r\n"
+                + "Content-Type: image/png\r\n"
+                + "Content-Range: bytes 0-2/100\r\n\r\n"
+                + "012"
+                + "\r\n--BOUNDARY\r\n"
+                + "Content-Type: image/png\r\n"
+                + "Content-Range: bytes 95-99/100\r\n\r\n"
+                + "FGHIJ"
+                + "\r\n--BOUNDARY--\r\n", new String(out.toByteArray(), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testMultipartWithoutMimeType() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteRanges.writeMultipart(binary(), ByteRanges.parse("bytes=0-0,2-2", SIZE), "", "B", out);
+        Assert.assertEquals("\r\n--B\r\nContent-Range: bytes 0-0/100\r\n\r\n0"
+                + "\r\n--B\r\nContent-Range: bytes 2-2/100\r\n\r\n2"
+                + "\r\n--B--\r\n", new String(out.toByteArray(), StandardCharsets.ISO_8859_1));
+    }
+
+    private static List<String> parse(String range) {
+        List<long[]> ranges = ByteRanges.parse(range, SIZE);
+        return (ranges == null) ? null : toStrings(ranges);
+    }
+
+    private static List<String> toStrings(List<long[]> ranges) {
+        List<String> strings = new ArrayList<>();
+        for (long[] range : ranges) {
+            strings.add(range[0] + "-" + range[1]);
+        }
+        return strings;
+    }
+
+    /**
+     * A binary of SIZE bytes repeating "0123456789ABCDEFGHIJ"
+     */
+    private static Binary binary() {
+        final byte[] bytes = new byte[(int) SIZE];
+        byte[] pattern = "0123456789ABCDEFGHIJ".getBytes(StandardCharsets.ISO_8859_1);
+        for (int index = 0; index < bytes.length; index++) {
+            bytes[index] = pattern[index % pattern.length];
+        }
+        return new Binary() {
+            @Override
+            public InputStream getStream() {
+                return new ByteArrayInputStream(bytes);
+            }
+
+            @Override
+            public int read(byte[] buffer, long position) {
+                throw new UnsupportedOperationException("Ranges are copied from streams");
+            }
+
+            @Override
+            public long getSize() {
+                return bytes.length;
+            }
+
+            @Override
+            public void dispose() {
+            }
+        };
+    }
+}
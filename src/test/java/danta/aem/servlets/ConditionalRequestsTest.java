@@ -0,0 +1,79 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.servlets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ConditionalRequests tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class ConditionalRequestsTest {
+
+    private static final String ETAG = "\"%2Fcontent%2Fdam%2Fa.png-5f5e100-original\"";
+    private static final long LAST_MODIFIED = 100000000L;
+
+    @Test
+    public void testETag() throws Exception {
+        Assert.assertEquals(ETAG, ConditionalRequests.etag("/content/dam/a.png", LAST_MODIFIED, "original"));
+        Assert.assertEquals("\"%2Fcontent%2Fdam%2F%22quoted%22+%C3%A9.png-5f5e100-thumbnail\"",
+                ConditionalRequests.etag("/content/dam/\"quoted\" \u00e9.png", LAST_MODIFIED, "thumbnail"));
+    }
+
+    @Test
+    public void testETagChangesWithTheDelivery() throws Exception {
+        String etag = ConditionalRequests.etag("/content/dam/a.png", LAST_MODIFIED, "thumbnail");
+        Assert.assertNotEquals(etag, ConditionalRequests.etag("/content/dam/b.png", LAST_MODIFIED, "thumbnail"));
+        Assert.assertNotEquals(etag, ConditionalRequests.etag("/content/dam/a.png", LAST_MODIFIED + 1, "thumbnail"));
+        Assert.assertNotEquals(etag, ConditionalRequests.etag("/content/dam/a.png", LAST_MODIFIED, "original"));
+    }
+
+    @Test
+    public void testMatchingETagIsNotModified() {
+        Assert.assertTrue(ConditionalRequests.isNotModified(ETAG, -1, ETAG, LAST_MODIFIED));
+        Assert.assertTrue(ConditionalRequests.isNotModified("\"other\", " + ETAG, -1, ETAG, LAST_MODIFIED));
+        Assert.assertTrue(ConditionalRequests.isNotModified("W/" + ETAG, -1, ETAG, LAST_MODIFIED));
+        Assert.assertTrue(ConditionalRequests.isNotModified("*", -1, ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    public void testOtherETagIsModified() {
+        Assert.assertFalse(ConditionalRequests.isNotModified("\"other\"", -1, ETAG, LAST_MODIFIED));
+        Assert.assertFalse(ConditionalRequests.isNotModified("", -1, ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    public void testIfNoneMatchTakesPrecedence() {
+        Assert.assertFalse(ConditionalRequests.isNotModified("\"other\"", LAST_MODIFIED, ETAG, LAST_MODIFIED));
+    }
+
+    @Test
+    public void testIfModifiedSince() {
+        Assert.assertTrue(ConditionalRequests.isNotModified(null, LAST_MODIFIED, ETAG, LAST_MODIFIED));
+        Assert.assertTrue(ConditionalRequests.isNotModified(null, LAST_MODIFIED + 1000, ETAG, LAST_MODIFIED));
+        // The header has a one second precision
+        Assert.assertTrue(ConditionalRequests.isNotModified(null, LAST_MODIFIED, ETAG, LAST_MODIFIED + 999));
+        Assert.assertFalse(ConditionalRequests.isNotModified(null, LAST_MODIFIED, ETAG, LAST_MODIFIED + 1000));
+        Assert.assertFalse(ConditionalRequests.isNotModified(null, -1, ETAG, LAST_MODIFIED));
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * DantaRenderCacheImpl tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class DantaRenderCacheImplTest {
+
+    private static final String KEY = "/content/site/page/jcr:content/nav:site/components/nav:html";
+    private static final String OTHER_KEY = "/content/site/other/jcr:content/text:site/components/text:html";
+
+    private final DantaRenderCacheImpl cache = new DantaRenderCacheImpl();
+
+    @Test
+    public void testCachedOutputIsServed() {
+        RenderedOutput output = output("/content/site/page/jcr:content/nav", "/apps/site/components/nav");
+        cache.put(KEY, output, cache.getGeneration());
+        Assert.assertSame(output, cache.get(KEY));
+        Assert.assertNull(cache.get(OTHER_KEY));
+    }
+
+    @Test
+    public void testChangedDependencyDropsTheEntry() {
+        cache.put(KEY, output("/content/site/page/jcr:content/nav", "/apps/site/components/nav"),
+                cache.getGeneration());
+        cache.invalidate("/apps/site/components/nav");
+        Assert.assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void testChangedDescendantDropsTheEntry() {
+        cache.put(KEY, output("/content/site/page/jcr:content/nav", "/content/site"), cache.getGeneration());
+        cache.invalidate("/content/site/page/child");
+        Assert.assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void testChangedAncestorDropsTheEntry() {
+        cache.put(KEY, output("/content/site/page/jcr:content/nav"), cache.getGeneration());
+        cache.invalidate("/content/site");
+        Assert.assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void testUnrelatedChangeKeepsTheEntry() {
+        RenderedOutput output = output("/content/site/page/jcr:content/nav", "/apps/site/components/nav");
+        cache.put(KEY, output, cache.getGeneration());
+        cache.put(OTHER_KEY, output("/content/site/other/jcr:content/text"), cache.getGeneration());
+        cache.invalidate("/content/site/other");
+        cache.invalidate("/apps/site/components/navigation");
+        Assert.assertSame(output, cache.get(KEY));
+        Assert.assertNull(cache.get(OTHER_KEY));
+    }
+
+    @Test
+    public void testRenderStartedBeforeAnInvalidationIsNotStored() {
+        long generation = cache.getGeneration();
+        cache.invalidate("/content/site/other");
+        cache.put(KEY, output("/content/site/page/jcr:content/nav"), generation);
+        Assert.assertNull(cache.get(KEY));
+        cache.put(KEY, output("/content/site/page/jcr:content/nav"), cache.getGeneration());
+        Assert.assertNotNull(cache.get(KEY));
+    }
+
+    @Test
+    public void testReplacedEntryIsStillDropped() {
+        cache.put(KEY, output("/content/site/page/jcr:content/nav"), cache.getGeneration());
+        RenderedOutput replacement = output("/content/site/page/jcr:content/nav");
+        cache.put(KEY, replacement, cache.getGeneration());
+        Assert.assertSame(replacement, cache.get(KEY));
+        cache.invalidate("/content/site/page/jcr:content/nav");
+        Assert.assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void testInvalidateAllDropsEveryEntry() {
+        long generation = cache.getGeneration();
+        cache.put(KEY, output("/content/site/page/jcr:content/nav"), generation);
+        cache.put(OTHER_KEY, output("/content/site/other/jcr:content/text"), generation);
+        cache.invalidateAll();
+        Assert.assertNull(cache.get(KEY));
+        Assert.assertNull(cache.get(OTHER_KEY));
+        Assert.assertTrue(cache.getGeneration() > generation);
+    }
+
+    private static RenderedOutput output(String... dependencies) {
+        return new RenderedOutput("<nav></nav>", RenderSideEffects.NONE, Arrays.asList(dependencies));
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * HTMLTokenizer tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class HTMLTokenizerTest {
+
+    @Test
+    public void testTokensCoverTheWholeSource() throws Exception {
+        String html = "<!DOCTYPE html><html><body class=\"a\"><p>Text</p><!-- comment --></body></html>";
+        Recorder recorder = tokenize(html);
+        Assert.assertEquals(html, recorder.copy.toString());
+        Assert.assertEquals(Arrays.asList(
+                "chars:<!DOCTYPE html>",
+                "start:html[]",
+                "start:body[class]",
+                "start:p[]",
+                "chars:Text",
+                "end:p",
+                "chars:<!-- comment -->",
+                "end:body",
+                "end:html"), recorder.tokens);
+    }
+
+    @Test
+    public void testAttributeNamesAreLowerCased() throws Exception {
+        Recorder recorder = tokenize("<DIV Data-Section='x' data-empty ID=main>");
+        Assert.assertEquals(Arrays.asList("start:div[data-empty, data-section, id]"), recorder.tokens);
+    }
+
+    @Test
+    public void testVoidElementsAreSelfClosing() throws Exception {
+        Recorder recorder = tokenize("<img src=\"a.png\"><br>");
+        Assert.assertEquals(Arrays.asList("start:img[src]/", "start:br[]/"), recorder.tokens);
+    }
+
+    @Test
+    public void testTrailingSlashIsSelfClosing() throws Exception {
+        Recorder recorder = tokenize("<div data-x=\"1\"/><span/>");
+        Assert.assertEquals(Arrays.asList("start:div[data-x]/", "start:span[]/"), recorder.tokens);
+    }
+
+    @Test
+    public void testSlashEndingUnquotedValueIsNotSelfClosing() throws Exception {
+        Recorder recorder = tokenize("<a href=/x/>link</a>");
+        Assert.assertEquals(Arrays.asList("start:a[href]", "chars:link", "end:a"), recorder.tokens);
+    }
+
+    @Test
+    public void testSlashFollowedBySpaceIsNotSelfClosing() throws Exception {
+        Recorder recorder = tokenize("<div / >x</div>");
+        Assert.assertEquals(Arrays.asList("start:div[]", "chars:x", "end:div"), recorder.tokens);
+    }
+
+    @Test
+    public void testQuotedValuesMayContainMarkup() throws Exception {
+        Recorder recorder = tokenize("<div title=\"a > b\" data-x='<p/>'>x</div>");
+        Assert.assertEquals(Arrays.asList("start:div[data-x, title]", "chars:x", "end:div"), recorder.tokens);
+    }
+
+    @Test
+    public void testRawTextElementsAreReportedAsCharacters() throws Exception {
+        String html = "<script>if (a < b) { document.write('<div>'); }</script><style>p > a {}</STYLE>";
+        Recorder recorder = tokenize(html);
+        Assert.assertEquals(Arrays.asList(
+                "start:script[]",
+                "chars:if (a < b) { document.write('<div>'); }",
+                "end:script",
+                "start:style[]",
+                "chars:p > a {}",
+                "end:style"), recorder.tokens);
+        Assert.assertEquals(html, recorder.copy.toString());
+    }
+
+    @Test
+    public void testStrayLessThanIsText() throws Exception {
+        Recorder recorder = tokenize("a < b <3 </ c");
+        Assert.assertEquals(Arrays.asList("chars:a < b <3 </ c"), recorder.tokens);
+    }
+
+    @Test
+    public void testUnterminatedTagRunsToTheEnd() throws Exception {
+        String html = "<p>x</p><div class=\"a";
+        Recorder recorder = tokenize(html);
+        Assert.assertEquals(Arrays.asList("start:p[]", "chars:x", "end:p", "start:div[class]"), recorder.tokens);
+        Assert.assertEquals(html, recorder.copy.toString());
+    }
+
+    private static Recorder tokenize(String html) throws IOException {
+        Recorder recorder = new Recorder(html);
+        new HTMLTokenizer(html).tokenize(recorder);
+        return recorder;
+    }
+
+    /**
+     * Records every token, along with the source it covers
+     */
+    private static class Recorder
+            implements HTMLTokenizer.Handler {
+
+        private final String source;
+        private final List<String> tokens = new ArrayList<>();
+        private final StringBuilder copy = new StringBuilder();
+
+        private Recorder(String source) {
+            this.source = source;
+        }
+
+        @Override
+        public void characters(int start, int end) {
+            tokens.add("chars:" + source.substring(start, end));
+            copy.append(source, start, end);
+        }
+
+        @Override
+        public void startTag(String name, Set<String> attributeNames, boolean selfClosing, int start, int end) {
+            tokens.add("start:" + name + new TreeSet<>(attributeNames) + (selfClosing ? "/" : ""));
+            copy.append(source, start, end);
+        }
+
+        @Override
+        public void endTag(String name, int start, int end) {
+            tokens.add("end:" + name);
+            copy.append(source, start, end);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.templating;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.ServletRequest;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RenderSideEffects tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class RenderSideEffectsTest {
+
+    @Test
+    public void testRenderWithoutChangesHasNoSideEffects() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("flag", Boolean.TRUE);
+        attributes.put("included", new HashSet<>(Collections.singleton("base")));
+        ServletRequest request = request(attributes);
+        RenderSideEffects.Recorder recorder = RenderSideEffects.record(request);
+        request.setAttribute("flag", Boolean.TRUE);
+        Assert.assertSame(RenderSideEffects.NONE, recorder.stop(request));
+    }
+
+    @Test
+    public void testSetAttributesAreReplayed() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("replaced", "before");
+        attributes.put("kept", "before");
+        ServletRequest request = request(attributes);
+        RenderSideEffects.Recorder recorder = RenderSideEffects.record(request);
+        request.setAttribute("replaced", "after");
+        request.setAttribute("added", "after");
+        RenderSideEffects sideEffects = recorder.stop(request);
+
+        Map<String, Object> replayed = new HashMap<>();
+        replayed.put("kept", "other");
+        sideEffects.replay(request(replayed));
+        Assert.assertEquals("after", replayed.get("replaced"));
+        Assert.assertEquals("after", replayed.get("added"));
+        Assert.assertEquals("other", replayed.get("kept"));
+    }
+
+    @Test
+    public void testIgnoredAttributesAreNotRecorded() {
+        ServletRequest request = request(new HashMap<String, Object>());
+        RenderSideEffects.Recorder recorder = RenderSideEffects.record(request, "contentModel");
+        request.setAttribute("contentModel", "model");
+        request.setAttribute("org.apache.sling.api.include.servlet", "servlet");
+        request.setAttribute("javax.servlet.include.request_uri", "/content/site/page.html");
+        Assert.assertSame(RenderSideEffects.NONE, recorder.stop(request));
+    }
+
+    @Test
+    public void testAddedElementsAreMerged() {
+        Set<Object> included = new HashSet<>();
+        included.add("base");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("included", included);
+        ServletRequest request = request(attributes);
+        RenderSideEffects.Recorder recorder = RenderSideEffects.record(request);
+        included.add("component");
+        RenderSideEffects sideEffects = recorder.stop(request);
+
+        Set<Object> replayedIncluded = new HashSet<>();
+        replayedIncluded.add("other");
+        Map<String, Object> replayed = new HashMap<>();
+        replayed.put("included", replayedIncluded);
+        sideEffects.replay(request(replayed));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("other", "component")), replayed.get("included"));
+        Assert.assertNotSame(replayedIncluded, replayed.get("included"));
+    }
+
+    @Test
+    public void testAddedElementsAreCopied() {
+        Map<String, Object> attributes = new HashMap<>();
+        ServletRequest request = request(attributes);
+        RenderSideEffects.Recorder recorder = RenderSideEffects.record(request);
+        List<Object> scripts = new ArrayList<>();
+        scripts.add("script.js");
+        request.setAttribute("scripts", scripts);
+        RenderSideEffects sideEffects = recorder.stop(request);
+        scripts.add("later.js");
+
+        Map<String, Object> first = new HashMap<>();
+        sideEffects.replay(request(first));
+        Map<String, Object> second = new HashMap<>();
+        sideEffects.replay(request(second));
+        Assert.assertEquals(Collections.singletonList("script.js"), first.get("scripts"));
+        Assert.assertEquals(Collections.singletonList("script.js"), second.get("scripts"));
+        Assert.assertNotSame(first.get("scripts"), second.get("scripts"));
+        Assert.assertNotSame(scripts, first.get("scripts"));
+    }
+
+    @Test
+    public void testReplacedCollectionIsRecordedWhole() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("included", new LinkedHashSet<>(Collections.singleton("base")));
+        ServletRequest request = request(attributes);
+        RenderSideEffects.Recorder recorder = RenderSideEffects.record(request);
+        request.setAttribute("included", new LinkedHashSet<>(Arrays.asList("base", "component")));
+        RenderSideEffects sideEffects = recorder.stop(request);
+
+        Map<String, Object> replayed = new HashMap<>();
+        sideEffects.replay(request(replayed));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("base", "component")), replayed.get("included"));
+    }
+
+    @Test
+    public void testAddedEntriesAreMerged() {
+        Map<Object, Object> settings = new HashMap<>();
+        settings.put("kept", "before");
+        settings.put("changed", "before");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("settings", settings);
+        ServletRequest request = request(attributes);
+        RenderSideEffects.Recorder recorder = RenderSideEffects.record(request);
+        settings.put("changed", "after");
+        settings.put("added", "after");
+        RenderSideEffects sideEffects = recorder.stop(request);
+
+        Map<Object, Object> replayedSettings = new LinkedHashMap<>();
+        replayedSettings.put("kept", "other");
+        replayedSettings.put("changed", "other");
+        Map<String, Object> replayed = new HashMap<>();
+        replayed.put("settings", replayedSettings);
+        sideEffects.replay(request(replayed));
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put("kept", "other");
+        expected.put("changed", "after");
+        expected.put("added", "after");
+        Assert.assertEquals(expected, replayed.get("settings"));
+        Assert.assertNotSame(replayedSettings, replayed.get("settings"));
+    }
+
+    /**
+     * @param attributes The attributes of the request, updated as the request attributes are set
+     * @return A request with the given attributes
+     */
+    private static ServletRequest request(final Map<String, Object> attributes) {
+        return (ServletRequest) Proxy.newProxyInstance(RenderSideEffectsTest.class.getClassLoader(),
+                new Class<?>[]{ServletRequest.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "getAttribute":
+                                return attributes.get(args[0]);
+                            case "getAttributeNames":
+                                return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+                            case "setAttribute":
+                                attributes.put((String) args[0], args[1]);
+                                return null;
+                            case "removeAttribute":
+                                attributes.remove(args[0]);
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PathIndex tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class PathIndexTest {
+
+    private final PathIndex<String> index = new PathIndex<>();
+
+    @Test
+    public void testChangedPathAffectsItsKeys() {
+        index.add("page", Arrays.asList("/content/site/page", "/apps/site/components/page"));
+        Assert.assertEquals(Collections.singleton("page"), affectedBy("/content/site/page"));
+        Assert.assertEquals(Collections.singleton("page"), affectedBy("/apps/site/components/page"));
+    }
+
+    @Test
+    public void testChangedDescendantAffectsTheKeysOfItsAncestors() {
+        index.add("page", Collections.singletonList("/content/site/page"));
+        Assert.assertEquals(Collections.singleton("page"), affectedBy("/content/site/page/jcr:content/title"));
+    }
+
+    @Test
+    public void testChangedAncestorAffectsTheKeysOfItsDescendants() {
+        index.add("page", Collections.singletonList("/content/site/page"));
+        Assert.assertEquals(Collections.singleton("page"), affectedBy("/content/site"));
+    }
+
+    @Test
+    public void testSiblingsAreNotAffected() {
+        index.add("page", Collections.singletonList("/content/site/page"));
+        index.add("pages", Collections.singletonList("/content/site/pages"));
+        index.add("page-1", Collections.singletonList("/content/site/page-1"));
+        Assert.assertEquals(Collections.singleton("page"), affectedBy("/content/site/page"));
+        Assert.assertEquals(Collections.<String>emptySet(), affectedBy("/content/site/other"));
+        Assert.assertEquals(Collections.<String>emptySet(), affectedBy("/content/site/pag"));
+    }
+
+    @Test
+    public void testRemovedKeyIsNotAffected() {
+        index.add("page", Arrays.asList("/content/site/page", "/apps/site/components/page"));
+        index.add("other", Collections.singletonList("/content/site/page"));
+        index.remove("page", Arrays.asList("/content/site/page", "/apps/site/components/page"));
+        Assert.assertEquals(Collections.singleton("other"), affectedBy("/content/site/page"));
+        Assert.assertEquals(Collections.<String>emptySet(), affectedBy("/apps/site/components/page"));
+    }
+
+    @Test
+    public void testClearedIndexHasNoKeys() {
+        index.add("page", Collections.singletonList("/content/site/page"));
+        index.clear();
+        Assert.assertEquals(Collections.<String>emptySet(), affectedBy("/content"));
+    }
+
+    @Test
+    public void testToRootsDropsNestedPaths() {
+        List<String> roots = PathIndex.toRoots(Arrays.asList("/content/site/page/jcr:content", "/content/site/page",
+                "/content/site/pages", "/apps/site", "/apps/site/components/page", "/content/site/page"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("/content/site/page", "/content/site/pages", "/apps/site")),
+                new HashSet<>(roots));
+        Assert.assertEquals(3, roots.size());
+    }
+
+    private Set<String> affectedBy(String... changedPaths) {
+        return index.affectedBy(Arrays.asList(changedPaths));
+    }
+}
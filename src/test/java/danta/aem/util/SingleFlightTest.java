@@ -0,0 +1,242 @@
+/**
+ * Danta AEM Bundle
+ *
+ * Copyright (C) 2017 Tikal Technologies, Inc. All rights reserved.
+ *
+ * Licensed under GNU Affero General Public License, Version v3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.gnu.org/licenses/agpl-3.0.txt
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied;
+ * without even the implied warranty of MERCHANTABILITY.
+ * See the License for more details.
+ */
+
+package danta.aem.util;
+
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SingleFlight tests
+ *
+ * @author      Danta Team
+ * @version     1.0.0
+ * @since       2026-10-18
+ */
+public class SingleFlightTest {
+
+    private static final String KEY = "key";
+    private static final long WAIT = 10000;
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCallsInSequenceAreNotShared() throws Exception {
+        Assert.assertEquals("1", flights.execute(KEY, WAIT, counting()));
+        Assert.assertEquals("2", flights.execute(KEY, WAIT, counting()));
+    }
+
+    @Test
+    public void testDifferentKeysAreNotShared() throws Exception {
+        Leader leader = new Leader(KEY, null);
+        Assert.assertEquals("1", flights.execute("other", WAIT, counting()));
+        leader.finish();
+        Assert.assertEquals("leader", leader.result.get(WAIT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWaitingCallersShareTheResult() throws Exception {
+        Leader leader = new Leader(KEY, null);
+        Future<String> follower = follow(WAIT);
+        leader.finish();
+        Assert.assertEquals("leader", leader.result.get(WAIT, TimeUnit.MILLISECONDS));
+        Assert.assertEquals("leader", follower.get(WAIT, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void testIOExceptionIsWrapped() throws Exception {
+        IOException failure = new IOException("failed");
+        Throwable shared = sharedFailure(failure);
+        Assert.assertSame(IOException.class, shared.getClass());
+        Assert.assertEquals("failed", shared.getMessage());
+        Assert.assertSame(failure, shared.getCause());
+    }
+
+    @Test
+    public void testRejectionIsWrapped() throws Exception {
+        RejectedExecutionException failure = new RejectedExecutionException("rejected");
+        Throwable shared = sharedFailure(failure);
+        Assert.assertSame(RejectedExecutionException.class, shared.getClass());
+        Assert.assertEquals("rejected", shared.getMessage());
+        Assert.assertSame(failure, shared.getCause());
+    }
+
+    @Test
+    public void testRuntimeExceptionIsWrapped() throws Exception {
+        IllegalStateException failure = new IllegalStateException("broken");
+        Throwable shared = sharedFailure(failure);
+        Assert.assertSame(UncheckedExecutionException.class, shared.getClass());
+        Assert.assertSame(failure, shared.getCause());
+    }
+
+    @Test
+    public void testErrorIsWrapped() throws Exception {
+        OutOfMemoryError failure = new OutOfMemoryError("decode");
+        Throwable shared = sharedFailure(failure);
+        Assert.assertSame(ExecutionError.class, shared.getClass());
+        Assert.assertSame(failure, shared.getCause());
+    }
+
+    @Test
+    public void testWaitIsBounded() throws Exception {
+        Leader leader = new Leader(KEY, null);
+        try {
+            flights.execute(KEY, 50, counting());
+            Assert.fail("Expected the wait to time out");
+        } catch (RejectedExecutionException ew) {
+            Assert.assertEquals(0, calls.get());
+        }
+        leader.finish();
+        Assert.assertEquals("leader", leader.result.get(WAIT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFailedCallIsNotKept() throws Exception {
+        try {
+            flights.execute(KEY, WAIT, new SingleFlight.Call<String>() {
+                @Override
+                public String call() throws IOException {
+                    throw new IOException("failed");
+                }
+            });
+            Assert.fail("Expected the failure of the call");
+        } catch (IOException ew) {
+            Assert.assertEquals("failed", ew.getMessage());
+        }
+        Assert.assertEquals("1", flights.execute(KEY, WAIT, counting()));
+    }
+
+    /**
+     * Runs a failing leader with a caller waiting for it, and returns the failure the waiting caller got.
+     */
+    private Throwable sharedFailure(Throwable failure) throws Exception {
+        Leader leader = new Leader(KEY, failure);
+        Future<String> follower = follow(WAIT);
+        leader.finish();
+        try {
+            leader.result.get(WAIT, TimeUnit.MILLISECONDS);
+            Assert.fail("Expected the leader to fail");
+        } catch (ExecutionException ew) {
+            Assert.assertSame(failure, ew.getCause());
+        }
+        try {
+            follower.get(WAIT, TimeUnit.MILLISECONDS);
+            Assert.fail("Expected the waiting caller to fail");
+        } catch (ExecutionException ew) {
+            Assert.assertNotSame(failure, ew.getCause());
+            Assert.assertEquals(0, calls.get());
+            return ew.getCause();
+        }
+        return null;
+    }
+
+    /**
+     * Starts a caller of the call in flight, and returns once it waits for it.
+     */
+    private Future<String> follow(final long timeout) throws InterruptedException {
+        final Thread[] thread = new Thread[1];
+        final CountDownLatch started = new CountDownLatch(1);
+        Future<String> follower = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                thread[0] = Thread.currentThread();
+                started.countDown();
+                return flights.execute(KEY, timeout, counting());
+            }
+        });
+        started.await();
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (thread[0].getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        return follower;
+    }
+
+    private SingleFlight.Call<String> counting() {
+        return new SingleFlight.Call<String>() {
+            @Override
+            public String call() {
+                return String.valueOf(calls.incrementAndGet());
+            }
+        };
+    }
+
+    /**
+     * A call in flight, completing (or failing) once finished
+     */
+    private class Leader {
+
+        private final CountDownLatch running = new CountDownLatch(1);
+        private final CountDownLatch finish = new CountDownLatch(1);
+        private final Future<String> result;
+
+        private Leader(final String key, final Throwable failure) throws InterruptedException {
+            result = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return flights.execute(key, WAIT, new SingleFlight.Call<String>() {
+                        @Override
+                        public String call() throws IOException {
+                            running.countDown();
+                            try {
+                                finish.await();
+                            } catch (InterruptedException ew) {
+                                throw new IOException(ew);
+                            }
+                            if (failure instanceof IOException) {
+                                throw (IOException) failure;
+                            } else if (failure instanceof RuntimeException) {
+                                throw (RuntimeException) failure;
+                            } else if (failure instanceof Error) {
+                                throw (Error) failure;
+                            }
+                            return "leader";
+                        }
+                    });
+                }
+            });
+            running.await();
+        }
+
+        private void finish() {
+            finish.countDown();
+        }
+    }
+}